@@ -0,0 +1,205 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.benchmarks;
+
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.ParameterExpression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.SetJoin;
+import jakarta.persistence.criteria.Subquery;
+
+import java.util.concurrent.TimeUnit;
+
+import org.dellroad.querystream.jpa.QueryStream;
+import org.dellroad.querystream.jpa.RootStream;
+import org.dellroad.querystream.jpa.SearchStream;
+import org.dellroad.querystream.test.jpa.Department;
+import org.dellroad.querystream.test.jpa.Department_;
+import org.dellroad.querystream.test.jpa.Employee;
+import org.dellroad.querystream.test.jpa.Employee_;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of building queries (without executing them).
+ *
+ * <p>
+ * The {@code stream*()} benchmarks include both constructing the {@link QueryStream} pipeline and replaying it
+ * via {@link QueryStream#toCriteriaQuery} or {@link QueryStream#toQuery}, because in typical usage a new pipeline
+ * is constructed for every query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuildBenchmark {
+
+// Simple query
+
+    @Benchmark
+    public CriteriaQuery<Employee> streamSimple(Session session) {
+        return session.qb.stream(Employee.class)
+          .filter(e -> session.qb.gt(e.get(Employee_.salary), 50000.0f))
+          .toCriteriaQuery();
+    }
+
+    @Benchmark
+    public CriteriaQuery<Employee> criteriaSimple(Session session) {
+        final CriteriaBuilder cb = session.cb;
+        final CriteriaQuery<Employee> query = cb.createQuery(Employee.class);
+        final Root<Employee> e = query.from(Employee.class);
+        return query.select(e).where(cb.gt(e.get(Employee_.salary), 50000.0f));
+    }
+
+// Deep filter() chain
+
+    @Benchmark
+    public CriteriaQuery<Employee> streamFilterChain(Session session, Depth depth) {
+        RootStream<Employee> stream = session.qb.stream(Employee.class);
+        for (int i = 0; i < depth.value; i++) {
+            final float minSalary = i;
+            stream = stream.filter(e -> session.qb.gt(e.get(Employee_.salary), minSalary));
+        }
+        return stream.toCriteriaQuery();
+    }
+
+    @Benchmark
+    public CriteriaQuery<Employee> criteriaFilterChain(Session session, Depth depth) {
+        final CriteriaBuilder cb = session.cb;
+        final CriteriaQuery<Employee> query = cb.createQuery(Employee.class);
+        final Root<Employee> e = query.from(Employee.class);
+        Predicate restriction = null;
+        for (int i = 0; i < depth.value; i++) {
+            final Predicate predicate = cb.gt(e.get(Employee_.salary), (float)i);
+            restriction = restriction != null ? cb.and(restriction, predicate) : predicate;
+        }
+        return query.select(e).where(restriction);
+    }
+
+// Deep chain of many-to-one joins
+
+    @Benchmark
+    public CriteriaQuery<Department> streamMapChain(Session session, Depth depth) {
+        SearchStream<Employee, ? extends From<?, Employee>> stream = session.qb.stream(Employee.class);
+        for (int i = 0; i < depth.value; i++)
+            stream = stream.join(Employee_.manager);
+        return stream.join(Employee_.department).toCriteriaQuery();
+    }
+
+    @Benchmark
+    public CriteriaQuery<Department> criteriaMapChain(Session session, Depth depth) {
+        final CriteriaQuery<Department> query = session.cb.createQuery(Department.class);
+        From<?, Employee> from = query.from(Employee.class);
+        for (int i = 0; i < depth.value; i++)
+            from = from.join(Employee_.manager);
+        return query.select(from.join(Employee_.department));
+    }
+
+// Nested substream() subqueries
+
+    @Benchmark
+    public CriteriaQuery<Employee> streamSubstream(Session session) {
+        final QueryStream.Builder qb = session.qb;
+        return qb.stream(Employee.class)
+          .filter(e -> qb.gt(e.get(Employee_.salary),
+            qb.substream(e)
+              .map(Employee_.department)
+              .flatMap(Department_.employees)
+              .mapToDouble(Employee_.salary)
+              .average()
+              .asSubquery()))
+          .filter(e -> qb.substream(e)
+              .flatMap(Employee_.directReports)
+              .filter(report -> qb.equal(report.get(Employee_.seniority), Employee.Seniority.SENIOR))
+              .exists())
+          .toCriteriaQuery();
+    }
+
+    @Benchmark
+    public CriteriaQuery<Employee> criteriaSubstream(Session session) {
+        final CriteriaBuilder cb = session.cb;
+        final CriteriaQuery<Employee> query = cb.createQuery(Employee.class);
+        final Root<Employee> e = query.from(Employee.class);
+
+        // Average salary in department
+        final Subquery<Double> avgSalary = query.subquery(Double.class);
+        final Root<Employee> e2 = avgSalary.correlate(e);
+        final SetJoin<Department, Employee> coworker = e2.join(Employee_.department).join(Department_.employees);
+        avgSalary.select(cb.avg(coworker.get(Employee_.salary)));
+
+        // Has a senior direct report
+        final Subquery<Employee> seniorReport = query.subquery(Employee.class);
+        final Root<Employee> e3 = seniorReport.correlate(e);
+        final SetJoin<Employee, Employee> report = e3.join(Employee_.directReports);
+        seniorReport.select(report).where(cb.equal(report.get(Employee_.seniority), Employee.Seniority.SENIOR));
+
+        return query.select(e).where(cb.and(cb.gt(e.get(Employee_.salary), avgSalary), cb.exists(seniorReport)));
+    }
+
+// QueryInfo merging (parameters bound in subqueries)
+
+    @Benchmark
+    public TypedQuery<Employee> streamMergeQueryInfo(Session session, Depth depth) {
+        final QueryStream.Builder qb = session.qb;
+        final ParameterExpression<String> nameParam = qb.parameter(String.class);
+        final ParameterExpression<Float> salaryParam = qb.parameter(Float.class);
+        RootStream<Employee> stream = qb.stream(Employee.class)
+          .filter(e -> qb.equal(e.get(Employee_.name), nameParam))
+          .withParam(nameParam, "Employee #1");
+        for (int i = 0; i < depth.value; i++) {
+            stream = stream.filter(e -> qb.substream(e)
+              .flatMap(Employee_.directReports)
+              .filter(report -> qb.gt(report.get(Employee_.salary), salaryParam))
+              .withParam(salaryParam, 50000.0f)
+              .exists());
+        }
+        return stream.toQuery();
+    }
+
+    @Benchmark
+    public TypedQuery<Employee> criteriaMergeQueryInfo(Session session, Depth depth) {
+        final CriteriaBuilder cb = session.cb;
+        final ParameterExpression<String> nameParam = cb.parameter(String.class);
+        final ParameterExpression<Float> salaryParam = cb.parameter(Float.class);
+        final CriteriaQuery<Employee> query = cb.createQuery(Employee.class);
+        final Root<Employee> e = query.from(Employee.class);
+        Predicate restriction = cb.equal(e.get(Employee_.name), nameParam);
+        for (int i = 0; i < depth.value; i++) {
+            final Subquery<Employee> subquery = query.subquery(Employee.class);
+            final SetJoin<Employee, Employee> report = subquery.correlate(e).join(Employee_.directReports);
+            subquery.select(report).where(cb.gt(report.get(Employee_.salary), salaryParam));
+            restriction = cb.and(restriction, cb.exists(subquery));
+        }
+        return session.entityManager.createQuery(query.select(e).where(restriction))
+          .setParameter(nameParam, "Employee #1")
+          .setParameter(salaryParam, 50000.0f);
+    }
+
+// Depth
+
+    /**
+     * Number of chained operations in the benchmarks that vary in pipeline length.
+     */
+    @State(Scope.Benchmark)
+    public static class Depth {
+
+        @Param({ "1", "8", "32" })
+        int value;
+    }
+}
@@ -0,0 +1,84 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+
+import java.util.ArrayList;
+import java.util.Date;
+
+import org.dellroad.querystream.test.jpa.Department;
+import org.dellroad.querystream.test.jpa.Employee;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Embedded H2 database shared by all benchmark threads, populated with {@link Department}s and {@link Employee}s.
+ *
+ * <p>
+ * Employees are arranged in a management hierarchy: every employee except the first has a manager,
+ * and each manager has (at most) {@link #REPORTS_PER_MANAGER} direct reports.
+ */
+@State(Scope.Benchmark)
+public class Database {
+
+    public static final String PERSISTENCE_UNIT = "benchmark";
+
+    public static final int NUM_DEPARTMENTS = 20;
+    public static final int NUM_EMPLOYEES = 5000;
+    public static final int REPORTS_PER_MANAGER = 8;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.entityManagerFactory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT);
+        final EntityManager entityManager = this.entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            final ArrayList<Department> departments = new ArrayList<>(NUM_DEPARTMENTS);
+            for (int i = 0; i < NUM_DEPARTMENTS; i++) {
+                final Department department = new Department();
+                department.setName("Department #" + i);
+                entityManager.persist(department);
+                departments.add(department);
+            }
+            final ArrayList<Employee> employees = new ArrayList<>(NUM_EMPLOYEES);
+            for (int i = 0; i < NUM_EMPLOYEES; i++) {
+                final Employee employee = new Employee();
+                employee.setName("Employee #" + i);
+                employee.setSalary(20000.0f + (i * 7919) % 100000);
+                employee.setSeniority(i % 3 == 0 ? Employee.Seniority.SENIOR : Employee.Seniority.JUNIOR);
+                employee.setStartDate(new Date(1500000000000L + i * 86400000L));
+                employee.setDepartment(departments.get(i % NUM_DEPARTMENTS));
+                if (i > 0)
+                    employee.setManager(employees.get((i - 1) / REPORTS_PER_MANAGER));
+                entityManager.persist(employee);
+                employees.add(employee);
+            }
+            entityManager.getTransaction().commit();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (this.entityManagerFactory != null) {
+            this.entityManagerFactory.close();
+            this.entityManagerFactory = null;
+        }
+    }
+
+    public EntityManagerFactory getEntityManagerFactory() {
+        return this.entityManagerFactory;
+    }
+}
@@ -0,0 +1,96 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.benchmarks;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.SetJoin;
+import jakarta.persistence.criteria.Subquery;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.dellroad.querystream.jpa.QueryStream;
+import org.dellroad.querystream.test.jpa.Employee;
+import org.dellroad.querystream.test.jpa.Employee_;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures end-to-end query execution via {@link jakarta.persistence.TypedQuery#getResultList}.
+ *
+ * <p>
+ * The persistence context is cleared before each query so that entity hydration is included in every measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecutionBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+// Filtered and sorted page of entities
+
+    @Benchmark
+    public List<Employee> streamPage(Session session) {
+        session.entityManager.clear();
+        return session.qb.stream(Employee.class)
+          .filter(e -> session.qb.gt(e.get(Employee_.salary), 50000.0f))
+          .orderBy(Employee_.name, true)
+          .limit(PAGE_SIZE)
+          .getResultList();
+    }
+
+    @Benchmark
+    public List<Employee> criteriaPage(Session session) {
+        session.entityManager.clear();
+        final CriteriaBuilder cb = session.cb;
+        final CriteriaQuery<Employee> query = cb.createQuery(Employee.class);
+        final Root<Employee> e = query.from(Employee.class);
+        query.select(e)
+          .where(cb.gt(e.get(Employee_.salary), 50000.0f))
+          .orderBy(cb.asc(e.get(Employee_.name)));
+        return session.entityManager.createQuery(query)
+          .setMaxResults(PAGE_SIZE)
+          .getResultList();
+    }
+
+// Scalar projection with a correlated subquery
+
+    @Benchmark
+    public List<String> streamSubquery(Session session) {
+        session.entityManager.clear();
+        final QueryStream.Builder qb = session.qb;
+        return qb.stream(Employee.class)
+          .filter(e -> qb.substream(e)
+              .flatMap(Employee_.directReports)
+              .filter(report -> qb.equal(report.get(Employee_.seniority), Employee.Seniority.SENIOR))
+              .exists())
+          .map(Employee_.name)
+          .getResultList();
+    }
+
+    @Benchmark
+    public List<String> criteriaSubquery(Session session) {
+        session.entityManager.clear();
+        final CriteriaBuilder cb = session.cb;
+        final CriteriaQuery<String> query = cb.createQuery(String.class);
+        final Root<Employee> e = query.from(Employee.class);
+        final Subquery<Employee> seniorReport = query.subquery(Employee.class);
+        final SetJoin<Employee, Employee> report = seniorReport.correlate(e).join(Employee_.directReports);
+        seniorReport.select(report).where(cb.equal(report.get(Employee_.seniority), Employee.Seniority.SENIOR));
+        query.select(e.get(Employee_.name)).where(cb.exists(seniorReport));
+        return session.entityManager.createQuery(query).getResultList();
+    }
+}
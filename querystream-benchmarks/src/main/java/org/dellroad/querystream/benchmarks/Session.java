@@ -0,0 +1,40 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+
+import org.dellroad.querystream.jpa.QueryStream;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Per-thread {@link EntityManager}, along with the {@link QueryStream.Builder} and
+ * {@link CriteriaBuilder} used to build the benchmarked queries.
+ */
+@State(Scope.Thread)
+public class Session {
+
+    EntityManager entityManager;
+    QueryStream.Builder qb;
+    CriteriaBuilder cb;
+
+    @Setup(Level.Trial)
+    public void setup(Database database) {
+        this.entityManager = database.getEntityManagerFactory().createEntityManager();
+        this.qb = QueryStream.newBuilder(this.entityManager);
+        this.cb = this.entityManager.getCriteriaBuilder();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.entityManager.close();
+    }
+}
@@ -0,0 +1,14 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+/**
+ * JMH benchmarks measuring the overhead of QueryStream relative to equivalent hand-written Criteria API code.
+ *
+ * <p>
+ * Build with {@code mvn package} and run with {@code java -jar querystream-benchmarks/target/benchmarks.jar}.
+ * Each {@code stream*()} benchmark method has a {@code criteria*()} counterpart that builds the same query directly
+ * using the {@link jakarta.persistence.criteria.CriteriaBuilder}.
+ */
+package org.dellroad.querystream.benchmarks;
@@ -7,11 +7,27 @@ package org.dellroad.querystream.jpa;
 
 import jakarta.persistence.criteria.Selection;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Support superclass for {@link Ref} implementations.
+ *
+ * <p>
+ * Values bound while a query is being built are kept in the {@link BuildContext}, so they are scoped to that build;
+ * the most recent such value is also remembered for access after the build. Values bound outside of any build
+ * are stored directly and are visible everywhere.
+ *
+ * <p>
+ * Finding the current {@link BuildContext} requires a thread-local lookup, so that is only done while some build
+ * that has bound this instance is in progress; otherwise, {@link #get} and {@link #isBound} just read fields.
+ */
 class AbstractRef<X, S extends Selection<X>> implements Ref<X, S> {
 
     private final String name;
 
-    private S value;
+    private S value;                                    // value bound outside of any build
+    private volatile S lastValue;                       // value most recently bound within a build
+    private final AtomicInteger activeBuilds = new AtomicInteger();     // number of builds in progress that bound this ref
 
 // Constructors
 
@@ -29,6 +45,12 @@ class AbstractRef<X, S extends Selection<X>> implements Ref<X, S> {
     public S bind(S value) {
         if (value == null)
             throw new IllegalArgumentException("null value");
+        final BuildContext context = QueryStreamImpl.getBuildContextIfAny();
+        if (context != null) {
+            context.bindRef(this, value);
+            this.lastValue = value;
+            return value;
+        }
         if (this.value != null)
             throw new IllegalStateException(this + " is already bound (to " + this.value + ")");
         this.value = value;
@@ -37,19 +59,44 @@ class AbstractRef<X, S extends Selection<X>> implements Ref<X, S> {
 
     @Override
     public S get() {
-        if (this.value == null)
+        final S result = this.getValue();
+        if (result == null)
             throw new IllegalStateException(this + " is not bound");
-        return this.value;
+        return result;
     }
 
     @Override
     public void unbind() {
         this.value = null;
+        this.lastValue = null;
     }
 
     @Override
     public boolean isBound() {
-        return this.value != null;
+        return this.getValue() != null;
+    }
+
+    private S getValue() {
+        if (this.activeBuilds.get() > 0) {
+            final BuildContext context = QueryStreamImpl.getBuildContextIfAny();
+            if (context != null) {
+                final S result = context.getRef(this);
+                return result != null ? result : this.value;
+            }
+        }
+        return this.value != null ? this.value : this.lastValue;
+    }
+
+// Build tracking
+
+    // Invoked by BuildContext when this instance is first bound within a build
+    void buildStarted() {
+        this.activeBuilds.incrementAndGet();
+    }
+
+    // Invoked by BuildContext when a build that bound this instance has completed
+    void buildFinished() {
+        this.activeBuilds.decrementAndGet();
     }
 
 // Object
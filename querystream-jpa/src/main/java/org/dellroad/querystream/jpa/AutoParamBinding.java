@@ -0,0 +1,47 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import jakarta.persistence.Parameter;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.ParameterExpression;
+
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * A {@link ParamBinding} created automatically in place of a literal value when
+ * {@linkplain QueryStream.Builder#withAutoParameters auto-parameterization} is enabled,
+ * or by {@link QueryStream.Builder#inPadded QueryStream.Builder.inPadded()} and {@link SearchStream#seekAfter(SeekCursor)
+ * SearchStream.seekAfter()}.
+ *
+ * <p>
+ * Like the literal values they replace, these values are determined by the stream's configuration functions,
+ * so they are not included in {@link QueryCache} keys.
+ */
+final class AutoParamBinding<T> extends ParamBinding<T> {
+
+    AutoParamBinding(Parameter<T> parameter, T value) {
+        super(parameter, value);
+    }
+
+    // Determine whether the given value can be replaced by a parameter while building the current query
+    static boolean isParameterizable(Object value) {
+        return value != null && !(value instanceof Date) && !(value instanceof Calendar) && QueryStreamImpl.isBuildingQuery();
+    }
+
+    // Create a new parameter for the given value, which is compared against the given expression, and bind it
+    @SuppressWarnings("unchecked")
+    static <T> ParameterExpression<T> bind(CriteriaBuilder builder, Expression<?> expr, T value) {
+        Class<?> type = expr != null ? expr.getJavaType() : null;
+        if (type == null || !type.isInstance(value))
+            type = value instanceof Enum ? ((Enum<?>)value).getDeclaringClass() : value.getClass();
+        final ParameterExpression<T> param = builder.parameter((Class<T>)type);
+        QueryStreamImpl.bindParam(new AutoParamBinding<>(param, value), true);
+        return param;
+    }
+}
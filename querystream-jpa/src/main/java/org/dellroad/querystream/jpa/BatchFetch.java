@@ -0,0 +1,84 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.metamodel.PluralAttribute;
+import jakarta.persistence.metamodel.SingularAttribute;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Support for {@link SearchStream#batchFetch SearchStream.batchFetch()}.
+ *
+ * <p>
+ * After the main query executes, the identifiers of the returned entities are collected and, for each batch fetch,
+ * the entities are queried again in batches using {@code WHERE id IN (...)} with a left fetch join of the collection.
+ * Because the entities are already managed, the JPA provider returns the same instances, with the collection initialized.
+ */
+final class BatchFetch {
+
+    private final PluralAttribute<?, ?, ?> attribute;
+    private final int batchSize;
+
+    BatchFetch(PluralAttribute<?, ?, ?> attribute, int batchSize) {
+        if (attribute == null)
+            throw new IllegalArgumentException("null attribute");
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batchSize <= 0");
+        this.attribute = attribute;
+        this.batchSize = batchSize;
+    }
+
+    // Load the batch fetched collections of the given query results, if any
+    static <X, T extends Collection<? extends X>> T fetchAll(SearchStream<X, ?> stream, T results) {
+        final QueryInfo queryInfo = QueryInfo.of(stream);
+        if (queryInfo.getBatchFetches().isEmpty() || results.isEmpty())
+            return results;
+
+        // Gather the distinct identifiers of the results, in order
+        final EntityManager entityManager = stream.getEntityManager();
+        final Class<X> type = stream.getQueryType().getType();
+        final SingularAttribute<? super X, ?> idAttribute = QueryStreamImpl.getIdAttribute(entityManager, type);
+        final PersistenceUnitUtil util = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        final LinkedHashSet<Object> idSet = new LinkedHashSet<>();
+        for (X result : results) {
+            if (result != null)
+                idSet.add(util.getIdentifier(result));
+        }
+        final List<Object> ids = new ArrayList<>(idSet);
+
+        // Load each collection
+        for (BatchFetch batchFetch : queryInfo.getBatchFetches())
+            batchFetch.load(stream, idAttribute, ids);
+        return results;
+    }
+
+    // Load the batch fetched collections of the given query result, if any
+    static <X> X fetch(SearchStream<X, ?> stream, X result) {
+        if (result != null)
+            BatchFetch.fetchAll(stream, Collections.singletonList(result));
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <X> void load(SearchStream<X, ?> stream, SingularAttribute<? super X, ?> idAttribute, List<Object> ids) {
+        final QueryInfo queryInfo = QueryInfo.of(stream);
+        RootStream<X> fetchStream = new RootStreamImpl<>(stream.getEntityManager(), stream.getQueryType().getType(),
+          QueryInfo.forDerivedStream(stream).withHints(queryInfo.getHints()).withFlushMode(queryInfo.getFlushMode()));
+        fetchStream = fetchStream.fetch((PluralAttribute<? super X, ?, ?>)this.attribute, JoinType.LEFT).distinct();
+        for (int i = 0; i < ids.size(); i += this.batchSize) {
+            final List<Object> batch = ids.subList(i, Math.min(i + this.batchSize, ids.size()));
+            fetchStream.filter(root -> root.get(idAttribute).in(batch)).getResultList();
+        }
+    }
+}
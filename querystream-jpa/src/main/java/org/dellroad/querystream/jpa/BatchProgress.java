@@ -0,0 +1,94 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import java.time.Duration;
+
+/**
+ * Progress report for one batch of a batched bulk operation.
+ *
+ * <p>
+ * Instances are immutable.
+ *
+ * @see UpdateStream#updateInBatches(int, java.util.function.Consumer, java.util.function.Consumer)
+ * @see DeleteStream#deleteInBatches(int, java.util.function.Consumer, java.util.function.Consumer)
+ */
+public final class BatchProgress {
+
+    private final int batchNumber;
+    private final int rowCount;
+    private final long totalRowCount;
+    private final Duration elapsed;
+    private final boolean last;
+
+    BatchProgress(int batchNumber, int rowCount, long totalRowCount, Duration elapsed, boolean last) {
+        if (elapsed == null)
+            throw new IllegalArgumentException("null elapsed");
+        this.batchNumber = batchNumber;
+        this.rowCount = rowCount;
+        this.totalRowCount = totalRowCount;
+        this.elapsed = elapsed;
+        this.last = last;
+    }
+
+    /**
+     * Get the number of this batch.
+     *
+     * @return batch number, starting from one
+     */
+    public int getBatchNumber() {
+        return this.batchNumber;
+    }
+
+    /**
+     * Get the number of entities affected by this batch.
+     *
+     * @return number of entities updated or deleted in this batch
+     */
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    /**
+     * Get the number of entities affected by this batch and all previous batches.
+     *
+     * @return number of entities updated or deleted so far
+     */
+    public long getTotalRowCount() {
+        return this.totalRowCount;
+    }
+
+    /**
+     * Get the time it took to execute this batch, including any transaction handling by the batch runner.
+     *
+     * @return batch latency
+     */
+    public Duration getElapsed() {
+        return this.elapsed;
+    }
+
+    /**
+     * Determine whether this is the last batch.
+     *
+     * @return true if there are no more batches
+     */
+    public boolean isLast() {
+        return this.last;
+    }
+
+// Object
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName()
+          + "[batchNumber=" + this.batchNumber
+          + ",rowCount=" + this.rowCount
+          + ",totalRowCount=" + this.totalRowCount
+          + ",elapsed=" + this.elapsed
+          + ",last=" + this.last
+          + "]";
+    }
+}
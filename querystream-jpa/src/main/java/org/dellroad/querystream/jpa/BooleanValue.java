@@ -11,7 +11,9 @@ import jakarta.persistence.NoResultException;
 import jakarta.persistence.Parameter;
 import jakarta.persistence.TemporalType;
 import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.metamodel.PluralAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
@@ -57,6 +59,18 @@ public interface BooleanValue extends ExprValue<Boolean, Expression<Boolean>> {
     @Override
     BooleanValue filter(Function<? super Expression<Boolean>, ? extends Expression<Boolean>> predicateBuilder);
 
+    @Override
+    BooleanValue cached(Duration ttl);
+
+    @Override
+    BooleanValue readOnly();
+
+    @Override
+    BooleanValue readOnly(boolean detach);
+
+    @Override
+    BooleanValue batchFetch(PluralAttribute<? super Boolean, ?, ?> attribute, int batchSize);
+
     @Override
     BooleanValue withFlushMode(FlushModeType flushMode);
 
@@ -86,4 +100,10 @@ public interface BooleanValue extends ExprValue<Boolean, Expression<Boolean>> {
 
     @Override
     BooleanValue withFetchGraph(String name);
+
+    @Override
+    BooleanValue withTimeout(Duration timeout);
+
+    @Override
+    BooleanValue withCancellation(CancellationToken cancellation);
 }
@@ -12,7 +12,9 @@ import jakarta.persistence.Parameter;
 import jakarta.persistence.TemporalType;
 import jakarta.persistence.criteria.AbstractQuery;
 import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.metamodel.PluralAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
@@ -63,6 +65,26 @@ class BooleanValueImpl extends ExprValueImpl<Boolean, Expression<Boolean>> imple
         return (BooleanValue)super.filter(predicateBuilder);
     }
 
+    @Override
+    public BooleanValue cached(Duration ttl) {
+        return (BooleanValue)super.cached(ttl);
+    }
+
+    @Override
+    public BooleanValue readOnly() {
+        return (BooleanValue)super.readOnly();
+    }
+
+    @Override
+    public BooleanValue readOnly(boolean detach) {
+        return (BooleanValue)super.readOnly(detach);
+    }
+
+    @Override
+    public BooleanValue batchFetch(PluralAttribute<? super Boolean, ?, ?> attribute, int batchSize) {
+        return (BooleanValue)super.batchFetch(attribute, batchSize);
+    }
+
     @Override
     public BooleanValue withFlushMode(FlushModeType flushMode) {
         return (BooleanValue)super.withFlushMode(flushMode);
@@ -112,4 +134,14 @@ class BooleanValueImpl extends ExprValueImpl<Boolean, Expression<Boolean>> imple
     public BooleanValue withFetchGraph(String name) {
         return (BooleanValue)super.withFetchGraph(name);
     }
+
+    @Override
+    public BooleanValue withTimeout(Duration timeout) {
+        return (BooleanValue)super.withTimeout(timeout);
+    }
+
+    @Override
+    public BooleanValue withCancellation(CancellationToken cancellation) {
+        return (BooleanValue)super.withCancellation(cancellation);
+    }
 }
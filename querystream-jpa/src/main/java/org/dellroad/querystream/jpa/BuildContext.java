@@ -0,0 +1,108 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import jakarta.persistence.criteria.AbstractQuery;
+import jakarta.persistence.criteria.CommonAbstractCriteria;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Holds the state associated with building a query: the {@link CurrentQuery} stack, the {@link QueryInfo}
+ * being merged from the query and all of its subqueries, and the values bound to {@link Ref}s during the build.
+ *
+ * <p>
+ * One instance exists per outermost query build and is passed explicitly wherever possible. Code that is invoked
+ * from user-supplied functions (e.g., {@link ExprStreamImpl#asSubquery}) has no other way to find the instance,
+ * so it is also made available via {@link QueryStreamImpl#getBuildContext}, which requires a single thread-local
+ * lookup; the thread-local is set only for the duration of the outermost build and then removed.
+ *
+ * <p>
+ * Instances are not thread safe and are confined to the building thread.
+ */
+final class BuildContext {
+
+    private QueryInfo queryInfo;                    // null if not building a Query
+    private CurrentQuery currentQuery;              // null if no Criteria API query is under construction
+    private final ArrayList<AbstractQuery<?>> queries = new ArrayList<>(2);     // search query and subqueries built so far
+    private IdentityHashMap<AbstractRef<?, ?>, Selection<?>> refs;            // refs bound so far, created on demand
+
+    BuildContext(QueryInfo queryInfo) {
+        this.queryInfo = queryInfo;
+    }
+
+// QueryInfo
+
+    QueryInfo getQueryInfo() {
+        return this.queryInfo;
+    }
+
+    // Merge the QueryInfo information from a subquery into the "global" QueryInfo we will use for the outermost query
+    void mergeQueryInfo(QueryInfo innerQueryInfo, boolean requireQuery) {
+        if (innerQueryInfo == null)
+            throw new IllegalArgumentException("null innerQueryInfo");
+        if (this.queryInfo != null)
+            this.queryInfo = this.queryInfo.withMergedInfo(innerQueryInfo);
+        else if (requireQuery)
+            throw new IllegalStateException("there is no Query currently under construction");
+    }
+
+// CurrentQuery
+
+    CurrentQuery getCurrentQuery() {
+        if (this.currentQuery == null)
+            throw new IllegalStateException("subquery must be created in the context of a containing query");
+        return this.currentQuery;
+    }
+
+    <T> T withCurrentQuery(CriteriaBuilder builder, CommonAbstractCriteria query, Supplier<T> action) {
+        if (action == null)
+            throw new IllegalArgumentException("null action");
+        final CurrentQuery prev = this.currentQuery;
+        this.currentQuery = new CurrentQuery(builder, query);
+        if (query instanceof AbstractQuery)
+            this.queries.add((AbstractQuery<?>)query);
+        try {
+            return action.get();
+        } finally {
+            this.currentQuery = prev;
+        }
+    }
+
+    // Get the search query and all subqueries built so far
+    List<AbstractQuery<?>> getQueries() {
+        return this.queries;
+    }
+
+// Refs
+
+    // Bind the given reference for the duration of this build
+    <S extends Selection<?>> void bindRef(AbstractRef<?, S> ref, S value) {
+        if (this.refs == null)
+            this.refs = new IdentityHashMap<>();
+        final Selection<?> previous = this.refs.putIfAbsent(ref, value);
+        if (previous != null)
+            throw new IllegalStateException(ref + " is already bound (to " + previous + ")");
+        ref.buildStarted();
+    }
+
+    // Get the value bound to the given reference during this build, if any
+    @SuppressWarnings("unchecked")
+    <S extends Selection<?>> S getRef(AbstractRef<?, S> ref) {
+        return this.refs != null ? (S)this.refs.get(ref) : null;
+    }
+
+    // Release the references bound during this build, which has completed
+    void finish() {
+        if (this.refs != null)
+            this.refs.keySet().forEach(AbstractRef::buildFinished);
+    }
+}
@@ -0,0 +1,168 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.AbstractQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.SingularAttribute;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Support for {@link UpdateStream#updateInBatches UpdateStream.updateInBatches()}
+ * and {@link DeleteStream#deleteInBatches DeleteStream.deleteInBatches()}.
+ *
+ * <p>
+ * Batch boundaries are found by a query that selects the identifiers of the target rows, seeking by key past the previous
+ * boundary, so the cost is proportional to the number of target rows rather than the size of the table. Because a bulk
+ * stream's configuration can't be applied to a search query, each bulk stream also keeps a search-side configurer that
+ * mirrors its root, filters, peeks, and bindings; see the static methods below.
+ */
+final class BulkBatches {
+
+    private BulkBatches() {
+    }
+
+    static <X> int execute(QueryStream<X, Root<X>, ?, ?, ?> stream,
+      QueryConfigurer<AbstractQuery<?>, X, ? extends Root<X>> searchConfigurer, String operation, int batchSize,
+      Consumer<? super Runnable> batchRunner, Consumer<? super BatchProgress> progressListener) {
+
+        // Sanity check
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batchSize <= 0");
+        QueryStreamImpl.checkOffsetLimit(stream, operation);
+        if (batchRunner == null)
+            batchRunner = Runnable::run;
+
+        // Get identifier attribute
+        final Class<X> type = stream.getQueryType().getType();
+        final SingularAttribute<? super X, ?> idAttribute = QueryStreamImpl.getIdAttribute(stream.getEntityManager(), type);
+        final Class<?> idType = idAttribute.getJavaType();
+        if (!idType.isPrimitive() && !Comparable.class.isAssignableFrom(idType))
+            throw new IllegalArgumentException("entity identifier " + idAttribute.getName() + " is not comparable");
+        final CriteriaBuilder builder = stream.getEntityManager().getCriteriaBuilder();
+
+        // Execute batches, each covering the next batchSize identifiers in order
+        long totalRowCount = 0;
+        Comparable<Object> lowerBound = null;                   // exclusive
+        for (int batchNumber = 1; true; batchNumber++) {
+            final Comparable<Object> upperBound = BulkBatches.nextUpperBound(stream, searchConfigurer,
+              idAttribute, lowerBound, batchSize);
+            final Comparable<Object> min = lowerBound;
+            final QueryStream<X, Root<X>, ?, ?, ?> batch = min == null && upperBound == null ? stream : stream.filter(root -> {
+                final Path<Comparable<Object>> id = BulkBatches.idPath(root, idAttribute);
+                if (min == null)
+                    return builder.lessThanOrEqualTo(id, upperBound);
+                if (upperBound == null)
+                    return builder.greaterThan(id, min);
+                return builder.and(builder.greaterThan(id, min), builder.lessThanOrEqualTo(id, upperBound));
+            });
+            final int[] rowCount = new int[1];
+            final long startTime = System.nanoTime();
+            batchRunner.accept(() -> rowCount[0] = QueryStreamImpl.execute(batch, operation, Query::executeUpdate, count -> count));
+            final Duration elapsed = Duration.ofNanos(System.nanoTime() - startTime);
+            totalRowCount += rowCount[0];
+            if (progressListener != null)
+                progressListener.accept(new BatchProgress(batchNumber, rowCount[0], totalRowCount, elapsed, upperBound == null));
+            if (upperBound == null)
+                return (int)Math.min(totalRowCount, Integer.MAX_VALUE);
+            lowerBound = upperBound;
+        }
+    }
+
+    // Find the batchSize'th identifier of the target rows after lowerBound, or null if there are fewer than that many.
+    // This seeks by key (WHERE id > lowerBound ORDER BY id) rather than using an offset, so each query only reads
+    // the next batchSize identifiers, and it applies the stream's own filters, so only target rows are counted.
+    @SuppressWarnings("unchecked")
+    private static <X> Comparable<Object> nextUpperBound(QueryStream<X, Root<X>, ?, ?, ?> stream,
+      QueryConfigurer<AbstractQuery<?>, X, ? extends Root<X>> searchConfigurer, SingularAttribute<? super X, ?> idAttribute,
+      Comparable<Object> lowerBound, int batchSize) {
+        final EntityManager entityManager = stream.getEntityManager();
+        final CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        final List<Object> ids = QueryStreamImpl.withBuildContext(new BuildContext(QueryInfo.of(stream)), context -> {
+            final CriteriaQuery<Object> idQuery = builder.createQuery();
+            final Root<X> root = context.withCurrentQuery(builder, idQuery, () -> searchConfigurer.configure(builder, idQuery));
+            final Path<Comparable<Object>> id = BulkBatches.idPath(root, idAttribute);
+            if (lowerBound != null)
+                BulkBatches.and(builder, idQuery, builder.greaterThan(id, lowerBound));
+            idQuery.select(id).orderBy(builder.asc(id));
+            final TypedQuery<Object> query = entityManager.createQuery(idQuery);
+            context.getQueryInfo().applyTo(query);
+            query.setMaxResults(batchSize);
+            return query.getResultList();
+        });
+        return ids.size() == batchSize ? (Comparable<Object>)ids.get(batchSize - 1) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <X> Path<Comparable<Object>> idPath(Root<X> root, SingularAttribute<? super X, ?> idAttribute) {
+        return (Path<Comparable<Object>>)(Path<?>)root.get(idAttribute);
+    }
+
+// Search-side configuration
+
+    // The following mirror the corresponding bulk stream methods on the search query that selects the target rows;
+    // UpdateStream.set() has no search-side counterpart, because it doesn't affect which rows are targeted.
+
+    static <X> QueryConfigurer<AbstractQuery<?>, X, Root<X>> searchRoot(Class<X> type) {
+        return (builder, query) -> query.from(type);
+    }
+
+    static <X> QueryConfigurer<AbstractQuery<?>, X, Root<X>> filter(
+      QueryConfigurer<AbstractQuery<?>, X, ? extends Root<X>> configurer, SingularAttribute<? super X, Boolean> attribute) {
+        return (builder, query) -> {
+            final Root<X> root = configurer.configure(builder, query);
+            BulkBatches.and(builder, query, builder.isTrue(root.get(attribute)));
+            return root;
+        };
+    }
+
+    static <X> QueryConfigurer<AbstractQuery<?>, X, Root<X>> filter(
+      QueryConfigurer<AbstractQuery<?>, X, ? extends Root<X>> configurer,
+      Function<? super Root<X>, ? extends Expression<Boolean>> predicateBuilder) {
+        return (builder, query) -> {
+            final Root<X> root = configurer.configure(builder, query);
+            BulkBatches.and(builder, query, predicateBuilder.apply(root));
+            return root;
+        };
+    }
+
+    static <X> QueryConfigurer<AbstractQuery<?>, X, Root<X>> peek(
+      QueryConfigurer<AbstractQuery<?>, X, ? extends Root<X>> configurer, Consumer<? super Root<X>> peeker) {
+        return (builder, query) -> {
+            final Root<X> root = configurer.configure(builder, query);
+            peeker.accept(root);
+            return root;
+        };
+    }
+
+    static <X, X2, S2 extends Selection<X2>> QueryConfigurer<AbstractQuery<?>, X, Root<X>> bind(
+      QueryConfigurer<AbstractQuery<?>, X, ? extends Root<X>> configurer,
+      Ref<X2, ? super S2> ref, Function<? super Root<X>, ? extends S2> refFunction) {
+        return (builder, query) -> {
+            final Root<X> root = configurer.configure(builder, query);
+            ref.bind(refFunction.apply(root));
+            return root;
+        };
+    }
+
+    private static void and(CriteriaBuilder builder, AbstractQuery<?> query, Expression<Boolean> expression) {
+        final Predicate oldRestriction = query.getRestriction();
+        query.where(oldRestriction != null ? builder.and(oldRestriction, expression) : expression);
+    }
+}
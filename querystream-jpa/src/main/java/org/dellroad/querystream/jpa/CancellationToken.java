@@ -0,0 +1,102 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * A token for cooperatively cancelling the queries of streams configured via
+ * {@link QueryStream#withCancellation QueryStream.withCancellation()}.
+ *
+ * <p>
+ * Once {@link #cancel} is invoked, the associated streams observe the cancellation as follows:
+ * <ul>
+ *  <li>Any query not yet executed fails with a {@link CancellationException} instead of being executed.</li>
+ *  <li>Result streams, e.g., from {@link SearchStream#getResultStream getResultStream()}, close the underlying
+ *      JPA result stream, which releases the JDBC statement, and throw {@link CancellationException}
+ *      when the next result is requested.</li>
+ *  <li>Futures returned by asynchronous operations, e.g., {@link SearchStream#getResultListAsync getResultListAsync()},
+ *      are cancelled immediately; a bulk update or delete that is still executing is rolled back instead of committed.</li>
+ * </ul>
+ *
+ * <p>
+ * The JPA API provides no way to interrupt a JDBC statement that is already executing, so cancellation cannot
+ * shorten a single long-running statement; use {@link QueryStream#withTimeout QueryStream.withTimeout()} to bound that.
+ *
+ * <p>
+ * Instances are thread safe. A token may be shared by any number of streams and, once cancelled, stays cancelled.
+ */
+public final class CancellationToken {
+
+    private final Set<Runnable> callbacks = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    /**
+     * Cancel this token.
+     *
+     * <p>
+     * Invoking this method more than once has no further effect.
+     */
+    public void cancel() {
+        this.cancelled = true;
+        for (Runnable callback : this.callbacks) {
+            if (this.callbacks.remove(callback))
+                callback.run();
+        }
+    }
+
+    /**
+     * Determine whether this token has been cancelled.
+     *
+     * @return true if {@link #cancel} has been invoked, otherwise false
+     */
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    // Throw CancellationException if this token has been cancelled
+    void checkCancelled() {
+        if (this.isCancelled())
+            throw new CancellationException("query cancelled");
+    }
+
+    // Run the given action (once) when this token is cancelled, or immediately if already cancelled.
+    // The returned Runnable unregisters the action; invoke it once the action is no longer needed, so that
+    // long-lived tokens don't accumulate actions (and whatever they reference).
+    Runnable onCancel(Runnable action) {
+        final Runnable callback = action::run;                      // a distinct instance for each registration
+        this.callbacks.add(callback);
+        if (this.cancelled && this.callbacks.remove(callback))
+            callback.run();
+        return () -> this.callbacks.remove(callback);
+    }
+
+    // Get the number of registered actions (for testing)
+    int getNumCallbacks() {
+        return this.callbacks.size();
+    }
+
+    // Wrap the given result stream so that it is closed, and fails, when the next result is requested after cancellation
+    <X> Stream<X> observe(Stream<X> results) {
+        return results.map(result -> {
+            if (this.isCancelled()) {
+                results.close();
+                throw new CancellationException("query cancelled");
+            }
+            return result;
+        });
+    }
+
+// Object
+
+    @Override
+    public String toString() {
+        return "CancellationToken[cancelled=" + this.isCancelled() + "]";
+    }
+}
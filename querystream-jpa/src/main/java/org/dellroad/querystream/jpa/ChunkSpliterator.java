@@ -0,0 +1,91 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import jakarta.persistence.EntityManager;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * {@link Spliterator} that retrieves the items in a sorted {@link SearchStream} one chunk at a time
+ * using keyset pagination.
+ *
+ * @see SearchStream#streamInChunks(int, boolean)
+ */
+class ChunkSpliterator<X> extends Spliterators.AbstractSpliterator<X> {
+
+    private final SearchStream<X, ?> stream;
+    private final int chunkSize;
+    private boolean detach;
+
+    private List<X> chunk = Collections.emptyList();
+    private Iterator<X> iterator = this.chunk.iterator();
+    private SeekCursor cursor;
+    private boolean started;
+    private boolean entityChecked;
+
+    ChunkSpliterator(SearchStream<X, ?> stream, int chunkSize, boolean detach) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED);
+        if (stream == null)
+            throw new IllegalArgumentException("null stream");
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("chunkSize <= 0");
+        this.stream = stream;
+        this.chunkSize = chunkSize;
+        this.detach = detach;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super X> action) {
+        Objects.requireNonNull(action, "null action");          // per the Spliterator contract
+        while (!this.iterator.hasNext()) {
+            if (this.started && this.cursor == null) {
+                this.detachChunk();
+                return false;
+            }
+            this.nextChunk();
+        }
+        action.accept(this.iterator.next());
+        return true;
+    }
+
+    private void nextChunk() {
+        this.detachChunk();
+        final SeekPage<X> page = this.stream.pageAfter(this.cursor, this.chunkSize);
+        this.chunk = page.getItems();
+        this.iterator = this.chunk.iterator();
+        this.cursor = page.getNextCursor();
+        this.started = true;
+    }
+
+    // Detach the entities in the previous chunk (if any) so they don't accumulate in the persistence context
+    private void detachChunk() {
+        if (!this.detach || this.chunk.isEmpty())
+            return;
+        final EntityManager entityManager = this.stream.getEntityManager();
+        if (!this.entityChecked) {
+            try {
+                entityManager.getMetamodel().entity(this.stream.getQueryType().getType());
+            } catch (IllegalArgumentException e) {
+                this.detach = false;                            // not an entity type, so there's nothing to detach
+                return;
+            } finally {
+                this.entityChecked = true;
+            }
+        }
+        for (X item : this.chunk) {
+            if (item != null && entityManager.contains(item))
+                entityManager.detach(item);
+        }
+        this.chunk = Collections.emptyList();
+    }
+}
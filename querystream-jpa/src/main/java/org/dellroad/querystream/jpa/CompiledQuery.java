@@ -0,0 +1,307 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Parameter;
+import jakarta.persistence.Query;
+import jakarta.persistence.TemporalType;
+import jakarta.persistence.criteria.CommonAbstractCriteria;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * A reusable handle to a {@link QueryStream} whose Criteria API query is built only once.
+ *
+ * <p>
+ * Normally, every query execution method (e.g., {@link QueryStream#toQuery}) replays the stream's entire chain
+ * of configuration steps to build a new Criteria API query from scratch, which the JPA provider must then translate
+ * into SQL again. Instances of this class instead build the Criteria API query (and the associated {@link Query}
+ * configuration such as hints and {@linkplain QueryStream.Builder#bindParam parameter bindings}) the first time
+ * they are used and then reuse it for all subsequent executions. Each execution then only involves creating
+ * the {@link Query} from the cached Criteria API query and applying parameter bindings and row offset and limit,
+ * so JPA providers that cache query translations by Criteria API query object can avoid re-translating it.
+ *
+ * <p>
+ * Because the Criteria API query is built only once, any {@link Ref}s bound by the stream are bound only once,
+ * and any parameter values bound via {@link QueryStream.Builder#bindParam bindParam()} reflect the values at that
+ * time. To vary the query from one execution to the next, use parameters and rebind them via {@link #withParam withParam()}.
+ *
+ * <p>
+ * A Criteria API query is only valid for use with the {@link EntityManagerFactory} that created its
+ * {@link jakarta.persistence.criteria.CriteriaBuilder}, so the cached query is associated with the
+ * {@link EntityManagerFactory} of the original stream's {@link EntityManager}; {@link Query}s may be created
+ * from any {@link EntityManager} belonging to that same factory. The JPA provider must support the creation of
+ * multiple {@link Query}s from the same Criteria API query, possibly concurrently.
+ *
+ * <p>
+ * Instances are immutable; the {@code with*()} methods return new instances that share the same cached query.
+ *
+ * <p>
+ * Instances are created via {@link QueryStream#compile}.
+ *
+ * @param <X> stream item type
+ * @param <C2> final criteria API query type
+ * @param <Q> JPA query type
+ */
+public final class CompiledQuery<X, C2 extends CommonAbstractCriteria, Q extends Query> {
+
+    private final Cache<X, C2, Q> cache;
+    private final QueryInfo queryInfo;
+
+    CompiledQuery(EntityManager entityManager, BiFunction<EntityManager, C2, Q> queryCreator, Supplier<Compiled<C2>> compiler) {
+        this(new Cache<>(entityManager, queryCreator, compiler), new QueryInfo());
+    }
+
+    private CompiledQuery(Cache<X, C2, Q> cache, QueryInfo queryInfo) {
+        this.cache = cache;
+        this.queryInfo = queryInfo;
+    }
+
+// Queryification
+
+    /**
+     * Get the {@link EntityManagerFactory} with which the cached Criteria API query is associated.
+     *
+     * @return associated {@link EntityManagerFactory}
+     */
+    public EntityManagerFactory getEntityManagerFactory() {
+        return this.cache.entityManagerFactory;
+    }
+
+    /**
+     * Create a fully configured JPA query using the {@link EntityManager} associated with the original stream.
+     *
+     * @return new JPA query
+     */
+    public Q toQuery() {
+        return this.toQuery(this.cache.entityManager);
+    }
+
+    /**
+     * Create a fully configured JPA query using the given {@link EntityManager}.
+     *
+     * <p>
+     * The Criteria API query is built on the first invocation and reused thereafter.
+     * The given {@link EntityManager} must belong to the same persistence unit as {@link #getEntityManagerFactory}.
+     *
+     * @param entityManager entity manager
+     * @return new JPA query
+     * @throws IllegalArgumentException if {@code entityManager} is null
+     */
+    public Q toQuery(EntityManager entityManager) {
+        if (entityManager == null)
+            throw new IllegalArgumentException("null entityManager");
+        final Compiled<C2> compiled = this.cache.get();
+        final Q query = this.cache.queryCreator.apply(entityManager, compiled.criteria);
+        compiled.queryInfo.applyTo(query);
+        this.queryInfo.applyTo(query);
+        return query;
+    }
+
+    // Build the Criteria API query now, if not already built
+    void prepare() {
+        this.cache.get();
+    }
+
+// Limits
+
+    /**
+     * Get the row offset that overrides the row offset of the original stream, if any.
+     *
+     * @return row offset, or -1 if not overridden
+     */
+    public int getFirstResult() {
+        return this.queryInfo.getFirstResult();
+    }
+
+    /**
+     * Override the row offset of the original stream.
+     *
+     * @param firstResult row offset
+     * @return new instance with the specified row offset
+     * @throws IllegalArgumentException if {@code firstResult} is negative
+     * @see Query#setFirstResult
+     */
+    public CompiledQuery<X, C2, Q> withFirstResult(int firstResult) {
+        if (firstResult < 0)
+            throw new IllegalArgumentException("firstResult < 0");
+        return new CompiledQuery<>(this.cache, this.queryInfo.withFirstResult(firstResult));
+    }
+
+    /**
+     * Get the row limit that overrides the row limit of the original stream, if any.
+     *
+     * @return row limit, or -1 if not overridden
+     */
+    public int getMaxResults() {
+        return this.queryInfo.getMaxResults();
+    }
+
+    /**
+     * Override the row limit of the original stream.
+     *
+     * @param maxResults row limit
+     * @return new instance with the specified row limit
+     * @throws IllegalArgumentException if {@code maxResults} is negative
+     * @see Query#setMaxResults
+     */
+    public CompiledQuery<X, C2, Q> withMaxResults(int maxResults) {
+        if (maxResults < 0)
+            throw new IllegalArgumentException("maxResults < 0");
+        return new CompiledQuery<>(this.cache, this.queryInfo.withMaxResults(maxResults));
+    }
+
+// Params
+
+    /**
+     * Bind the value of a query parameter.
+     *
+     * <p>
+     * Replaces any previous binding of the same parameter, including any binding made by the original stream.
+     *
+     * @param parameter the parameter to set
+     * @param value parameter value
+     * @param <T> parameter value type
+     * @return new instance with the specified parameter value set
+     * @throws IllegalArgumentException if {@code parameter} is null
+     * @see Query#setParameter(Parameter, Object)
+     */
+    public <T> CompiledQuery<X, C2, Q> withParam(Parameter<T> parameter, T value) {
+        return new CompiledQuery<>(this.cache, this.queryInfo.withParam(parameter, value));
+    }
+
+    /**
+     * Bind the value of a query parameter of type {@link Date}.
+     *
+     * <p>
+     * Replaces any previous binding of the same parameter, including any binding made by the original stream.
+     *
+     * @param parameter the parameter to set
+     * @param value parameter value
+     * @param temporalType temporal type for {@code value}
+     * @return new instance with the specified parameter value set
+     * @throws IllegalArgumentException if {@code parameter} or {@code temporalType} is null
+     * @see Query#setParameter(Parameter, Date, TemporalType)
+     */
+    public CompiledQuery<X, C2, Q> withParam(Parameter<Date> parameter, Date value, TemporalType temporalType) {
+        return new CompiledQuery<>(this.cache, this.queryInfo.withParam(parameter, value, temporalType));
+    }
+
+    /**
+     * Bind the value of a query parameter of type {@link Calendar}.
+     *
+     * <p>
+     * Replaces any previous binding of the same parameter, including any binding made by the original stream.
+     *
+     * @param parameter the parameter to set
+     * @param value parameter value
+     * @param temporalType temporal type for {@code value}
+     * @return new instance with the specified parameter value set
+     * @throws IllegalArgumentException if {@code parameter} or {@code temporalType} is null
+     * @see Query#setParameter(Parameter, Calendar, TemporalType)
+     */
+    public CompiledQuery<X, C2, Q> withParam(Parameter<Calendar> parameter, Calendar value, TemporalType temporalType) {
+        return new CompiledQuery<>(this.cache, this.queryInfo.withParam(parameter, value, temporalType));
+    }
+
+    /**
+     * Associate parameter bindings with this instance.
+     *
+     * <p>
+     * Replaces any previous bindings of the same parameters, including any bindings made by the original stream.
+     *
+     * @param params bindings to add
+     * @return new instance with the specified parameter bindings added
+     * @throws IllegalArgumentException if {@code params} or any contained element is null
+     * @throws IllegalArgumentException if {@code params} contains duplicate bindings for the same parameter
+     * @see Query#setParameter(Parameter, Object)
+     */
+    public CompiledQuery<X, C2, Q> withParams(Iterable<? extends ParamBinding<?>> params) {
+        return new CompiledQuery<>(this.cache, this.queryInfo.withParams(params));
+    }
+
+// Statistics
+
+    /**
+     * Get the number of times a {@link Query} was created from the cached Criteria API query.
+     *
+     * <p>
+     * The count is shared by all instances derived from the same {@link QueryStream#compile} invocation.
+     *
+     * @return number of cache hits
+     */
+    public long getCacheHits() {
+        return this.cache.hits.get();
+    }
+
+    /**
+     * Get the number of times the Criteria API query had to be built.
+     *
+     * <p>
+     * The count is shared by all instances derived from the same {@link QueryStream#compile} invocation.
+     *
+     * @return number of cache misses
+     */
+    public long getCacheMisses() {
+        return this.cache.misses.get();
+    }
+
+// Cache
+
+    private static final class Cache<X, C2 extends CommonAbstractCriteria, Q extends Query> {
+
+        final EntityManager entityManager;
+        final EntityManagerFactory entityManagerFactory;
+        final BiFunction<EntityManager, C2, Q> queryCreator;
+        final Supplier<Compiled<C2>> compiler;
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+
+        private volatile Compiled<C2> compiled;
+
+        Cache(EntityManager entityManager, BiFunction<EntityManager, C2, Q> queryCreator, Supplier<Compiled<C2>> compiler) {
+            this.entityManager = entityManager;
+            this.entityManagerFactory = entityManager.getEntityManagerFactory();
+            this.queryCreator = queryCreator;
+            this.compiler = compiler;
+        }
+
+        Compiled<C2> get() {
+            Compiled<C2> result = this.compiled;
+            if (result != null) {
+                this.hits.incrementAndGet();
+                return result;
+            }
+            synchronized (this) {
+                if ((result = this.compiled) != null) {
+                    this.hits.incrementAndGet();
+                    return result;
+                }
+                this.misses.incrementAndGet();
+                result = this.compiler.get();
+                this.compiled = result;
+                return result;
+            }
+        }
+    }
+
+    static final class Compiled<C2 extends CommonAbstractCriteria> {
+
+        final C2 criteria;
+        final QueryInfo queryInfo;
+
+        Compiled(C2 criteria, QueryInfo queryInfo) {
+            this.criteria = criteria;
+            this.queryInfo = queryInfo;
+        }
+    }
+}
@@ -19,7 +19,7 @@ import jakarta.persistence.criteria.Subquery;
  * appropriate for the query being constructed, while all other stack entries contain {@link Subquery} objects.
  *
  * <p>
- * For details, see {@link QueryStreamImpl#withCurrentQuery} and {@link ExprStreamImpl#asSubquery}.
+ * For details, see {@link BuildContext#withCurrentQuery} and {@link ExprStreamImpl#asSubquery}.
  */
 class CurrentQuery {
 
@@ -16,6 +16,7 @@ import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Selection;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
@@ -39,6 +40,54 @@ public interface DeleteStream<X> extends QueryStream<X, Root<X>, CriteriaDelete<
      */
     int delete();
 
+    /**
+     * Build and execute a JPA query based on this instance in batches, each of which deletes at most {@code batchSize}
+     * entities.
+     *
+     * <p>
+     * Equivalent to {@link #deleteInBatches(int, Consumer, Consumer) deleteInBatches}{@code (batchSize, null, null)}.
+     *
+     * @param batchSize maximum number of entities deleted per batch
+     * @return the number of entities deleted
+     * @throws IllegalArgumentException if {@code batchSize} is not positive
+     * @throws IllegalArgumentException if the entity type does not have a single, comparable identifier
+     * @throws UnsupportedOperationException if this stream has had {@link #skip skip()} or {@link #limit limit()} applied
+     * @see #deleteInBatches(int, Consumer, Consumer)
+     */
+    default int deleteInBatches(int batchSize) {
+        return this.deleteInBatches(batchSize, null, null);
+    }
+
+    /**
+     * Build and execute a JPA query based on this instance in batches, each of which deletes at most {@code batchSize}
+     * entities.
+     *
+     * <p>
+     * A single {@link #delete()} of a large number of entities can hold row locks for a long time and generate
+     * a large amount of undo/redo information. This method instead splits the target entities into consecutive ranges
+     * of the entity identifier, each containing at most {@code batchSize} entities, and executes a separate bulk
+     * delete for each range. The range bounds are found by querying, in order, the identifiers of the entities matching
+     * this stream's filters, so each batch targets exactly {@code batchSize} entities, except possibly the last.
+     * A batch may still delete fewer entities if matching entities are concurrently changed or removed.
+     *
+     * <p>
+     * Each batch is executed by passing a {@link Runnable} to {@code batchRunner}, which would typically run it
+     * in its own transaction, so that locks are released and changes become visible after each batch; for example,
+     * with Spring's {@code TransactionTemplate}, use {@code batch -> tx.executeWithoutResult(status -> batch.run())}.
+     * If {@code batchRunner} is null, each batch is simply executed within the current transaction.
+     * After each batch, {@code progressListener} (if any) is notified with the number of entities deleted
+     * and the time taken.
+     *
+     * @param batchSize maximum number of entities deleted per batch
+     * @param batchRunner executes each batch, or null to execute each batch directly
+     * @param progressListener receives progress after each batch, or null for none
+     * @return the number of entities deleted
+     * @throws IllegalArgumentException if {@code batchSize} is not positive
+     * @throws IllegalArgumentException if the entity type does not have a single, comparable identifier
+     * @throws UnsupportedOperationException if this stream has had {@link #skip skip()} or {@link #limit limit()} applied
+     */
+    int deleteInBatches(int batchSize, Consumer<? super Runnable> batchRunner, Consumer<? super BatchProgress> progressListener);
+
 // Narrowing overrides
 
     @Override
@@ -95,4 +144,10 @@ public interface DeleteStream<X> extends QueryStream<X, Root<X>, CriteriaDelete<
 
     @Override
     DeleteStream<X> withFetchGraph(String name);
+
+    @Override
+    DeleteStream<X> withTimeout(Duration timeout);
+
+    @Override
+    DeleteStream<X> withCancellation(CancellationToken cancellation);
 }
@@ -11,12 +11,14 @@ import jakarta.persistence.LockModeType;
 import jakarta.persistence.Parameter;
 import jakarta.persistence.Query;
 import jakarta.persistence.TemporalType;
+import jakarta.persistence.criteria.AbstractQuery;
 import jakarta.persistence.criteria.CriteriaDelete;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Selection;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
@@ -32,25 +34,38 @@ class DeleteStreamImpl<X>
   extends QueryStreamImpl<X, Root<X>, CriteriaDelete<X>, CriteriaDelete<X>, Query, DeleteType<X>>
   implements DeleteStream<X> {
 
-    DeleteStreamImpl(EntityManager entityManager, Class<X> type) {
-        this(entityManager, new DeleteType<X>(type));
+    final QueryConfigurer<AbstractQuery<?>, X, ? extends Root<X>> searchConfigurer;    // selects target rows, for batching
+
+    DeleteStreamImpl(EntityManager entityManager, Class<X> type, QueryInfo queryInfo) {
+        this(entityManager, new DeleteType<X>(type), queryInfo);
     }
 
     // Separate constructor to avoid bogus error ("cannot reference queryType before supertype constructor has been called")
-    private DeleteStreamImpl(EntityManager entityManager, DeleteType<X> queryType) {
-        this(entityManager, queryType, (builder, query) -> query.from(queryType.getType()), new QueryInfo());
+    private DeleteStreamImpl(EntityManager entityManager, DeleteType<X> queryType, QueryInfo queryInfo) {
+        this(entityManager, queryType, (builder, query) -> query.from(queryType.getType()),
+          BulkBatches.searchRoot(queryType.getType()), queryInfo);
     }
 
     private DeleteStreamImpl(EntityManager entityManager, DeleteType<X> queryType,
-      QueryConfigurer<CriteriaDelete<X>, X, ? extends Root<X>> configurer, QueryInfo queryInfo) {
+      QueryConfigurer<CriteriaDelete<X>, X, ? extends Root<X>> configurer,
+      QueryConfigurer<AbstractQuery<?>, X, ? extends Root<X>> searchConfigurer, QueryInfo queryInfo) {
         super(entityManager, queryType, configurer, queryInfo);
+        if (searchConfigurer == null)
+            throw new IllegalArgumentException("null searchConfigurer");
+        this.searchConfigurer = searchConfigurer;
     }
 
 // DeleteStream
 
     @Override
     public int delete() {
-        return this.toQuery().executeUpdate();
+        return this.execute("delete()", Query::executeUpdate, rowCount -> rowCount);
+    }
+
+    @Override
+    public int deleteInBatches(int batchSize,
+      Consumer<? super Runnable> batchRunner, Consumer<? super BatchProgress> progressListener) {
+        return BulkBatches.execute(this, this.searchConfigurer, "deleteInBatches()", batchSize, batchRunner, progressListener);
     }
 
 // Subclass required methods
@@ -58,7 +73,15 @@ class DeleteStreamImpl<X>
     @Override
     DeleteStream<X> create(EntityManager entityManager, DeleteType<X> queryType,
       QueryConfigurer<CriteriaDelete<X>, X, ? extends Root<X>> configurer, QueryInfo queryInfo) {
-        return new DeleteStreamImpl<>(entityManager, queryType, configurer, queryInfo);
+        return new DeleteStreamImpl<>(entityManager, queryType, configurer, this.searchConfigurer, queryInfo);
+    }
+
+    // Extend the search-side configurer of the given stream, which was derived from this one by filtering, etc.
+    @SuppressWarnings("unchecked")
+    private DeleteStream<X> withSearchConfig(QueryStream<?, ?, ?, ?, ?> stream,
+      QueryConfigurer<AbstractQuery<?>, X, ? extends Root<X>> searchConfigurer) {
+        final DeleteStreamImpl<X> impl = (DeleteStreamImpl<X>)stream;
+        return new DeleteStreamImpl<>(this.entityManager, this.queryType, impl.configurer, searchConfigurer, impl.queryInfo);
     }
 
     @Override
@@ -81,22 +104,23 @@ class DeleteStreamImpl<X>
     @Override
     public <X2, S2 extends Selection<X2>> DeleteStream<X> bind(
       Ref<X2, ? super S2> ref, Function<? super Root<X>, ? extends S2> refFunction) {
-        return (DeleteStream<X>)super.bind(ref, refFunction);
+        return this.withSearchConfig(super.bind(ref, refFunction), BulkBatches.bind(this.searchConfigurer, ref, refFunction));
     }
 
     @Override
     public DeleteStream<X> peek(Consumer<? super Root<X>> peeker) {
-        return (DeleteStream<X>)super.peek(peeker);
+        return this.withSearchConfig(super.peek(peeker), BulkBatches.peek(this.searchConfigurer, peeker));
     }
 
     @Override
     public DeleteStream<X> filter(SingularAttribute<? super X, Boolean> attribute) {
-        return (DeleteStream<X>)super.filter(attribute);
+        return this.withSearchConfig(super.filter(attribute), BulkBatches.filter(this.searchConfigurer, attribute));
     }
 
     @Override
     public DeleteStream<X> filter(Function<? super Root<X>, ? extends Expression<Boolean>> predicateBuilder) {
-        return (DeleteStream<X>)super.filter(predicateBuilder);
+        return this.withSearchConfig(super.filter(predicateBuilder),
+          BulkBatches.filter(this.searchConfigurer, predicateBuilder));
     }
 
     @Override
@@ -158,4 +182,14 @@ class DeleteStreamImpl<X>
     public DeleteStream<X> withFetchGraph(String name) {
         return (DeleteStream<X>)super.withFetchGraph(name);
     }
+
+    @Override
+    public DeleteStream<X> withTimeout(Duration timeout) {
+        return (DeleteStream<X>)super.withTimeout(timeout);
+    }
+
+    @Override
+    public DeleteStream<X> withCancellation(CancellationToken cancellation) {
+        return (DeleteStream<X>)super.withCancellation(cancellation);
+    }
 }
@@ -0,0 +1,69 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import jakarta.persistence.criteria.CommonAbstractCriteria;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Selection;
+
+/**
+ * A {@link QueryConfigurer} whose query is derived from that of another configurer by a fixed operation.
+ *
+ * <p>
+ * Operations like {@link ExprStream#count count()} create a new configurer every time they are invoked. A {@link QueryCache}
+ * keys such configurers on the configurer they derive from, plus the chain of derivations, so that deriving the same value
+ * from the same stream twice yields the same cache key.
+ *
+ * @param <C> criteria query type
+ * @param <X> target/result type
+ * @param <S> target/result criteria type
+ */
+final class DerivedConfigurer<C extends CommonAbstractCriteria, X, S extends Selection<X>> implements QueryConfigurer<C, X, S> {
+
+    private final Object parent;
+    private final String derivation;
+    private final QueryConfigurer<C, X, ? extends S> configurer;
+
+    /**
+     * Constructor.
+     *
+     * @param parent the configurer from which the query is derived
+     * @param derivation name of the deriving operation, which must fully determine the derived query given the parent
+     * @param configurer derived query configuration
+     */
+    DerivedConfigurer(Object parent, String derivation, QueryConfigurer<C, X, ? extends S> configurer) {
+        if (parent == null)
+            throw new IllegalArgumentException("null parent");
+        if (derivation == null)
+            throw new IllegalArgumentException("null derivation");
+        if (configurer == null)
+            throw new IllegalArgumentException("null configurer");
+        this.parent = parent;
+        this.derivation = derivation;
+        this.configurer = configurer;
+    }
+
+    @Override
+    public S configure(CriteriaBuilder builder, C query) {
+        return this.configurer.configure(builder, query);
+    }
+
+    // Get the non-derived configurer from which the given configurer is ultimately derived
+    static Object getBase(Object configurer) {
+        Object base = configurer;
+        while (base instanceof DerivedConfigurer)
+            base = ((DerivedConfigurer<?, ?, ?>)base).parent;
+        return base;
+    }
+
+    // Get the chain of derivations leading from the base configurer to the given configurer, or empty string if none
+    static String getDerivation(Object configurer) {
+        if (!(configurer instanceof DerivedConfigurer))
+            return "";
+        final DerivedConfigurer<?, ?, ?> derived = (DerivedConfigurer<?, ?, ?>)configurer;
+        return DerivedConfigurer.getDerivation(derived.parent) + "." + derived.derivation;
+    }
+}
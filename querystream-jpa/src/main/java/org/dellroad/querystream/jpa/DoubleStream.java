@@ -13,9 +13,12 @@ import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Order;
 import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.DoubleSummaryStatistics;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
@@ -36,6 +39,68 @@ public interface DoubleStream extends ExprStream<Double, Expression<Double>> {
 
     DoubleValue sum();
 
+    /**
+     * Create value returning the count, sum, minimum, maximum, and average of the values in this stream.
+     *
+     * <p>
+     * Unlike invoking {@link #count}, {@link #sum}, {@link #min}, {@link #max}, and {@link #average} separately,
+     * this requires only a single query. If this stream is empty, the returned statistics have a count of zero.
+     *
+     * <p>
+     * <b>Warning:</b> don't use in combination with {@code groupBy()}, because the query would return a non-unique result;
+     * use {@link #summaryStatistics(Ref)} instead.
+     *
+     * @return single-valued stream containing summary statistics for this stream
+     */
+    SearchValue<DoubleSummaryStatistics, Selection<DoubleSummaryStatistics>> summaryStatistics();
+
+    /**
+     * Create a stream containing the count, sum, minimum, maximum, and average of the values in each group
+     * in this grouped stream, all computed using a single query.
+     *
+     * <p>
+     * This stream must already be grouped by the expression bound to {@code groupRef}, e.g.,
+     * via {@link #groupBy(Ref) groupBy(groupRef)}. The returned stream contains one {@link Map.Entry} per group
+     * whose key is the group's value of that expression.
+     *
+     * @param groupRef reference to the expression this stream is grouped by
+     * @param <K> group key type
+     * @return stream of per-group summary statistics
+     * @throws IllegalArgumentException if {@code groupRef} is null
+     */
+    <K> SearchStream<Map.Entry<K, DoubleSummaryStatistics>, Selection<Map.Entry<K, DoubleSummaryStatistics>>> summaryStatistics(
+      Ref<K, ? extends Expression<K>> groupRef);
+
+// Results
+
+    /**
+     * Build and evaluate a JPA query based on this instance and return the results as a primitive array.
+     *
+     * <p>
+     * Values are unboxed as they are read from the JPA provider's {@linkplain #getResultStream result stream},
+     * so no intermediate {@link List} of boxed {@link Double}s is created.
+     *
+     * @return array containing the results of the executed query
+     * @throws IllegalArgumentException if the query returns a null value
+     */
+    default double[] toDoubleArray() {
+        return PrimitiveResults.toDoubleArray(this);
+    }
+
+    /**
+     * Build and evaluate a JPA query based on this instance and return the results as a {@link java.util.stream.DoubleStream}.
+     *
+     * <p>
+     * Values are unboxed as they are read from the JPA provider's {@linkplain #getResultStream result stream}.
+     * The returned stream should be closed when no longer needed.
+     *
+     * @return primitive stream containing the results of the executed query
+     * @throws IllegalArgumentException if the query returns a null value (thrown when that value is consumed)
+     */
+    default java.util.stream.DoubleStream asJavaDoubleStream() {
+        return PrimitiveResults.asJavaDoubleStream(this);
+    }
+
 // Narrowing overrides (SearchStream)
 
     @Override
@@ -74,6 +139,12 @@ public interface DoubleStream extends ExprStream<Double, Expression<Double>> {
     @Override
     DoubleStream having(Function<? super Expression<Double>, ? extends Expression<Boolean>> havingFunction);
 
+    @Override
+    DoubleStream seekAfter(Object... sortKeys);
+
+    @Override
+    DoubleStream seekAfter(SeekCursor cursor);
+
     @Override
     DoubleValue findAny();
 
@@ -107,6 +178,18 @@ public interface DoubleStream extends ExprStream<Double, Expression<Double>> {
     @Override
     DoubleStream skip(int num);
 
+    @Override
+    DoubleStream cached(Duration ttl);
+
+    @Override
+    DoubleStream readOnly();
+
+    @Override
+    DoubleStream readOnly(boolean detach);
+
+    @Override
+    DoubleStream batchFetch(PluralAttribute<? super Double, ?, ?> attribute, int batchSize);
+
     @Override
     DoubleStream withFlushMode(FlushModeType flushMode);
 
@@ -136,4 +219,10 @@ public interface DoubleStream extends ExprStream<Double, Expression<Double>> {
 
     @Override
     DoubleStream withFetchGraph(String name);
+
+    @Override
+    DoubleStream withTimeout(Duration timeout);
+
+    @Override
+    DoubleStream withCancellation(CancellationToken cancellation);
 }
@@ -15,9 +15,12 @@ import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Order;
 import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.DoubleSummaryStatistics;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
@@ -40,28 +43,50 @@ class DoubleStreamImpl extends ExprStreamImpl<Double, Expression<Double>> implem
     public DoubleValue average() {
         QueryStreamImpl.checkOffsetLimit(this, "average()");
         return new DoubleValueImpl(this.entityManager,
-          (builder, query) -> builder.avg(this.configurer.configure(builder, query)), this.queryInfo);
+          this.derive("average()", (builder, query) -> builder.avg(this.configurer.configure(builder, query))), this.queryInfo);
     }
 
     @Override
     public DoubleValue max() {
         QueryStreamImpl.checkOffsetLimit(this, "max()");
         return new DoubleValueImpl(this.entityManager,
-          (builder, query) -> builder.max(this.configurer.configure(builder, query)), this.queryInfo);
+          this.derive("max()", (builder, query) -> builder.max(this.configurer.configure(builder, query))), this.queryInfo);
     }
 
     @Override
     public DoubleValue min() {
         QueryStreamImpl.checkOffsetLimit(this, "min()");
         return new DoubleValueImpl(this.entityManager,
-          (builder, query) -> builder.min(this.configurer.configure(builder, query)), this.queryInfo);
+          this.derive("min()", (builder, query) -> builder.min(this.configurer.configure(builder, query))), this.queryInfo);
     }
 
     @Override
     public DoubleValue sum() {
         QueryStreamImpl.checkOffsetLimit(this, "sum()");
         return new DoubleValueImpl(this.entityManager,
-          (builder, query) -> builder.sum(this.configurer.configure(builder, query)), this.queryInfo);
+          this.derive("sum()", (builder, query) -> builder.sum(this.configurer.configure(builder, query))), this.queryInfo);
+    }
+
+    @Override
+    public SearchValue<DoubleSummaryStatistics, Selection<DoubleSummaryStatistics>> summaryStatistics() {
+        QueryStreamImpl.checkOffsetLimit(this, "summaryStatistics()");
+        return new SearchValueImpl<>(this.entityManager, new SearchType<>(DoubleSummaryStatistics.class),
+          this.derive("summaryStatistics()",
+            (builder, query) -> SummaryStatistics.ofDouble(builder, this.configurer.configure(builder, query))),
+          this.queryInfo.withoutBatchFetches());
+    }
+
+    @Override
+    public <K> SearchStream<Map.Entry<K, DoubleSummaryStatistics>, Selection<Map.Entry<K, DoubleSummaryStatistics>>>
+      summaryStatistics(Ref<K, ? extends Expression<K>> groupRef) {
+        if (groupRef == null)
+            throw new IllegalArgumentException("null groupRef");
+        QueryStreamImpl.checkOffsetLimit(this, "summaryStatistics()");
+        return new SearchStreamImpl<>(this.entityManager,
+          new SearchType<>(SummaryStatistics.<K, DoubleSummaryStatistics>entryType()), (builder, query) -> {
+            final Expression<Double> expr = this.configurer.configure(builder, query);
+            return SummaryStatistics.ofDouble(builder, groupRef.get(), expr);
+          }, this.queryInfo.withoutBatchFetches());
     }
 
 // Narrowing overrides (SearchStreamImpl)
@@ -143,6 +168,16 @@ class DoubleStreamImpl extends ExprStreamImpl<Double, Expression<Double>> implem
         return (DoubleStream)super.having(havingFunction);
     }
 
+    @Override
+    public DoubleStream seekAfter(Object... sortKeys) {
+        return (DoubleStream)super.seekAfter(sortKeys);
+    }
+
+    @Override
+    public DoubleStream seekAfter(SeekCursor cursor) {
+        return (DoubleStream)super.seekAfter(cursor);
+    }
+
     @Override
     public DoubleValue findAny() {
         return (DoubleValue)super.findAny();
@@ -196,6 +231,26 @@ class DoubleStreamImpl extends ExprStreamImpl<Double, Expression<Double>> implem
         return (DoubleStream)super.skip(skip);
     }
 
+    @Override
+    public DoubleStream cached(Duration ttl) {
+        return (DoubleStream)super.cached(ttl);
+    }
+
+    @Override
+    public DoubleStream readOnly() {
+        return (DoubleStream)super.readOnly();
+    }
+
+    @Override
+    public DoubleStream readOnly(boolean detach) {
+        return (DoubleStream)super.readOnly(detach);
+    }
+
+    @Override
+    public DoubleStream batchFetch(PluralAttribute<? super Double, ?, ?> attribute, int batchSize) {
+        return (DoubleStream)super.batchFetch(attribute, batchSize);
+    }
+
     @Override
     public DoubleStream withFlushMode(FlushModeType flushMode) {
         return (DoubleStream)super.withFlushMode(flushMode);
@@ -245,4 +300,14 @@ class DoubleStreamImpl extends ExprStreamImpl<Double, Expression<Double>> implem
     public DoubleStream withFetchGraph(String name) {
         return (DoubleStream)super.withFetchGraph(name);
     }
+
+    @Override
+    public DoubleStream withTimeout(Duration timeout) {
+        return (DoubleStream)super.withTimeout(timeout);
+    }
+
+    @Override
+    public DoubleStream withCancellation(CancellationToken cancellation) {
+        return (DoubleStream)super.withCancellation(cancellation);
+    }
 }
@@ -12,7 +12,9 @@ import jakarta.persistence.Parameter;
 import jakarta.persistence.TemporalType;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
@@ -55,6 +57,18 @@ public interface DoubleValue extends ExprValue<Double, Expression<Double>>, Doub
     @Override
     DoubleValue filter(Function<? super Expression<Double>, ? extends Expression<Boolean>> predicateBuilder);
 
+    @Override
+    DoubleValue cached(Duration ttl);
+
+    @Override
+    DoubleValue readOnly();
+
+    @Override
+    DoubleValue readOnly(boolean detach);
+
+    @Override
+    DoubleValue batchFetch(PluralAttribute<? super Double, ?, ?> attribute, int batchSize);
+
     @Override
     DoubleValue withFlushMode(FlushModeType flushMode);
 
@@ -84,4 +98,10 @@ public interface DoubleValue extends ExprValue<Double, Expression<Double>>, Doub
 
     @Override
     DoubleValue withFetchGraph(String name);
+
+    @Override
+    DoubleValue withTimeout(Duration timeout);
+
+    @Override
+    DoubleValue withCancellation(CancellationToken cancellation);
 }
@@ -13,8 +13,10 @@ import jakarta.persistence.TemporalType;
 import jakarta.persistence.criteria.AbstractQuery;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
@@ -68,6 +70,26 @@ class DoubleValueImpl extends DoubleStreamImpl implements DoubleValue {
         return (DoubleValue)super.filter(predicateBuilder);
     }
 
+    @Override
+    public DoubleValue cached(Duration ttl) {
+        return (DoubleValue)super.cached(ttl);
+    }
+
+    @Override
+    public DoubleValue readOnly() {
+        return (DoubleValue)super.readOnly();
+    }
+
+    @Override
+    public DoubleValue readOnly(boolean detach) {
+        return (DoubleValue)super.readOnly(detach);
+    }
+
+    @Override
+    public DoubleValue batchFetch(PluralAttribute<? super Double, ?, ?> attribute, int batchSize) {
+        return (DoubleValue)super.batchFetch(attribute, batchSize);
+    }
+
     @Override
     public DoubleValue withFlushMode(FlushModeType flushMode) {
         return (DoubleValue)super.withFlushMode(flushMode);
@@ -117,4 +139,14 @@ class DoubleValueImpl extends DoubleStreamImpl implements DoubleValue {
     public DoubleValue withFetchGraph(String name) {
         return (DoubleValue)super.withFetchGraph(name);
     }
+
+    @Override
+    public DoubleValue withTimeout(Duration timeout) {
+        return (DoubleValue)super.withTimeout(timeout);
+    }
+
+    @Override
+    public DoubleValue withCancellation(CancellationToken cancellation) {
+        return (DoubleValue)super.withCancellation(cancellation);
+    }
 }
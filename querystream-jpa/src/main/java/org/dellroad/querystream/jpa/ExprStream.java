@@ -20,6 +20,7 @@ import jakarta.persistence.criteria.Subquery;
 import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -78,6 +79,32 @@ public interface ExprStream<X, S extends Expression<X>> extends SearchStream<X,
      */
     LongValue countDistinct();
 
+// Pagination
+
+    /**
+     * Build and evaluate a JPA query retrieving one page of the items in this stream, along with the total number of items.
+     *
+     * <p>
+     * This is equivalent to combining {@link #skip skip}{@code (offset)}{@link #limit .limit}{@code (size)}{@link
+     * #getResultList .getResultList()} with {@link #count}, except that the count query ignores any sort orderings,
+     * and the count query is omitted entirely when the total can be deduced from the page itself, i.e., when the page
+     * is not full and either contains at least one item or starts at offset zero.
+     *
+     * <p>
+     * The JPA Criteria API provides no way to compute the total in the same query (e.g., via a window function), so
+     * when the count query is needed, it is a separate query, and this stream is built a second time in order to create it.
+     *
+     * @param offset row offset of the first item in the page
+     * @param size maximum number of items in the page
+     * @return page of items
+     * @throws IllegalArgumentException if {@code offset} is negative
+     * @throws IllegalArgumentException if {@code size} is not positive
+     * @throws UnsupportedOperationException if this stream has had {@link #skip skip()} or {@link #limit limit()} applied
+     * @throws UnsupportedOperationException if this stream is grouped, or is a single-valued stream such as the result
+     *  of an aggregate function like {@link #count}; either is detected before any query is executed
+     */
+    Page<X> page(int offset, int size);
+
 // Narrowing overrides (SearchStream)
 
     @Override
@@ -133,6 +160,12 @@ public interface ExprStream<X, S extends Expression<X>> extends SearchStream<X,
     @Override
     ExprStream<X, S> having(Function<? super S, ? extends Expression<Boolean>> havingFunction);
 
+    @Override
+    ExprStream<X, S> seekAfter(Object... sortKeys);
+
+    @Override
+    ExprStream<X, S> seekAfter(SeekCursor cursor);
+
     @Override
     ExprValue<X, S> findAny();
 
@@ -180,6 +213,18 @@ public interface ExprStream<X, S extends Expression<X>> extends SearchStream<X,
     @Override
     ExprStream<X, S> skip(int num);
 
+    @Override
+    ExprStream<X, S> cached(Duration ttl);
+
+    @Override
+    ExprStream<X, S> readOnly();
+
+    @Override
+    ExprStream<X, S> readOnly(boolean detach);
+
+    @Override
+    ExprStream<X, S> batchFetch(PluralAttribute<? super X, ?, ?> attribute, int batchSize);
+
     @Override
     ExprStream<X, S> withFlushMode(FlushModeType flushMode);
 
@@ -209,4 +254,10 @@ public interface ExprStream<X, S extends Expression<X>> extends SearchStream<X,
 
     @Override
     ExprStream<X, S> withFetchGraph(String name);
+
+    @Override
+    ExprStream<X, S> withTimeout(Duration timeout);
+
+    @Override
+    ExprStream<X, S> withCancellation(CancellationToken cancellation);
 }
@@ -12,6 +12,7 @@ import jakarta.persistence.Parameter;
 import jakarta.persistence.TemporalType;
 import jakarta.persistence.criteria.AbstractQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Order;
@@ -22,7 +23,9 @@ import jakarta.persistence.criteria.Subquery;
 import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -44,12 +47,13 @@ class ExprStreamImpl<X, S extends Expression<X>> extends SearchStreamImpl<X, S>
 
     @Override
     public Subquery<X> asSubquery() {
-        final CurrentQuery outer = QueryStreamImpl.getCurrentQuery();
+        final BuildContext context = QueryStreamImpl.getBuildContext();
+        final CurrentQuery outer = context.getCurrentQuery();
         final CriteriaBuilder builder = outer.getBuilder();
         final Subquery<X> subquery = outer.getQuery().subquery(this.queryType.getType());
-        final Subquery<X> subquery2 = subquery.select(QueryStreamImpl.withCurrentQuery(builder, subquery,
+        final Subquery<X> subquery2 = subquery.select(context.withCurrentQuery(builder, subquery,
           () -> this.configurer.configure(builder, subquery)));
-        QueryStreamImpl.mergeQueryInfo(this.queryInfo, false);  // propagage any parameters, etc., up to the outer query
+        context.mergeQueryInfo(this.queryInfo, false);          // propagage any parameters, etc., up to the outer query
         return subquery2;
     }
 
@@ -64,14 +68,54 @@ class ExprStreamImpl<X, S extends Expression<X>> extends SearchStreamImpl<X, S>
     public LongValue count() {
         QueryStreamImpl.checkOffsetLimit(this, "count()");
         return new LongValueImpl(this.entityManager,
-          (builder, query) -> builder.count(this.configurer.configure(builder, query)), this.queryInfo);
+          this.derive("count()", (builder, query) -> builder.count(this.configurer.configure(builder, query))),
+          this.queryInfo.withoutBatchFetches());
     }
 
     @Override
     public LongValue countDistinct() {
         QueryStreamImpl.checkOffsetLimit(this, "countDistinct()");
         return new LongValueImpl(this.entityManager,
-          (builder, query) -> builder.countDistinct(this.configurer.configure(builder, query)), this.queryInfo);
+          this.derive("countDistinct()", (builder, query) -> builder.countDistinct(this.configurer.configure(builder, query))),
+          this.queryInfo.withoutBatchFetches());
+    }
+
+// Pagination
+
+    @Override
+    public Page<X> page(int offset, int size) {
+        if (offset < 0)
+            throw new IllegalArgumentException("offset < 0");
+        if (size <= 0)
+            throw new IllegalArgumentException("size <= 0");
+        QueryStreamImpl.checkOffsetLimit(this, "page()");
+
+        // Aggregate functions always yield a single-valued stream; grouping is detected while building the first query
+        if (this instanceof SearchValue)
+            throw new UnsupportedOperationException("sorry, page() is not supported on aggregated or single-valued streams");
+        final List<X> items = ((ExprStream<X, S>)this.withConfig(this.derive("page()", (builder, query) -> {
+            final S selection = this.configure(builder, query);
+            if (!query.getGroupList().isEmpty() || query.getGroupRestriction() != null)
+                throw new UnsupportedOperationException("sorry, page() is not supported on grouped queries");
+            return selection;
+        }))).skip(offset).limit(size).getResultList();
+
+        // If the page is not full, we can deduce the total count without querying for it, unless we're off the end
+        if (items.size() < size && (!items.isEmpty() || offset == 0))
+            return new Page<>(items, offset, (long)offset + items.size());
+
+        // Query for the total count, omitting any sort orderings
+        final long totalCount = new LongValueImpl(this.entityManager, this.derive("page().count()", (builder, query) -> {
+            final S selection = this.configure(builder, query);
+            if (query instanceof CriteriaQuery)
+                ((CriteriaQuery<?>)query).orderBy(Collections.emptyList());
+            if (query.isDistinct()) {
+                query.distinct(false);
+                return builder.countDistinct(selection);
+            }
+            return builder.count(selection);
+        }), this.queryInfo.withoutBatchFetches()).value();
+        return new Page<>(items, offset, totalCount);
     }
 
 // Narrowing overrides (SearchStreamImpl)
@@ -180,6 +224,16 @@ class ExprStreamImpl<X, S extends Expression<X>> extends SearchStreamImpl<X, S>
         return (ExprStream<X, S>)super.having(havingFunction);
     }
 
+    @Override
+    public ExprStream<X, S> seekAfter(Object... sortKeys) {
+        return (ExprStream<X, S>)super.seekAfter(sortKeys);
+    }
+
+    @Override
+    public ExprStream<X, S> seekAfter(SeekCursor cursor) {
+        return (ExprStream<X, S>)super.seekAfter(cursor);
+    }
+
     @Override
     public ExprValue<X, S> findAny() {
         return (ExprValue<X, S>)super.findAny();
@@ -258,6 +312,26 @@ class ExprStreamImpl<X, S extends Expression<X>> extends SearchStreamImpl<X, S>
         return (ExprStream<X, S>)super.skip(skip);
     }
 
+    @Override
+    public ExprStream<X, S> cached(Duration ttl) {
+        return (ExprStream<X, S>)super.cached(ttl);
+    }
+
+    @Override
+    public ExprStream<X, S> readOnly() {
+        return (ExprStream<X, S>)super.readOnly();
+    }
+
+    @Override
+    public ExprStream<X, S> readOnly(boolean detach) {
+        return (ExprStream<X, S>)super.readOnly(detach);
+    }
+
+    @Override
+    public ExprStream<X, S> batchFetch(PluralAttribute<? super X, ?, ?> attribute, int batchSize) {
+        return (ExprStream<X, S>)super.batchFetch(attribute, batchSize);
+    }
+
     @Override
     public ExprStream<X, S> withFlushMode(FlushModeType flushMode) {
         return (ExprStream<X, S>)super.withFlushMode(flushMode);
@@ -307,4 +381,14 @@ class ExprStreamImpl<X, S extends Expression<X>> extends SearchStreamImpl<X, S>
     public ExprStream<X, S> withFetchGraph(String name) {
         return (ExprStream<X, S>)super.withFetchGraph(name);
     }
+
+    @Override
+    public ExprStream<X, S> withTimeout(Duration timeout) {
+        return (ExprStream<X, S>)super.withTimeout(timeout);
+    }
+
+    @Override
+    public ExprStream<X, S> withCancellation(CancellationToken cancellation) {
+        return (ExprStream<X, S>)super.withCancellation(cancellation);
+    }
 }
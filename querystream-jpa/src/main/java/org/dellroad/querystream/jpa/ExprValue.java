@@ -17,6 +17,7 @@ import jakarta.persistence.metamodel.MapAttribute;
 import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
@@ -113,6 +114,18 @@ public interface ExprValue<X, S extends Expression<X>> extends SearchValue<X, S>
     @Override
     ExprValue<X, S> filter(Function<? super S, ? extends Expression<Boolean>> predicateBuilder);
 
+    @Override
+    ExprValue<X, S> cached(Duration ttl);
+
+    @Override
+    ExprValue<X, S> readOnly();
+
+    @Override
+    ExprValue<X, S> readOnly(boolean detach);
+
+    @Override
+    ExprValue<X, S> batchFetch(PluralAttribute<? super X, ?, ?> attribute, int batchSize);
+
     @Override
     ExprValue<X, S> withFlushMode(FlushModeType flushMode);
 
@@ -142,4 +155,10 @@ public interface ExprValue<X, S extends Expression<X>> extends SearchValue<X, S>
 
     @Override
     ExprValue<X, S> withFetchGraph(String name);
+
+    @Override
+    ExprValue<X, S> withTimeout(Duration timeout);
+
+    @Override
+    ExprValue<X, S> withCancellation(CancellationToken cancellation);
 }
@@ -13,8 +13,10 @@ import jakarta.persistence.TemporalType;
 import jakarta.persistence.criteria.AbstractQuery;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
@@ -68,6 +70,26 @@ class ExprValueImpl<X, S extends Expression<X>> extends ExprStreamImpl<X, S> imp
         return (ExprValue<X, S>)super.filter(predicateBuilder);
     }
 
+    @Override
+    public ExprValue<X, S> cached(Duration ttl) {
+        return (ExprValue<X, S>)super.cached(ttl);
+    }
+
+    @Override
+    public ExprValue<X, S> readOnly() {
+        return (ExprValue<X, S>)super.readOnly();
+    }
+
+    @Override
+    public ExprValue<X, S> readOnly(boolean detach) {
+        return (ExprValue<X, S>)super.readOnly(detach);
+    }
+
+    @Override
+    public ExprValue<X, S> batchFetch(PluralAttribute<? super X, ?, ?> attribute, int batchSize) {
+        return (ExprValue<X, S>)super.batchFetch(attribute, batchSize);
+    }
+
     @Override
     public ExprValue<X, S> withFlushMode(FlushModeType flushMode) {
         return (ExprValue<X, S>)super.withFlushMode(flushMode);
@@ -117,4 +139,14 @@ class ExprValueImpl<X, S extends Expression<X>> extends ExprStreamImpl<X, S> imp
     public ExprValue<X, S> withFetchGraph(String name) {
         return (ExprValue<X, S>)super.withFetchGraph(name);
     }
+
+    @Override
+    public ExprValue<X, S> withTimeout(Duration timeout) {
+        return (ExprValue<X, S>)super.withTimeout(timeout);
+    }
+
+    @Override
+    public ExprValue<X, S> withCancellation(CancellationToken cancellation) {
+        return (ExprValue<X, S>)super.withCancellation(cancellation);
+    }
 }
@@ -5,6 +5,7 @@
 
 package org.dellroad.querystream.jpa;
 
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.FlushModeType;
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.Parameter;
@@ -18,6 +19,7 @@ import jakarta.persistence.criteria.Selection;
 import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -30,6 +32,28 @@ import java.util.function.Function;
  */
 public interface FromStream<X, S extends From<?, X>> extends PathStream<X, S> {
 
+// Parallel execution
+
+    /**
+     * Build and evaluate a JPA query based on this instance by splitting it into partitions, based on
+     * ranges of the entity identifier, that are queried in parallel.
+     *
+     * <p>
+     * Equivalent to {@link #getResultListParallel(EntityManagerFactory, int, Function)
+     * getResultListParallel}{@code (entityManagerFactory, partitions, from -> from.get(idAttribute))}
+     * where {@code idAttribute} is the entity's identifier attribute.
+     *
+     * @param entityManagerFactory factory for the {@link jakarta.persistence.EntityManager}s used to query each partition
+     * @param partitions maximum number of partitions
+     * @return result of executed queries
+     * @throws IllegalArgumentException if {@code entityManagerFactory} is null
+     * @throws IllegalArgumentException if {@code partitions} is not positive
+     * @throws IllegalArgumentException if the stream item type is not an entity type with a single, numeric identifier
+     * @throws IllegalArgumentException if this stream is sorted
+     * @see #getResultListParallel(EntityManagerFactory, int, Function, java.util.Comparator, java.util.concurrent.Executor)
+     */
+    List<X> getResultListParallel(EntityManagerFactory entityManagerFactory, int partitions);
+
 // Narrowing overrides (PathStream)
 
     // can't do this because there's no method CriteriaBuilder.treat(From, Class)
@@ -92,6 +116,12 @@ public interface FromStream<X, S extends From<?, X>> extends PathStream<X, S> {
     @Override
     FromStream<X, S> having(Function<? super S, ? extends Expression<Boolean>> havingFunction);
 
+    @Override
+    FromStream<X, S> seekAfter(Object... sortKeys);
+
+    @Override
+    FromStream<X, S> seekAfter(SeekCursor cursor);
+
     @Override
     FromValue<X, S> findAny();
 
@@ -139,6 +169,18 @@ public interface FromStream<X, S extends From<?, X>> extends PathStream<X, S> {
     @Override
     FromStream<X, S> skip(int num);
 
+    @Override
+    FromStream<X, S> cached(Duration ttl);
+
+    @Override
+    FromStream<X, S> readOnly();
+
+    @Override
+    FromStream<X, S> readOnly(boolean detach);
+
+    @Override
+    FromStream<X, S> batchFetch(PluralAttribute<? super X, ?, ?> attribute, int batchSize);
+
     @Override
     FromStream<X, S> withFlushMode(FlushModeType flushMode);
 
@@ -168,4 +210,10 @@ public interface FromStream<X, S extends From<?, X>> extends PathStream<X, S> {
 
     @Override
     FromStream<X, S> withFetchGraph(String name);
+
+    @Override
+    FromStream<X, S> withTimeout(Duration timeout);
+
+    @Override
+    FromStream<X, S> withCancellation(CancellationToken cancellation);
 }
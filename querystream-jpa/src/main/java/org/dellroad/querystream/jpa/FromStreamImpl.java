@@ -6,6 +6,7 @@
 package org.dellroad.querystream.jpa;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.FlushModeType;
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.Parameter;
@@ -20,6 +21,7 @@ import jakarta.persistence.criteria.Selection;
 import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -38,6 +40,19 @@ class FromStreamImpl<X, S extends From<?, X>> extends PathStreamImpl<X, S> imple
         super(entityManager, queryType, configurer, queryInfo);
     }
 
+// Parallel execution
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<X> getResultListParallel(EntityManagerFactory entityManagerFactory, int partitions) {
+        final SingularAttribute<? super X, ?> idAttribute
+          = QueryStreamImpl.getIdAttribute(this.entityManager, this.queryType.getType());
+        if (!QueryStreamImpl.isNumeric(idAttribute.getJavaType()))
+            throw new IllegalArgumentException("entity identifier " + idAttribute.getName() + " is not numeric");
+        return this.getResultListParallel(entityManagerFactory, partitions,
+          from -> (Expression<? extends Number>)from.get(idAttribute));
+    }
+
 /*
 
 // Plural Joins
@@ -201,6 +216,16 @@ class FromStreamImpl<X, S extends From<?, X>> extends PathStreamImpl<X, S> imple
         return (FromStream<X, S>)super.having(havingFunction);
     }
 
+    @Override
+    public FromStream<X, S> seekAfter(Object... sortKeys) {
+        return (FromStream<X, S>)super.seekAfter(sortKeys);
+    }
+
+    @Override
+    public FromStream<X, S> seekAfter(SeekCursor cursor) {
+        return (FromStream<X, S>)super.seekAfter(cursor);
+    }
+
     @Override
     public FromValue<X, S> findAny() {
         return (FromValue<X, S>)super.findAny();
@@ -298,6 +323,26 @@ class FromStreamImpl<X, S extends From<?, X>> extends PathStreamImpl<X, S> imple
         return (FromStream<X, S>)super.skip(skip);
     }
 
+    @Override
+    public FromStream<X, S> cached(Duration ttl) {
+        return (FromStream<X, S>)super.cached(ttl);
+    }
+
+    @Override
+    public FromStream<X, S> readOnly() {
+        return (FromStream<X, S>)super.readOnly();
+    }
+
+    @Override
+    public FromStream<X, S> readOnly(boolean detach) {
+        return (FromStream<X, S>)super.readOnly(detach);
+    }
+
+    @Override
+    public FromStream<X, S> batchFetch(PluralAttribute<? super X, ?, ?> attribute, int batchSize) {
+        return (FromStream<X, S>)super.batchFetch(attribute, batchSize);
+    }
+
     @Override
     public FromStream<X, S> withFlushMode(FlushModeType flushMode) {
         return (FromStream<X, S>)super.withFlushMode(flushMode);
@@ -347,4 +392,14 @@ class FromStreamImpl<X, S extends From<?, X>> extends PathStreamImpl<X, S> imple
     public FromStream<X, S> withFetchGraph(String name) {
         return (FromStream<X, S>)super.withFetchGraph(name);
     }
+
+    @Override
+    public FromStream<X, S> withTimeout(Duration timeout) {
+        return (FromStream<X, S>)super.withTimeout(timeout);
+    }
+
+    @Override
+    public FromStream<X, S> withCancellation(CancellationToken cancellation) {
+        return (FromStream<X, S>)super.withCancellation(cancellation);
+    }
 }
@@ -14,8 +14,10 @@ import jakarta.persistence.criteria.From;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
@@ -79,6 +81,18 @@ public interface FromValue<X, S extends From<?, X>> extends PathValue<X, S>, Fro
     @Override
     FromValue<X, S> filter(Function<? super S, ? extends Expression<Boolean>> predicateBuilder);
 
+    @Override
+    FromValue<X, S> cached(Duration ttl);
+
+    @Override
+    FromValue<X, S> readOnly();
+
+    @Override
+    FromValue<X, S> readOnly(boolean detach);
+
+    @Override
+    FromValue<X, S> batchFetch(PluralAttribute<? super X, ?, ?> attribute, int batchSize);
+
     @Override
     FromValue<X, S> withFlushMode(FlushModeType flushMode);
 
@@ -108,4 +122,10 @@ public interface FromValue<X, S extends From<?, X>> extends PathValue<X, S>, Fro
 
     @Override
     FromValue<X, S> withFetchGraph(String name);
+
+    @Override
+    FromValue<X, S> withTimeout(Duration timeout);
+
+    @Override
+    FromValue<X, S> withCancellation(CancellationToken cancellation);
 }
@@ -14,8 +14,10 @@ import jakarta.persistence.criteria.AbstractQuery;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.From;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
@@ -69,6 +71,26 @@ class FromValueImpl<X, S extends From<?, X>> extends FromStreamImpl<X, S> implem
         return (FromValue<X, S>)super.filter(predicateBuilder);
     }
 
+    @Override
+    public FromValue<X, S> cached(Duration ttl) {
+        return (FromValue<X, S>)super.cached(ttl);
+    }
+
+    @Override
+    public FromValue<X, S> readOnly() {
+        return (FromValue<X, S>)super.readOnly();
+    }
+
+    @Override
+    public FromValue<X, S> readOnly(boolean detach) {
+        return (FromValue<X, S>)super.readOnly(detach);
+    }
+
+    @Override
+    public FromValue<X, S> batchFetch(PluralAttribute<? super X, ?, ?> attribute, int batchSize) {
+        return (FromValue<X, S>)super.batchFetch(attribute, batchSize);
+    }
+
     @Override
     public FromValue<X, S> withFlushMode(FlushModeType flushMode) {
         return (FromValue<X, S>)super.withFlushMode(flushMode);
@@ -118,4 +140,14 @@ class FromValueImpl<X, S extends From<?, X>> extends FromStreamImpl<X, S> implem
     public FromValue<X, S> withFetchGraph(String name) {
         return (FromValue<X, S>)super.withFetchGraph(name);
     }
+
+    @Override
+    public FromValue<X, S> withTimeout(Duration timeout) {
+        return (FromValue<X, S>)super.withTimeout(timeout);
+    }
+
+    @Override
+    public FromValue<X, S> withCancellation(CancellationToken cancellation) {
+        return (FromValue<X, S>)super.withCancellation(cancellation);
+    }
 }
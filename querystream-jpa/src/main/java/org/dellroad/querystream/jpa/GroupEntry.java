@@ -0,0 +1,20 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import java.util.AbstractMap;
+
+/**
+ * Result row for {@link SearchStream#groupingBy SearchStream.groupingBy()}, instantiated by the JPA provider
+ * via a constructor expression.
+ */
+@SuppressWarnings("serial")
+class GroupEntry extends AbstractMap.SimpleImmutableEntry<Object, Object> {
+
+    public GroupEntry(Object key, Object value) {
+        super(key, value);
+    }
+}
@@ -0,0 +1,110 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Support for {@link QueryStream.Builder#inPadded QueryStream.Builder.inPadded()}
+ * and {@link SearchStream#getResultListChunked SearchStream.getResultListChunked()}.
+ *
+ * <p>
+ * Each distinct number of {@code IN} list elements produces a distinct SQL string, so the values are padded
+ * (by repeating the last value) up to the next power of two, which bounds the number of distinct SQL strings
+ * to the logarithm of the largest list size. When chunking, lists are never padded beyond the chunk size, which
+ * is typically the database's limit on the list size. While a query is being built, the values are bound as parameters.
+ */
+final class InLists {
+
+    private InLists() {
+    }
+
+    static <T> Predicate padded(CriteriaBuilder builder, Expression<? extends T> expr, Collection<? extends T> values) {
+        return InLists.padded(builder, expr, values, Integer.MAX_VALUE);
+    }
+
+    // Pad to the next power of two, but to no more than maxSize values
+    private static <T> Predicate padded(CriteriaBuilder builder,
+      Expression<? extends T> expr, Collection<? extends T> values, int maxSize) {
+
+        // Sanity check
+        if (expr == null)
+            throw new IllegalArgumentException("null expr");
+        if (values == null)
+            throw new IllegalArgumentException("null values");
+
+        // An empty IN list is not valid SQL, but it never matches anything
+        final ArrayList<T> list = new ArrayList<>(new LinkedHashSet<>(values));
+        if (list.isEmpty())
+            return builder.disjunction();
+
+        // Add the values, binding them as parameters if possible, then pad by repeating the last
+        final boolean parameterize = list.stream().allMatch(AutoParamBinding::isParameterizable);
+        final CriteriaBuilder.In<T> in = builder.in(expr);
+        Expression<? extends T> lastParam = null;
+        for (T value : list) {
+            if (parameterize)
+                in.value(lastParam = AutoParamBinding.bind(builder, expr, value));
+            else
+                in.value(value);
+        }
+        final T last = list.get(list.size() - 1);
+        final int paddedSize = InLists.paddedSize(list.size(), maxSize);
+        for (int i = list.size(); i < paddedSize; i++) {
+            if (parameterize)
+                in.value(lastParam);
+            else
+                in.value(last);
+        }
+        return in;
+    }
+
+    static <X, S extends Selection<X>, T> List<X> getResultListChunked(SearchStream<X, S> stream,
+      Function<? super S, ? extends Expression<? extends T>> exprFunction, Collection<? extends T> values,
+      int chunkSize, Comparator<? super X> comparator) {
+
+        // Sanity check
+        if (exprFunction == null)
+            throw new IllegalArgumentException("null exprFunction");
+        if (values == null)
+            throw new IllegalArgumentException("null values");
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("chunkSize <= 0");
+        QueryStreamImpl.checkOffsetLimit(stream, "getResultListChunked()");
+
+        // Query each chunk separately
+        final CriteriaBuilder builder = stream.getEntityManager().getCriteriaBuilder();
+        final List<T> list = new ArrayList<>(new LinkedHashSet<>(values));
+        final List<List<X>> results = new ArrayList<>((list.size() + chunkSize - 1) / chunkSize);
+        for (int i = 0; i < list.size(); i += chunkSize) {
+            final List<T> chunk = list.subList(i, Math.min(i + chunkSize, list.size()));
+            results.add(stream.filter(s -> InLists.padded(builder, exprFunction.apply(s), chunk, chunkSize)).getResultList());
+        }
+
+        // Combine results
+        if (results.size() == 1)
+            return results.get(0);
+        return comparator != null ? ParallelSearch.merge(results, comparator) : ParallelSearch.concat(results);
+    }
+
+    // Get the next power of two at least the given size, but no more than maxSize (unless size is already more)
+    static int paddedSize(int size, int maxSize) {
+        if (size <= 1 || size >= maxSize)
+            return size;
+        final int paddedSize = Integer.highestOneBit(size - 1) << 1;
+        return paddedSize > 0 ? Math.min(paddedSize, maxSize) : size;
+    }
+}
@@ -13,9 +13,12 @@ import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Order;
 import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.IntSummaryStatistics;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
@@ -36,6 +39,68 @@ public interface IntStream extends ExprStream<Integer, Expression<Integer>> {
 
     IntValue sum();
 
+    /**
+     * Create value returning the count, sum, minimum, maximum, and average of the values in this stream.
+     *
+     * <p>
+     * Unlike invoking {@link #count}, {@link #sum}, {@link #min}, {@link #max}, and {@link #average} separately,
+     * this requires only a single query. If this stream is empty, the returned statistics have a count of zero.
+     *
+     * <p>
+     * <b>Warning:</b> don't use in combination with {@code groupBy()}, because the query would return a non-unique result;
+     * use {@link #summaryStatistics(Ref)} instead.
+     *
+     * @return single-valued stream containing summary statistics for this stream
+     */
+    SearchValue<IntSummaryStatistics, Selection<IntSummaryStatistics>> summaryStatistics();
+
+    /**
+     * Create a stream containing the count, sum, minimum, maximum, and average of the values in each group
+     * in this grouped stream, all computed using a single query.
+     *
+     * <p>
+     * This stream must already be grouped by the expression bound to {@code groupRef}, e.g.,
+     * via {@link #groupBy(Ref) groupBy(groupRef)}. The returned stream contains one {@link Map.Entry} per group
+     * whose key is the group's value of that expression.
+     *
+     * @param groupRef reference to the expression this stream is grouped by
+     * @param <K> group key type
+     * @return stream of per-group summary statistics
+     * @throws IllegalArgumentException if {@code groupRef} is null
+     */
+    <K> SearchStream<Map.Entry<K, IntSummaryStatistics>, Selection<Map.Entry<K, IntSummaryStatistics>>> summaryStatistics(
+      Ref<K, ? extends Expression<K>> groupRef);
+
+// Results
+
+    /**
+     * Build and evaluate a JPA query based on this instance and return the results as a primitive array.
+     *
+     * <p>
+     * Values are unboxed as they are read from the JPA provider's {@linkplain #getResultStream result stream},
+     * so no intermediate {@link List} of boxed {@link Integer}s is created.
+     *
+     * @return array containing the results of the executed query
+     * @throws IllegalArgumentException if the query returns a null value
+     */
+    default int[] toIntArray() {
+        return PrimitiveResults.toIntArray(this);
+    }
+
+    /**
+     * Build and evaluate a JPA query based on this instance and return the results as a {@link java.util.stream.IntStream}.
+     *
+     * <p>
+     * Values are unboxed as they are read from the JPA provider's {@linkplain #getResultStream result stream}.
+     * The returned stream should be closed when no longer needed.
+     *
+     * @return primitive stream containing the results of the executed query
+     * @throws IllegalArgumentException if the query returns a null value (thrown when that value is consumed)
+     */
+    default java.util.stream.IntStream asJavaIntStream() {
+        return PrimitiveResults.asJavaIntStream(this);
+    }
+
 // Mapping
 
     LongStream asLongStream();
@@ -80,6 +145,12 @@ public interface IntStream extends ExprStream<Integer, Expression<Integer>> {
     @Override
     IntStream having(Function<? super Expression<Integer>, ? extends Expression<Boolean>> havingFunction);
 
+    @Override
+    IntStream seekAfter(Object... sortKeys);
+
+    @Override
+    IntStream seekAfter(SeekCursor cursor);
+
     @Override
     IntValue findAny();
 
@@ -113,6 +184,18 @@ public interface IntStream extends ExprStream<Integer, Expression<Integer>> {
     @Override
     IntStream skip(int num);
 
+    @Override
+    IntStream cached(Duration ttl);
+
+    @Override
+    IntStream readOnly();
+
+    @Override
+    IntStream readOnly(boolean detach);
+
+    @Override
+    IntStream batchFetch(PluralAttribute<? super Integer, ?, ?> attribute, int batchSize);
+
     @Override
     IntStream withFlushMode(FlushModeType flushMode);
 
@@ -142,4 +225,10 @@ public interface IntStream extends ExprStream<Integer, Expression<Integer>> {
 
     @Override
     IntStream withFetchGraph(String name);
+
+    @Override
+    IntStream withTimeout(Duration timeout);
+
+    @Override
+    IntStream withCancellation(CancellationToken cancellation);
 }
@@ -15,9 +15,12 @@ import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Order;
 import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.IntSummaryStatistics;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
@@ -39,13 +42,15 @@ class IntStreamImpl extends ExprStreamImpl<Integer, Expression<Integer>> impleme
     @Override
     public LongStream asLongStream() {
         return new LongStreamImpl(this.getEntityManager(),
-          (builder, query) -> builder.toLong(this.configure(builder, query)), this.queryInfo);
+          this.derive("asLongStream()", (builder, query) -> builder.toLong(this.configure(builder, query))),
+          this.queryInfo.withoutBatchFetches());
     }
 
     @Override
     public DoubleStream asDoubleStream() {
         return new DoubleStreamImpl(this.getEntityManager(),
-          (builder, query) -> builder.toDouble(this.configure(builder, query)), this.queryInfo);
+          this.derive("asDoubleStream()", (builder, query) -> builder.toDouble(this.configure(builder, query))),
+          this.queryInfo.withoutBatchFetches());
     }
 
 // Aggregation
@@ -54,28 +59,51 @@ class IntStreamImpl extends ExprStreamImpl<Integer, Expression<Integer>> impleme
     public DoubleValue average() {
         QueryStreamImpl.checkOffsetLimit(this, "average()");
         return new DoubleValueImpl(this.entityManager,
-          (builder, query) -> builder.avg(this.configurer.configure(builder, query)), this.queryInfo);
+          this.derive("average()", (builder, query) -> builder.avg(this.configurer.configure(builder, query))),
+          this.queryInfo.withoutBatchFetches());
     }
 
     @Override
     public IntValue max() {
         QueryStreamImpl.checkOffsetLimit(this, "max()");
         return new IntValueImpl(this.entityManager,
-          (builder, query) -> builder.max(this.configurer.configure(builder, query)), this.queryInfo);
+          this.derive("max()", (builder, query) -> builder.max(this.configurer.configure(builder, query))), this.queryInfo);
     }
 
     @Override
     public IntValue min() {
         QueryStreamImpl.checkOffsetLimit(this, "min()");
         return new IntValueImpl(this.entityManager,
-          (builder, query) -> builder.min(this.configurer.configure(builder, query)), this.queryInfo);
+          this.derive("min()", (builder, query) -> builder.min(this.configurer.configure(builder, query))), this.queryInfo);
     }
 
     @Override
     public IntValue sum() {
         QueryStreamImpl.checkOffsetLimit(this, "sum()");
         return new IntValueImpl(this.entityManager,
-          (builder, query) -> builder.sum(this.configurer.configure(builder, query)), this.queryInfo);
+          this.derive("sum()", (builder, query) -> builder.sum(this.configurer.configure(builder, query))), this.queryInfo);
+    }
+
+    @Override
+    public SearchValue<IntSummaryStatistics, Selection<IntSummaryStatistics>> summaryStatistics() {
+        QueryStreamImpl.checkOffsetLimit(this, "summaryStatistics()");
+        return new SearchValueImpl<>(this.entityManager, new SearchType<>(IntSummaryStatistics.class),
+          this.derive("summaryStatistics()",
+            (builder, query) -> SummaryStatistics.ofInt(builder, this.configurer.configure(builder, query))),
+          this.queryInfo.withoutBatchFetches());
+    }
+
+    @Override
+    public <K> SearchStream<Map.Entry<K, IntSummaryStatistics>, Selection<Map.Entry<K, IntSummaryStatistics>>> summaryStatistics(
+      Ref<K, ? extends Expression<K>> groupRef) {
+        if (groupRef == null)
+            throw new IllegalArgumentException("null groupRef");
+        QueryStreamImpl.checkOffsetLimit(this, "summaryStatistics()");
+        return new SearchStreamImpl<>(this.entityManager, new SearchType<>(SummaryStatistics.<K, IntSummaryStatistics>entryType()),
+          (builder, query) -> {
+            final Expression<Integer> expr = this.configurer.configure(builder, query);
+            return SummaryStatistics.ofInt(builder, groupRef.get(), expr);
+          }, this.queryInfo.withoutBatchFetches());
     }
 
 // Narrowing overrides (SearchStreamImpl)
@@ -157,6 +185,16 @@ class IntStreamImpl extends ExprStreamImpl<Integer, Expression<Integer>> impleme
         return (IntStream)super.having(havingFunction);
     }
 
+    @Override
+    public IntStream seekAfter(Object... sortKeys) {
+        return (IntStream)super.seekAfter(sortKeys);
+    }
+
+    @Override
+    public IntStream seekAfter(SeekCursor cursor) {
+        return (IntStream)super.seekAfter(cursor);
+    }
+
     @Override
     public IntValue findAny() {
         return (IntValue)super.findAny();
@@ -210,6 +248,26 @@ class IntStreamImpl extends ExprStreamImpl<Integer, Expression<Integer>> impleme
         return (IntStream)super.skip(skip);
     }
 
+    @Override
+    public IntStream cached(Duration ttl) {
+        return (IntStream)super.cached(ttl);
+    }
+
+    @Override
+    public IntStream readOnly() {
+        return (IntStream)super.readOnly();
+    }
+
+    @Override
+    public IntStream readOnly(boolean detach) {
+        return (IntStream)super.readOnly(detach);
+    }
+
+    @Override
+    public IntStream batchFetch(PluralAttribute<? super Integer, ?, ?> attribute, int batchSize) {
+        return (IntStream)super.batchFetch(attribute, batchSize);
+    }
+
     @Override
     public IntStream withFlushMode(FlushModeType flushMode) {
         return (IntStream)super.withFlushMode(flushMode);
@@ -259,4 +317,14 @@ class IntStreamImpl extends ExprStreamImpl<Integer, Expression<Integer>> impleme
     public IntStream withFetchGraph(String name) {
         return (IntStream)super.withFetchGraph(name);
     }
+
+    @Override
+    public IntStream withTimeout(Duration timeout) {
+        return (IntStream)super.withTimeout(timeout);
+    }
+
+    @Override
+    public IntStream withCancellation(CancellationToken cancellation) {
+        return (IntStream)super.withCancellation(cancellation);
+    }
 }
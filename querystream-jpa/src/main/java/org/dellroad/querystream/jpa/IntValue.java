@@ -12,7 +12,9 @@ import jakarta.persistence.Parameter;
 import jakarta.persistence.TemporalType;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
@@ -55,6 +57,18 @@ public interface IntValue extends ExprValue<Integer, Expression<Integer>>, IntSt
     @Override
     IntValue filter(Function<? super Expression<Integer>, ? extends Expression<Boolean>> predicateBuilder);
 
+    @Override
+    IntValue cached(Duration ttl);
+
+    @Override
+    IntValue readOnly();
+
+    @Override
+    IntValue readOnly(boolean detach);
+
+    @Override
+    IntValue batchFetch(PluralAttribute<? super Integer, ?, ?> attribute, int batchSize);
+
     @Override
     IntValue withFlushMode(FlushModeType flushMode);
 
@@ -84,4 +98,10 @@ public interface IntValue extends ExprValue<Integer, Expression<Integer>>, IntSt
 
     @Override
     IntValue withFetchGraph(String name);
+
+    @Override
+    IntValue withTimeout(Duration timeout);
+
+    @Override
+    IntValue withCancellation(CancellationToken cancellation);
 }
@@ -13,8 +13,10 @@ import jakarta.persistence.TemporalType;
 import jakarta.persistence.criteria.AbstractQuery;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
@@ -68,6 +70,26 @@ class IntValueImpl extends IntStreamImpl implements IntValue {
         return (IntValue)super.filter(predicateBuilder);
     }
 
+    @Override
+    public IntValue cached(Duration ttl) {
+        return (IntValue)super.cached(ttl);
+    }
+
+    @Override
+    public IntValue readOnly() {
+        return (IntValue)super.readOnly();
+    }
+
+    @Override
+    public IntValue readOnly(boolean detach) {
+        return (IntValue)super.readOnly(detach);
+    }
+
+    @Override
+    public IntValue batchFetch(PluralAttribute<? super Integer, ?, ?> attribute, int batchSize) {
+        return (IntValue)super.batchFetch(attribute, batchSize);
+    }
+
     @Override
     public IntValue withFlushMode(FlushModeType flushMode) {
         return (IntValue)super.withFlushMode(flushMode);
@@ -117,4 +139,14 @@ class IntValueImpl extends IntStreamImpl implements IntValue {
     public IntValue withFetchGraph(String name) {
         return (IntValue)super.withFetchGraph(name);
     }
+
+    @Override
+    public IntValue withTimeout(Duration timeout) {
+        return (IntValue)super.withTimeout(timeout);
+    }
+
+    @Override
+    public IntValue withCancellation(CancellationToken cancellation) {
+        return (IntValue)super.withCancellation(cancellation);
+    }
 }
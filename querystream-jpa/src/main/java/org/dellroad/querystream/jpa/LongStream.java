@@ -13,10 +13,13 @@ import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Order;
 import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.LongSummaryStatistics;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -36,6 +39,68 @@ public interface LongStream extends ExprStream<Long, Expression<Long>> {
 
     LongValue sum();
 
+    /**
+     * Create value returning the count, sum, minimum, maximum, and average of the values in this stream.
+     *
+     * <p>
+     * Unlike invoking {@link #count}, {@link #sum}, {@link #min}, {@link #max}, and {@link #average} separately,
+     * this requires only a single query. If this stream is empty, the returned statistics have a count of zero.
+     *
+     * <p>
+     * <b>Warning:</b> don't use in combination with {@code groupBy()}, because the query would return a non-unique result;
+     * use {@link #summaryStatistics(Ref)} instead.
+     *
+     * @return single-valued stream containing summary statistics for this stream
+     */
+    SearchValue<LongSummaryStatistics, Selection<LongSummaryStatistics>> summaryStatistics();
+
+    /**
+     * Create a stream containing the count, sum, minimum, maximum, and average of the values in each group
+     * in this grouped stream, all computed using a single query.
+     *
+     * <p>
+     * This stream must already be grouped by the expression bound to {@code groupRef}, e.g.,
+     * via {@link #groupBy(Ref) groupBy(groupRef)}. The returned stream contains one {@link Map.Entry} per group
+     * whose key is the group's value of that expression.
+     *
+     * @param groupRef reference to the expression this stream is grouped by
+     * @param <K> group key type
+     * @return stream of per-group summary statistics
+     * @throws IllegalArgumentException if {@code groupRef} is null
+     */
+    <K> SearchStream<Map.Entry<K, LongSummaryStatistics>, Selection<Map.Entry<K, LongSummaryStatistics>>> summaryStatistics(
+      Ref<K, ? extends Expression<K>> groupRef);
+
+// Results
+
+    /**
+     * Build and evaluate a JPA query based on this instance and return the results as a primitive array.
+     *
+     * <p>
+     * Values are unboxed as they are read from the JPA provider's {@linkplain #getResultStream result stream},
+     * so no intermediate {@link List} of boxed {@link Long}s is created.
+     *
+     * @return array containing the results of the executed query
+     * @throws IllegalArgumentException if the query returns a null value
+     */
+    default long[] toLongArray() {
+        return PrimitiveResults.toLongArray(this);
+    }
+
+    /**
+     * Build and evaluate a JPA query based on this instance and return the results as a {@link java.util.stream.LongStream}.
+     *
+     * <p>
+     * Values are unboxed as they are read from the JPA provider's {@linkplain #getResultStream result stream}.
+     * The returned stream should be closed when no longer needed.
+     *
+     * @return primitive stream containing the results of the executed query
+     * @throws IllegalArgumentException if the query returns a null value (thrown when that value is consumed)
+     */
+    default java.util.stream.LongStream asJavaLongStream() {
+        return PrimitiveResults.asJavaLongStream(this);
+    }
+
 // Mapping
 
     DoubleStream asDoubleStream();
@@ -78,6 +143,12 @@ public interface LongStream extends ExprStream<Long, Expression<Long>> {
     @Override
     LongStream having(Function<? super Expression<Long>, ? extends Expression<Boolean>> havingFunction);
 
+    @Override
+    LongStream seekAfter(Object... sortKeys);
+
+    @Override
+    LongStream seekAfter(SeekCursor cursor);
+
     @Override
     LongValue findAny();
 
@@ -111,6 +182,18 @@ public interface LongStream extends ExprStream<Long, Expression<Long>> {
     @Override
     LongStream skip(int num);
 
+    @Override
+    LongStream cached(Duration ttl);
+
+    @Override
+    LongStream readOnly();
+
+    @Override
+    LongStream readOnly(boolean detach);
+
+    @Override
+    LongStream batchFetch(PluralAttribute<? super Long, ?, ?> attribute, int batchSize);
+
     @Override
     LongStream withFlushMode(FlushModeType flushMode);
 
@@ -140,4 +223,10 @@ public interface LongStream extends ExprStream<Long, Expression<Long>> {
 
     @Override
     LongStream withFetchGraph(String name);
+
+    @Override
+    LongStream withTimeout(Duration timeout);
+
+    @Override
+    LongStream withCancellation(CancellationToken cancellation);
 }
@@ -15,10 +15,13 @@ import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Order;
 import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.LongSummaryStatistics;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -39,7 +42,8 @@ class LongStreamImpl extends ExprStreamImpl<Long, Expression<Long>> implements L
     @Override
     public DoubleStream asDoubleStream() {
         return new DoubleStreamImpl(this.getEntityManager(),
-          (builder, query) -> builder.toDouble(this.configure(builder, query)), this.queryInfo);
+          this.derive("asDoubleStream()", (builder, query) -> builder.toDouble(this.configure(builder, query))),
+          this.queryInfo.withoutBatchFetches());
     }
 
 // Aggregation
@@ -48,28 +52,54 @@ class LongStreamImpl extends ExprStreamImpl<Long, Expression<Long>> implements L
     public DoubleValue average() {
         QueryStreamImpl.checkOffsetLimit(this, "average()");
         return new DoubleValueImpl(this.entityManager,
-          (builder, query) -> builder.avg(this.configurer.configure(builder, query)), new QueryInfo());
+          this.derive("average()", (builder, query) -> builder.avg(this.configurer.configure(builder, query))),
+          QueryInfo.forDerivedStream(this));
     }
 
     @Override
     public LongValue max() {
         QueryStreamImpl.checkOffsetLimit(this, "max()");
         return new LongValueImpl(this.entityManager,
-          (builder, query) -> builder.max(this.configurer.configure(builder, query)), new QueryInfo());
+          this.derive("max()", (builder, query) -> builder.max(this.configurer.configure(builder, query))),
+          QueryInfo.forDerivedStream(this));
     }
 
     @Override
     public LongValue min() {
         QueryStreamImpl.checkOffsetLimit(this, "min()");
         return new LongValueImpl(this.entityManager,
-          (builder, query) -> builder.min(this.configurer.configure(builder, query)), new QueryInfo());
+          this.derive("min()", (builder, query) -> builder.min(this.configurer.configure(builder, query))),
+          QueryInfo.forDerivedStream(this));
     }
 
     @Override
     public LongValue sum() {
         QueryStreamImpl.checkOffsetLimit(this, "sum()");
         return new LongValueImpl(this.entityManager,
-          (builder, query) -> builder.sum(this.configurer.configure(builder, query)), new QueryInfo());
+          this.derive("sum()", (builder, query) -> builder.sum(this.configurer.configure(builder, query))),
+          QueryInfo.forDerivedStream(this));
+    }
+
+    @Override
+    public SearchValue<LongSummaryStatistics, Selection<LongSummaryStatistics>> summaryStatistics() {
+        QueryStreamImpl.checkOffsetLimit(this, "summaryStatistics()");
+        return new SearchValueImpl<>(this.entityManager, new SearchType<>(LongSummaryStatistics.class),
+          this.derive("summaryStatistics()",
+            (builder, query) -> SummaryStatistics.ofLong(builder, this.configurer.configure(builder, query))),
+          this.queryInfo.withoutBatchFetches());
+    }
+
+    @Override
+    public <K> SearchStream<Map.Entry<K, LongSummaryStatistics>, Selection<Map.Entry<K, LongSummaryStatistics>>> summaryStatistics(
+      Ref<K, ? extends Expression<K>> groupRef) {
+        if (groupRef == null)
+            throw new IllegalArgumentException("null groupRef");
+        QueryStreamImpl.checkOffsetLimit(this, "summaryStatistics()");
+        return new SearchStreamImpl<>(this.entityManager, new SearchType<>(SummaryStatistics.<K, LongSummaryStatistics>entryType()),
+          (builder, query) -> {
+            final Expression<Long> expr = this.configurer.configure(builder, query);
+            return SummaryStatistics.ofLong(builder, groupRef.get(), expr);
+          }, this.queryInfo.withoutBatchFetches());
     }
 
 // Narrowing overrides (SearchStreamImpl)
@@ -151,6 +181,16 @@ class LongStreamImpl extends ExprStreamImpl<Long, Expression<Long>> implements L
         return (LongStream)super.having(havingFunction);
     }
 
+    @Override
+    public LongStream seekAfter(Object... sortKeys) {
+        return (LongStream)super.seekAfter(sortKeys);
+    }
+
+    @Override
+    public LongStream seekAfter(SeekCursor cursor) {
+        return (LongStream)super.seekAfter(cursor);
+    }
+
     @Override
     public LongValue findAny() {
         return (LongValue)super.findAny();
@@ -204,6 +244,26 @@ class LongStreamImpl extends ExprStreamImpl<Long, Expression<Long>> implements L
         return (LongStream)super.skip(skip);
     }
 
+    @Override
+    public LongStream cached(Duration ttl) {
+        return (LongStream)super.cached(ttl);
+    }
+
+    @Override
+    public LongStream readOnly() {
+        return (LongStream)super.readOnly();
+    }
+
+    @Override
+    public LongStream readOnly(boolean detach) {
+        return (LongStream)super.readOnly(detach);
+    }
+
+    @Override
+    public LongStream batchFetch(PluralAttribute<? super Long, ?, ?> attribute, int batchSize) {
+        return (LongStream)super.batchFetch(attribute, batchSize);
+    }
+
     @Override
     public LongStream withFlushMode(FlushModeType flushMode) {
         return (LongStream)super.withFlushMode(flushMode);
@@ -253,4 +313,14 @@ class LongStreamImpl extends ExprStreamImpl<Long, Expression<Long>> implements L
     public LongStream withFetchGraph(String name) {
         return (LongStream)super.withFetchGraph(name);
     }
+
+    @Override
+    public LongStream withTimeout(Duration timeout) {
+        return (LongStream)super.withTimeout(timeout);
+    }
+
+    @Override
+    public LongStream withCancellation(CancellationToken cancellation) {
+        return (LongStream)super.withCancellation(cancellation);
+    }
 }
@@ -12,7 +12,9 @@ import jakarta.persistence.Parameter;
 import jakarta.persistence.TemporalType;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
@@ -55,6 +57,18 @@ public interface LongValue extends ExprValue<Long, Expression<Long>>, LongStream
     @Override
     LongValue filter(Function<? super Expression<Long>, ? extends Expression<Boolean>> predicateBuilder);
 
+    @Override
+    LongValue cached(Duration ttl);
+
+    @Override
+    LongValue readOnly();
+
+    @Override
+    LongValue readOnly(boolean detach);
+
+    @Override
+    LongValue batchFetch(PluralAttribute<? super Long, ?, ?> attribute, int batchSize);
+
     @Override
     LongValue withFlushMode(FlushModeType flushMode);
 
@@ -84,4 +98,10 @@ public interface LongValue extends ExprValue<Long, Expression<Long>>, LongStream
 
     @Override
     LongValue withFetchGraph(String name);
+
+    @Override
+    LongValue withTimeout(Duration timeout);
+
+    @Override
+    LongValue withCancellation(CancellationToken cancellation);
 }
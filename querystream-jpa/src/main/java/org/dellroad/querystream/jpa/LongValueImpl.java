@@ -13,8 +13,10 @@ import jakarta.persistence.TemporalType;
 import jakarta.persistence.criteria.AbstractQuery;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
@@ -68,6 +70,26 @@ class LongValueImpl extends LongStreamImpl implements LongValue {
         return (LongValue)super.filter(predicateBuilder);
     }
 
+    @Override
+    public LongValue cached(Duration ttl) {
+        return (LongValue)super.cached(ttl);
+    }
+
+    @Override
+    public LongValue readOnly() {
+        return (LongValue)super.readOnly();
+    }
+
+    @Override
+    public LongValue readOnly(boolean detach) {
+        return (LongValue)super.readOnly(detach);
+    }
+
+    @Override
+    public LongValue batchFetch(PluralAttribute<? super Long, ?, ?> attribute, int batchSize) {
+        return (LongValue)super.batchFetch(attribute, batchSize);
+    }
+
     @Override
     public LongValue withFlushMode(FlushModeType flushMode) {
         return (LongValue)super.withFlushMode(flushMode);
@@ -117,4 +139,14 @@ class LongValueImpl extends LongStreamImpl implements LongValue {
     public LongValue withFetchGraph(String name) {
         return (LongValue)super.withFetchGraph(name);
     }
+
+    @Override
+    public LongValue withTimeout(Duration timeout) {
+        return (LongValue)super.withTimeout(timeout);
+    }
+
+    @Override
+    public LongValue withCancellation(CancellationToken cancellation) {
+        return (LongValue)super.withCancellation(cancellation);
+    }
 }
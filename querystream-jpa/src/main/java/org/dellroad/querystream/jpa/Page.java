@@ -0,0 +1,81 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of results from {@link ExprStream#page ExprStream.page()}, along with the total number of results.
+ *
+ * <p>
+ * Instances are immutable.
+ *
+ * @param <X> stream item type
+ */
+public final class Page<X> {
+
+    private final List<X> items;
+    private final int offset;
+    private final long totalCount;
+
+    Page(List<X> items, int offset, long totalCount) {
+        if (items == null)
+            throw new IllegalArgumentException("null items");
+        if (offset < 0)
+            throw new IllegalArgumentException("offset < 0");
+        this.items = Collections.unmodifiableList(items);
+        this.offset = offset;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * Get the items in this page.
+     *
+     * @return immutable list of items
+     */
+    public List<X> getItems() {
+        return this.items;
+    }
+
+    /**
+     * Get the offset of the first item in this page.
+     *
+     * @return row offset of this page
+     */
+    public int getOffset() {
+        return this.offset;
+    }
+
+    /**
+     * Get the total number of items in the stream, across all pages.
+     *
+     * @return total number of items
+     */
+    public long getTotalCount() {
+        return this.totalCount;
+    }
+
+    /**
+     * Determine whether there are more items after this page.
+     *
+     * @return true if this page does not extend to the end of the stream
+     */
+    public boolean hasNext() {
+        return this.offset + (long)this.items.size() < this.totalCount;
+    }
+
+// Object
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName()
+          + "[items=" + this.items
+          + ",offset=" + this.offset
+          + ",totalCount=" + this.totalCount
+          + "]";
+    }
+}
@@ -0,0 +1,232 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.ParameterExpression;
+import jakarta.persistence.criteria.Selection;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import org.dellroad.querystream.jpa.querytype.SearchType;
+
+/**
+ * Support for {@link SearchStream#getResultListParallel SearchStream.getResultListParallel()}
+ * and {@link QueryStream.Builder#executeAll QueryStream.Builder.executeAll()}.
+ */
+final class ParallelSearch {
+
+    // Maximum number of threads in the temporary thread pool used when no executor is given
+    static final int MAX_TEMPORARY_THREADS = 8;
+
+    private static final Set<Class<?>> INTEGRAL_TYPES = Set.of(
+      byte.class, short.class, int.class, long.class, Byte.class, Short.class, Integer.class, Long.class, BigInteger.class);
+
+    private ParallelSearch() {
+    }
+
+    static <X, S extends Selection<X>> List<X> getResultList(SearchStreamImpl<X, S> stream,
+      EntityManagerFactory entityManagerFactory, int partitions,
+      Function<? super S, ? extends Expression<? extends Number>> partitionFunction,
+      Comparator<? super X> comparator, Executor executor) {
+
+        // Sanity check
+        if (entityManagerFactory == null)
+            throw new IllegalArgumentException("null entityManagerFactory");
+        if (partitions <= 0)
+            throw new IllegalArgumentException("partitions <= 0");
+        if (partitionFunction == null)
+            throw new IllegalArgumentException("null partitionFunction");
+        QueryStreamImpl.checkOffsetLimit(stream, "getResultListParallel()");
+        if (stream.queryInfo.getLockMode() != null) {
+            throw new UnsupportedOperationException("sorry, getResultListParallel() is not supported with a lock mode"
+              + " because the partitions are not queried within a transaction");
+        }
+        stream.checkExecuteAsync("getResultListParallel()");
+
+        // Determine the range of partition values, and check for sorting while we're at it; aggregates can't be locked
+        final boolean[] sorted = new boolean[1];
+        final Object[] range = new SearchStreamImpl<Object[], Selection<Object[]>>(stream.entityManager,
+          new SearchType<>(Object[].class), (builder, query) -> {
+            final S selection = stream.configure(builder, query);
+            if (!query.getGroupList().isEmpty())
+                throw new UnsupportedOperationException("sorry, getResultListParallel() is not supported on grouped queries");
+            final CriteriaQuery<?> criteriaQuery = (CriteriaQuery<?>)query;
+            sorted[0] = !criteriaQuery.getOrderList().isEmpty();
+            criteriaQuery.orderBy(Collections.emptyList());
+            final Expression<Long> partitionExpr = ParallelSearch.partitionExpression(builder, partitionFunction, selection);
+            return builder.array(builder.min(partitionExpr), builder.max(partitionExpr));
+          }, QueryInfo.forAuxiliaryQuery(stream).withLockMode(null)).getResultList().get(0);
+        if (sorted[0] && comparator == null) {
+            throw new IllegalArgumentException("a Comparator consistent with the stream's sort orderings"
+              + " is required in order to merge the results from each partition");
+        }
+        if (range[0] == null)
+            return new ArrayList<>(0);
+        final long min = ((Number)range[0]).longValue();
+        final long max = ((Number)range[1]).longValue();
+
+        // Split the range into (at most) the requested number of partitions
+        final BigInteger span = BigInteger.valueOf(max).subtract(BigInteger.valueOf(min)).add(BigInteger.ONE);
+        final int numPartitions = span.min(BigInteger.valueOf(partitions)).intValueExact();
+        final BigInteger[] spanAndRemainder = span.divideAndRemainder(BigInteger.valueOf(numPartitions));
+        final long[][] bounds = new long[numPartitions][];
+        BigInteger next = BigInteger.valueOf(min);
+        for (int i = 0; i < numPartitions; i++) {
+            final BigInteger size = spanAndRemainder[0].add(i < spanAndRemainder[1].intValue() ? BigInteger.ONE : BigInteger.ZERO);
+            final BigInteger last = next.add(size).subtract(BigInteger.ONE);
+            bounds[i] = new long[] { next.longValueExact(), last.longValueExact() };
+            next = last.add(BigInteger.ONE);
+        }
+
+        // Build the partition query once, parameterized by partition bounds
+        final CriteriaBuilder criteriaBuilder = stream.builder();
+        final ParameterExpression<Long> minParam = criteriaBuilder.parameter(Long.class);
+        final ParameterExpression<Long> maxParam = criteriaBuilder.parameter(Long.class);
+        final SearchStreamImpl<X, S> partitionStream = (SearchStreamImpl<X, S>)stream.filter(selection -> criteriaBuilder.between(
+          ParallelSearch.partitionExpression(criteriaBuilder, partitionFunction, selection), minParam, maxParam));
+        final long startTime = System.nanoTime();
+        final CompiledQuery.Compiled<CriteriaQuery<X>> compiled = partitionStream.build(CompiledQuery.Compiled::new);
+        final long buildNanos = System.nanoTime() - startTime;
+
+        // Query each partition using its own EntityManager, just like getResultListAsync()
+        ExecutorService temporaryExecutor = null;
+        if (executor == null)
+            executor = temporaryExecutor = ParallelSearch.newTemporaryExecutor(numPartitions);
+        final List<List<X>> results;
+        try {
+            final ArrayList<CompletableFuture<List<X>>> futures = new ArrayList<>(numPartitions);
+            for (long[] bound : bounds) {
+                final CompiledQuery.Compiled<CriteriaQuery<X>> partitionQuery = new CompiledQuery.Compiled<>(compiled.criteria,
+                  compiled.queryInfo.withParam(minParam, bound[0]).withParam(maxParam, bound[1]));
+                futures.add(partitionStream.executeAsync("getResultListParallel()", partitionQuery, buildNanos,
+                  entityManagerFactory, executor, TypedQuery::getResultList, List::size));
+            }
+            results = ParallelSearch.join(futures);
+        } finally {
+            if (temporaryExecutor != null)
+                temporaryExecutor.shutdown();
+        }
+
+        // Combine results
+        return comparator != null ? ParallelSearch.merge(results, comparator) : ParallelSearch.concat(results);
+    }
+
+    static List<List<?>> executeAll(List<? extends SearchStream<?, ?>> streams, Executor executor) {
+
+        // Sanity check
+        if (streams == null)
+            throw new IllegalArgumentException("null streams");
+        for (SearchStream<?, ?> stream : streams) {
+            if (stream == null)
+                throw new IllegalArgumentException("null stream");
+        }
+        if (streams.isEmpty())
+            return new ArrayList<>(0);
+
+        // Build each query on this thread, and query each using its own EntityManager
+        ExecutorService temporaryExecutor = null;
+        if (executor == null)
+            executor = temporaryExecutor = ParallelSearch.newTemporaryExecutor(streams.size());
+        try {
+            final ArrayList<CompletableFuture<? extends List<?>>> futures = new ArrayList<>(streams.size());
+            for (SearchStream<?, ?> stream : streams)
+                futures.add(stream.getResultListAsync(executor));
+            return ParallelSearch.join(futures);
+        } finally {
+            if (temporaryExecutor != null)
+                temporaryExecutor.shutdown();
+        }
+    }
+
+    // Get the partition expression, which must be integral so that adjacent sub-ranges can't skip any values
+    private static <S> Expression<Long> partitionExpression(CriteriaBuilder builder,
+      Function<? super S, ? extends Expression<? extends Number>> partitionFunction, S selection) {
+        final Expression<? extends Number> expr = partitionFunction.apply(selection);
+        if (expr == null)
+            throw new IllegalArgumentException("null partition expression");
+        final Class<?> type = expr.getJavaType();
+        if (!ParallelSearch.INTEGRAL_TYPES.contains(type)) {
+            throw new IllegalArgumentException("partition expression must have an integral type but has type "
+              + (type != null ? type.getName() : "null"));
+        }
+        return builder.toLong(expr);
+    }
+
+    // Create a thread pool for the given number of tasks, but with a bounded number of threads
+    private static ExecutorService newTemporaryExecutor(int numTasks) {
+        return Executors.newFixedThreadPool(Math.min(numTasks, ParallelSearch.MAX_TEMPORARY_THREADS));
+    }
+
+    // Wait for all of the futures to complete and return their results, rethrowing any exception
+    private static <T> List<T> join(List<? extends CompletableFuture<? extends T>> futures) {
+        final ArrayList<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<? extends T> future : futures)
+                results.add(future.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException)e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error)e.getCause();
+            throw e;
+        }
+        return results;
+    }
+
+    static <X> List<X> concat(List<List<X>> lists) {
+        final ArrayList<X> result = new ArrayList<>(lists.stream().mapToInt(List::size).sum());
+        lists.forEach(result::addAll);
+        return result;
+    }
+
+    // K-way merge of sorted lists
+    static <X> List<X> merge(List<List<X>> lists, Comparator<? super X> comparator) {
+        final ArrayList<X> result = new ArrayList<>(lists.stream().mapToInt(List::size).sum());
+        final PriorityQueue<Head<X>> queue = new PriorityQueue<>(Math.max(lists.size(), 1),
+          (head1, head2) -> comparator.compare(head1.item, head2.item));
+        for (List<X> list : lists) {
+            final Iterator<X> iterator = list.iterator();
+            if (iterator.hasNext())
+                queue.add(new Head<>(iterator.next(), iterator));
+        }
+        while (!queue.isEmpty()) {
+            final Head<X> head = queue.poll();
+            result.add(head.item);
+            if (head.iterator.hasNext())
+                queue.add(new Head<>(head.iterator.next(), head.iterator));
+        }
+        return result;
+    }
+
+    private static final class Head<X> {
+
+        final X item;
+        final Iterator<X> iterator;
+
+        Head(X item, Iterator<X> iterator) {
+            this.item = item;
+            this.iterator = iterator;
+        }
+    }
+}
@@ -19,6 +19,7 @@ import jakarta.persistence.criteria.Selection;
 import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -96,6 +97,12 @@ public interface PathStream<X, S extends Path<X>> extends ExprStream<X, S> {
     @Override
     PathStream<X, S> having(Function<? super S, ? extends Expression<Boolean>> havingFunction);
 
+    @Override
+    PathStream<X, S> seekAfter(Object... sortKeys);
+
+    @Override
+    PathStream<X, S> seekAfter(SeekCursor cursor);
+
     @Override
     PathValue<X, S> findAny();
 
@@ -143,6 +150,18 @@ public interface PathStream<X, S extends Path<X>> extends ExprStream<X, S> {
     @Override
     PathStream<X, S> skip(int num);
 
+    @Override
+    PathStream<X, S> cached(Duration ttl);
+
+    @Override
+    PathStream<X, S> readOnly();
+
+    @Override
+    PathStream<X, S> readOnly(boolean detach);
+
+    @Override
+    PathStream<X, S> batchFetch(PluralAttribute<? super X, ?, ?> attribute, int batchSize);
+
     @Override
     PathStream<X, S> withFlushMode(FlushModeType flushMode);
 
@@ -172,4 +191,10 @@ public interface PathStream<X, S extends Path<X>> extends ExprStream<X, S> {
 
     @Override
     PathStream<X, S> withFetchGraph(String name);
+
+    @Override
+    PathStream<X, S> withTimeout(Duration timeout);
+
+    @Override
+    PathStream<X, S> withCancellation(CancellationToken cancellation);
 }
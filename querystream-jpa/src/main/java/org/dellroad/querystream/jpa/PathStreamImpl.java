@@ -20,6 +20,7 @@ import jakarta.persistence.criteria.Selection;
 import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -150,6 +151,16 @@ class PathStreamImpl<X, S extends Path<X>> extends ExprStreamImpl<X, S> implemen
         return (PathStream<X, S>)super.having(havingFunction);
     }
 
+    @Override
+    public PathStream<X, S> seekAfter(Object... sortKeys) {
+        return (PathStream<X, S>)super.seekAfter(sortKeys);
+    }
+
+    @Override
+    public PathStream<X, S> seekAfter(SeekCursor cursor) {
+        return (PathStream<X, S>)super.seekAfter(cursor);
+    }
+
     @Override
     public PathValue<X, S> findAny() {
         return (PathValue<X, S>)super.findAny();
@@ -228,6 +239,26 @@ class PathStreamImpl<X, S extends Path<X>> extends ExprStreamImpl<X, S> implemen
         return (PathStream<X, S>)super.skip(skip);
     }
 
+    @Override
+    public PathStream<X, S> cached(Duration ttl) {
+        return (PathStream<X, S>)super.cached(ttl);
+    }
+
+    @Override
+    public PathStream<X, S> readOnly() {
+        return (PathStream<X, S>)super.readOnly();
+    }
+
+    @Override
+    public PathStream<X, S> readOnly(boolean detach) {
+        return (PathStream<X, S>)super.readOnly(detach);
+    }
+
+    @Override
+    public PathStream<X, S> batchFetch(PluralAttribute<? super X, ?, ?> attribute, int batchSize) {
+        return (PathStream<X, S>)super.batchFetch(attribute, batchSize);
+    }
+
     @Override
     public PathStream<X, S> withFlushMode(FlushModeType flushMode) {
         return (PathStream<X, S>)super.withFlushMode(flushMode);
@@ -277,4 +308,14 @@ class PathStreamImpl<X, S extends Path<X>> extends ExprStreamImpl<X, S> implemen
     public PathStream<X, S> withFetchGraph(String name) {
         return (PathStream<X, S>)super.withFetchGraph(name);
     }
+
+    @Override
+    public PathStream<X, S> withTimeout(Duration timeout) {
+        return (PathStream<X, S>)super.withTimeout(timeout);
+    }
+
+    @Override
+    public PathStream<X, S> withCancellation(CancellationToken cancellation) {
+        return (PathStream<X, S>)super.withCancellation(cancellation);
+    }
 }
@@ -12,8 +12,10 @@ import jakarta.persistence.TemporalType;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
@@ -42,6 +44,18 @@ public interface PathValue<X, S extends Path<X>> extends ExprValue<X, S>, PathSt
     @Override
     PathValue<X, S> filter(Function<? super S, ? extends Expression<Boolean>> predicateBuilder);
 
+    @Override
+    PathValue<X, S> cached(Duration ttl);
+
+    @Override
+    PathValue<X, S> readOnly();
+
+    @Override
+    PathValue<X, S> readOnly(boolean detach);
+
+    @Override
+    PathValue<X, S> batchFetch(PluralAttribute<? super X, ?, ?> attribute, int batchSize);
+
     @Override
     PathValue<X, S> withFlushMode(FlushModeType flushMode);
 
@@ -71,4 +85,10 @@ public interface PathValue<X, S extends Path<X>> extends ExprValue<X, S>, PathSt
 
     @Override
     PathValue<X, S> withFetchGraph(String name);
+
+    @Override
+    PathValue<X, S> withTimeout(Duration timeout);
+
+    @Override
+    PathValue<X, S> withCancellation(CancellationToken cancellation);
 }
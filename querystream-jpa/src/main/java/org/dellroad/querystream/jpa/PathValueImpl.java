@@ -14,8 +14,10 @@ import jakarta.persistence.criteria.AbstractQuery;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
@@ -69,6 +71,26 @@ class PathValueImpl<X, S extends Path<X>> extends PathStreamImpl<X, S> implement
         return (PathValue<X, S>)super.filter(predicateBuilder);
     }
 
+    @Override
+    public PathValue<X, S> cached(Duration ttl) {
+        return (PathValue<X, S>)super.cached(ttl);
+    }
+
+    @Override
+    public PathValue<X, S> readOnly() {
+        return (PathValue<X, S>)super.readOnly();
+    }
+
+    @Override
+    public PathValue<X, S> readOnly(boolean detach) {
+        return (PathValue<X, S>)super.readOnly(detach);
+    }
+
+    @Override
+    public PathValue<X, S> batchFetch(PluralAttribute<? super X, ?, ?> attribute, int batchSize) {
+        return (PathValue<X, S>)super.batchFetch(attribute, batchSize);
+    }
+
     @Override
     public PathValue<X, S> withFlushMode(FlushModeType flushMode) {
         return (PathValue<X, S>)super.withFlushMode(flushMode);
@@ -118,4 +140,14 @@ class PathValueImpl<X, S extends Path<X>> extends PathStreamImpl<X, S> implement
     public PathValue<X, S> withFetchGraph(String name) {
         return (PathValue<X, S>)super.withFetchGraph(name);
     }
+
+    @Override
+    public PathValue<X, S> withTimeout(Duration timeout) {
+        return (PathValue<X, S>)super.withTimeout(timeout);
+    }
+
+    @Override
+    public PathValue<X, S> withCancellation(CancellationToken cancellation) {
+        return (PathValue<X, S>)super.withCancellation(cancellation);
+    }
 }
@@ -0,0 +1,127 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import jakarta.persistence.TypedQuery;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Support for the primitive array and {@code java.util.stream} primitive stream results of {@link IntStream},
+ * {@link LongStream}, and {@link DoubleStream}.
+ *
+ * <p>
+ * Results are unboxed one at a time while iterating the JPA provider's result stream, so no intermediate
+ * {@link java.util.List} of boxed values is created. Arrays are accumulated in a buffer that doubles in size as needed.
+ * If the stream is {@linkplain SearchStream#cached cached}, the cached result list is used instead.
+ */
+final class PrimitiveResults {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private PrimitiveResults() {
+    }
+
+// Arrays
+
+    static int[] toIntArray(IntStream stream) {
+        if (QueryInfo.of(stream).getCacheTtl() != null)
+            return PrimitiveResults.toIntArray(stream.getResultList().stream());
+        return QueryStreamImpl.execute(stream, "toIntArray()", query -> {
+            try (Stream<Integer> results = QueryStreamImpl.observeCancellation(stream, query.getResultStream())) {
+                return PrimitiveResults.toIntArray(results);
+            }
+        }, array -> array.length);
+    }
+
+    static long[] toLongArray(LongStream stream) {
+        if (QueryInfo.of(stream).getCacheTtl() != null)
+            return PrimitiveResults.toLongArray(stream.getResultList().stream());
+        return QueryStreamImpl.execute(stream, "toLongArray()", query -> {
+            try (Stream<Long> results = QueryStreamImpl.observeCancellation(stream, query.getResultStream())) {
+                return PrimitiveResults.toLongArray(results);
+            }
+        }, array -> array.length);
+    }
+
+    static double[] toDoubleArray(DoubleStream stream) {
+        if (QueryInfo.of(stream).getCacheTtl() != null)
+            return PrimitiveResults.toDoubleArray(stream.getResultList().stream());
+        return QueryStreamImpl.execute(stream, "toDoubleArray()", query -> {
+            try (Stream<Double> results = QueryStreamImpl.observeCancellation(stream, query.getResultStream())) {
+                return PrimitiveResults.toDoubleArray(results);
+            }
+        }, array -> array.length);
+    }
+
+    private static int[] toIntArray(Stream<? extends Number> results) {
+        int[] array = new int[PrimitiveResults.INITIAL_CAPACITY];
+        int size = 0;
+        for (Iterator<? extends Number> i = results.iterator(); i.hasNext(); ) {
+            final int value = PrimitiveResults.unbox(i.next()).intValue();
+            if (size == array.length)
+                array = Arrays.copyOf(array, size * 2);
+            array[size++] = value;
+        }
+        return size == array.length ? array : Arrays.copyOf(array, size);
+    }
+
+    private static long[] toLongArray(Stream<? extends Number> results) {
+        long[] array = new long[PrimitiveResults.INITIAL_CAPACITY];
+        int size = 0;
+        for (Iterator<? extends Number> i = results.iterator(); i.hasNext(); ) {
+            final long value = PrimitiveResults.unbox(i.next()).longValue();
+            if (size == array.length)
+                array = Arrays.copyOf(array, size * 2);
+            array[size++] = value;
+        }
+        return size == array.length ? array : Arrays.copyOf(array, size);
+    }
+
+    private static double[] toDoubleArray(Stream<? extends Number> results) {
+        double[] array = new double[PrimitiveResults.INITIAL_CAPACITY];
+        int size = 0;
+        for (Iterator<? extends Number> i = results.iterator(); i.hasNext(); ) {
+            final double value = PrimitiveResults.unbox(i.next()).doubleValue();
+            if (size == array.length)
+                array = Arrays.copyOf(array, size * 2);
+            array[size++] = value;
+        }
+        return size == array.length ? array : Arrays.copyOf(array, size);
+    }
+
+// Streams
+
+    static java.util.stream.IntStream asJavaIntStream(IntStream stream) {
+        return PrimitiveResults.resultStream(stream, "asJavaIntStream()").mapToInt(x -> PrimitiveResults.unbox(x).intValue());
+    }
+
+    static java.util.stream.LongStream asJavaLongStream(LongStream stream) {
+        return PrimitiveResults.resultStream(stream, "asJavaLongStream()").mapToLong(x -> PrimitiveResults.unbox(x).longValue());
+    }
+
+    static java.util.stream.DoubleStream asJavaDoubleStream(DoubleStream stream) {
+        return PrimitiveResults.resultStream(stream, "asJavaDoubleStream()")
+          .mapToDouble(x -> PrimitiveResults.unbox(x).doubleValue());
+    }
+
+    private static <X extends Number> Stream<X> resultStream(ExprStream<X, ?> stream, String operation) {
+        if (QueryInfo.of(stream).getCacheTtl() != null)
+            return stream.getResultList().stream();
+        return QueryStreamImpl.observeCancellation(stream,
+          QueryStreamImpl.execute(stream, operation, TypedQuery::getResultStream, resultStream -> -1));
+    }
+
+// Internal methods
+
+    private static Number unbox(Number value) {
+        if (value == null)
+            throw new IllegalArgumentException("null values cannot be represented as primitive values");
+        return value;
+    }
+}
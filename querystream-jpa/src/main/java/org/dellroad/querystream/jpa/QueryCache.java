@@ -0,0 +1,317 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import jakarta.persistence.criteria.AbstractQuery;
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.FetchParent;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Subquery;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.PluralAttribute;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A size-bounded cache of query results, for use with {@link SearchStream#cached SearchStream.cached()}.
+ *
+ * <p>
+ * Instances are registered via {@link QueryStream.Builder#withCache QueryStream.Builder.withCache()}. Only streams on
+ * which {@link SearchStream#cached cached()} has been invoked use the cache; their results are retained until the
+ * time-to-live expires, the least recently used results are evicted to make room for new ones, or the results are
+ * invalidated.
+ *
+ * <p>
+ * Results are invalidated automatically when a {@link UpdateStream#update bulk update} or {@link DeleteStream#delete bulk
+ * delete} query is executed by a stream created by a {@link QueryStream.Builder} using this cache, if the updated or deleted
+ * entity type is a supertype or subtype of any entity type appearing in a root, join, or fetch of the cached query or any
+ * of its subqueries. Changes made any other way, e.g., via {@link jakarta.persistence.EntityManager#persist}, are not
+ * detected; use {@link #invalidate invalidate()} or {@link #invalidateAll} to handle those.
+ *
+ * <p>
+ * The JPA Criteria API provides no provider-independent way to inspect a criteria query in detail, so results are cached
+ * under a key made up of the identity of the {@link SearchStream}'s query configuration, the operation, and the parameter
+ * bindings, hints, and offset/limit in effect after building the query. Streams derived from a cached stream via methods
+ * like {@link SearchStream#withParam withParam()} and {@link SearchStream#withHint withHint()} share the same configuration.
+ * Values and streams derived from a cached stream by operations that take no arguments, such as {@link ExprStream#count count()},
+ * {@link IntStream#sum sum()}, {@link SearchStream#findFirst findFirst()}, and {@link ExprStream#page page()}, are keyed
+ * on the cached stream's configuration plus the operation, so repeating e.g. {@code stream.count().value()} hits the cache.
+ * Operations that take arguments, like {@link SearchStream#filter filter()} and {@link SearchStream#map map()}, create new
+ * configurations every time they are invoked, so their results are only hit by reusing the stream or value they return.
+ * Typically, the cached stream is created once, with values that vary supplied as parameters. As a consequence, all of the
+ * functions used to configure the stream must produce equivalent queries every time they are invoked.
+ *
+ * <p>
+ * The cache only weakly references a stream's query configuration, so it does not prevent the stream, or the
+ * {@link jakarta.persistence.EntityManager} and other objects captured by its configuration, from being garbage
+ * collected. Once that happens, the configuration's results can no longer be hit, and they are discarded.
+ *
+ * <p>
+ * Cached results are shared by all callers and all {@link jakarta.persistence.EntityManager}s: cached lists are unmodifiable,
+ * and cached entities are not managed by the caller's {@link jakarta.persistence.EntityManager}. Caching is therefore best
+ * suited to scalar values and read-only reference data.
+ *
+ * <p>
+ * Instances are thread safe.
+ */
+public class QueryCache {
+
+    /**
+     * Default maximum number of cached results.
+     */
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private final int maxSize;
+    private final LinkedHashMap<Key, Entry> entries;
+    private final ReferenceQueue<Object> staleKeys = new ReferenceQueue<>();   // keys whose configurer was collected
+
+    private long generation;                                    // incremented by each invalidation
+
+// Constructors
+
+    /**
+     * Constructor.
+     *
+     * <p>
+     * Caches up to {@link #DEFAULT_MAX_SIZE} results.
+     */
+    public QueryCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize maximum number of cached results
+     * @throws IllegalArgumentException if {@code maxSize} is not positive
+     */
+    public QueryCache(int maxSize) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("maxSize <= 0");
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return this.size() > QueryCache.this.maxSize;
+            }
+        };
+    }
+
+// Public methods
+
+    /**
+     * Get the maximum number of cached results.
+     *
+     * @return maximum cache size
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Get the number of results currently cached, including any that have expired but not yet been removed.
+     *
+     * @return current cache size
+     */
+    public synchronized int size() {
+        this.removeStaleEntries();
+        return this.entries.size();
+    }
+
+    /**
+     * Discard all cached results from queries involving the given entity type, any of its supertypes, or any of its subtypes.
+     *
+     * @param type entity type
+     * @throws IllegalArgumentException if {@code type} is null
+     */
+    public synchronized void invalidate(Class<?> type) {
+        if (type == null)
+            throw new IllegalArgumentException("null type");
+        this.generation++;
+        for (Iterator<Entry> i = this.entries.values().iterator(); i.hasNext(); ) {
+            if (i.next().involves(type))
+                i.remove();
+        }
+    }
+
+    /**
+     * Discard all cached results.
+     */
+    public synchronized void invalidateAll() {
+        this.generation++;
+        this.entries.clear();
+    }
+
+// Package methods
+
+    // Create a key for use with this instance
+    Key newKey(Object configurer, String operation, QueryInfo queryInfo) {
+        return new Key(configurer, operation, queryInfo, this.staleKeys);
+    }
+
+    // Get the cached entry for the given key, or null if none
+    synchronized Entry get(Key key) {
+        this.removeStaleEntries();
+        final Entry entry = this.entries.get(key);
+        if (entry == null)
+            return null;
+        if (entry.isExpired()) {
+            this.entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    // Get the current generation, which must be passed to put() after the query has executed
+    synchronized long getGeneration() {
+        return this.generation;
+    }
+
+    // Cache a result, unless an invalidation has occurred since the query started, in which case the result may be stale
+    synchronized void put(Key key, Object value, Set<Class<?>> types, Duration ttl, long startGeneration) {
+        if (this.generation != startGeneration)
+            return;
+        this.removeStaleEntries();
+        final long ttlNanos = ttl.compareTo(Duration.ofNanos(Long.MAX_VALUE / 2)) < 0 ? ttl.toNanos() : Long.MAX_VALUE / 2;
+        this.entries.put(key, new Entry(value, types, System.nanoTime() + ttlNanos));
+    }
+
+    // Discard entries whose query configurer has been garbage collected, as they can never be hit again
+    private void removeStaleEntries() {
+        for (Reference<?> key; (key = this.staleKeys.poll()) != null; )
+            this.entries.remove(key);
+    }
+
+    // Find the types of all roots, joins, and fetches in the given queries
+    static Set<Class<?>> getQueriedTypes(Collection<? extends AbstractQuery<?>> queries) {
+        final HashSet<Class<?>> types = new HashSet<>();
+        for (AbstractQuery<?> query : queries) {
+            for (From<?, ?> root : query.getRoots())
+                QueryCache.addTypes(types, root);
+            if (query instanceof Subquery) {
+                for (From<?, ?> join : ((Subquery<?>)query).getCorrelatedJoins())
+                    QueryCache.addTypes(types, join);
+            }
+        }
+        return types;
+    }
+
+    private static void addTypes(Set<Class<?>> types, From<?, ?> from) {
+        types.add(from.getJavaType());
+        for (From<?, ?> join : from.getJoins())
+            QueryCache.addTypes(types, join);
+        QueryCache.addFetchTypes(types, from);
+    }
+
+    private static void addFetchTypes(Set<Class<?>> types, FetchParent<?, ?> parent) {
+        for (Fetch<?, ?> fetch : parent.getFetches()) {
+            final Attribute<?, ?> attribute = fetch.getAttribute();
+            types.add(attribute instanceof PluralAttribute ?
+              ((PluralAttribute<?, ?, ?>)attribute).getElementType().getJavaType() : attribute.getJavaType());
+            QueryCache.addFetchTypes(types, fetch);
+        }
+    }
+
+// Key
+
+    // Note: the query configurer is compared by identity, and weakly referenced so that it (and whatever it captures,
+    // typically streams and their EntityManager) is not retained by the cache; a cleared key only equals itself
+    static final class Key extends WeakReference<Object> {
+
+        private final String derivation;
+        private final String operation;
+        private final int firstResult;
+        private final int maxResults;
+        private final Set<ParamBinding<?>> params;
+        private final Map<String, Object> hints;
+        private final int hashCode;
+
+        Key(Object configurer, String operation, QueryInfo queryInfo, ReferenceQueue<Object> queue) {
+            super(DerivedConfigurer.getBase(configurer), queue);
+            this.derivation = DerivedConfigurer.getDerivation(configurer);
+            this.operation = operation;
+            this.firstResult = queryInfo.getFirstResult();
+            this.maxResults = queryInfo.getMaxResults();
+            this.params = Key.withoutAutoParams(queryInfo.getParams());
+            this.hints = queryInfo.getHints();
+            this.hashCode = System.identityHashCode(this.get())
+              ^ this.derivation.hashCode()
+              ^ this.operation.hashCode()
+              ^ Objects.hash(this.firstResult, this.maxResults)
+              ^ this.params.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this)
+                return true;
+            if (obj == null || obj.getClass() != this.getClass())
+                return false;
+            final Key that = (Key)obj;
+            final Object configurer = this.get();
+            return configurer != null
+              && configurer == that.get()
+              && this.derivation.equals(that.derivation)
+              && this.operation.equals(that.operation)
+              && this.firstResult == that.firstResult
+              && this.maxResults == that.maxResults
+              && this.params.equals(that.params)
+              && this.hints.equals(that.hints);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        // Automatic parameters replace literal values, which are implied by the configurer
+        private static Set<ParamBinding<?>> withoutAutoParams(Set<ParamBinding<?>> params) {
+            if (params.stream().noneMatch(AutoParamBinding.class::isInstance))
+                return params;
+            return params.stream()
+              .filter(binding -> !(binding instanceof AutoParamBinding))
+              .collect(Collectors.toSet());
+        }
+    }
+
+// Entry
+
+    static final class Entry {
+
+        private final Object value;
+        private final Set<Class<?>> types;
+        private final long expiration;                          // System.nanoTime() value
+
+        Entry(Object value, Set<Class<?>> types, long expiration) {
+            this.value = value;
+            this.types = types;
+            this.expiration = expiration;
+        }
+
+        Object getValue() {
+            return this.value;
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - this.expiration >= 0;
+        }
+
+        boolean involves(Class<?> type) {
+            return this.types.stream().anyMatch(type2 -> type2.isAssignableFrom(type) || type.isAssignableFrom(type2));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import java.time.Duration;
+
+import org.dellroad.querystream.jpa.querytype.QueryType;
+
+/**
+ * Describes one query execution, as reported to a {@link QueryStreamListener}.
+ *
+ * <p>
+ * Instances are immutable.
+ */
+public final class QueryExecution {
+
+    private final QueryType<?, ?, ?, ?> queryType;
+    private final String operation;
+    private final Duration buildTime;
+    private final Duration createTime;
+    private final Duration executionTime;
+    private final long rowCount;
+    private final RuntimeException failure;
+    private final boolean cacheHit;
+
+    QueryExecution(QueryType<?, ?, ?, ?> queryType, String operation,
+      long buildNanos, long createNanos, long executionNanos, long rowCount, RuntimeException failure, boolean cacheHit) {
+        if (queryType == null)
+            throw new IllegalArgumentException("null queryType");
+        if (operation == null)
+            throw new IllegalArgumentException("null operation");
+        this.queryType = queryType;
+        this.operation = operation;
+        this.buildTime = Duration.ofNanos(buildNanos);
+        this.createTime = Duration.ofNanos(createNanos);
+        this.executionTime = Duration.ofNanos(executionNanos);
+        this.rowCount = rowCount;
+        this.failure = failure;
+        this.cacheHit = cacheHit;
+    }
+
+    /**
+     * Get the type of the query that was executed.
+     *
+     * <p>
+     * This distinguishes search, bulk update, and bulk delete queries, and provides the query's result or target type.
+     *
+     * @return query type
+     */
+    public QueryType<?, ?, ?, ?> getQueryType() {
+        return this.queryType;
+    }
+
+    /**
+     * Get the name of the {@link QueryStream} method that executed the query, e.g., {@code "getResultList()"}.
+     *
+     * @return operation name
+     */
+    public String getOperation() {
+        return this.operation;
+    }
+
+    /**
+     * Get the time spent building the JPA Criteria API query, including all subqueries.
+     *
+     * @return criteria query build time
+     */
+    public Duration getBuildTime() {
+        return this.buildTime;
+    }
+
+    /**
+     * Get the time spent by the JPA provider creating and configuring the executable {@link jakarta.persistence.Query}.
+     *
+     * @return query creation time
+     */
+    public Duration getCreateTime() {
+        return this.createTime;
+    }
+
+    /**
+     * Get the time spent executing the query.
+     *
+     * <p>
+     * For {@link SearchStream#getResultStream}, this only includes the time to obtain the {@link java.util.stream.Stream},
+     * not the time spent consuming it.
+     *
+     * @return query execution time
+     */
+    public Duration getExecutionTime() {
+        return this.executionTime;
+    }
+
+    /**
+     * Get the total elapsed time, i.e., the sum of the build, creation, and execution times.
+     *
+     * @return total query time
+     */
+    public Duration getTotalTime() {
+        return this.buildTime.plus(this.createTime).plus(this.executionTime);
+    }
+
+    /**
+     * Get the number of rows returned by a search query or affected by a bulk update or delete query.
+     *
+     * @return row count, or -1 if unknown (e.g., for {@link SearchStream#getResultStream}, or if the query failed)
+     */
+    public long getRowCount() {
+        return this.rowCount;
+    }
+
+    /**
+     * Get the exception thrown by the query execution, if any.
+     *
+     * @return query execution exception, or null if the query executed successfully
+     */
+    public RuntimeException getFailure() {
+        return this.failure;
+    }
+
+    /**
+     * Determine whether the result was found in a {@link QueryCache} instead of being retrieved from the database.
+     *
+     * <p>
+     * In that case, {@linkplain #getCreateTime the query creation time} and {@linkplain #getExecutionTime the execution
+     * time} are zero.
+     *
+     * @return true if the result came from a cache
+     * @see SearchStream#cached
+     */
+    public boolean isCacheHit() {
+        return this.cacheHit;
+    }
+
+// Object
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName()
+          + "[queryType=" + this.queryType.getClass().getSimpleName() + "<" + this.queryType.getType().getName() + ">"
+          + ",operation=" + this.operation
+          + ",buildTime=" + this.buildTime
+          + ",createTime=" + this.createTime
+          + ",executionTime=" + this.executionTime
+          + ",rowCount=" + this.rowCount
+          + (this.failure != null ? ",failure=" + this.failure : "")
+          + (this.cacheHit ? ",cacheHit=true" : "")
+          + "]";
+    }
+}
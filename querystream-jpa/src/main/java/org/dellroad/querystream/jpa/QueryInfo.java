@@ -12,11 +12,14 @@ import jakarta.persistence.Query;
 import jakarta.persistence.TemporalType;
 import jakarta.persistence.criteria.CriteriaQuery;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -28,34 +31,54 @@ import java.util.stream.Collectors;
  *
  * <p>
  * Instances are more or less immutable.
+ *
+ * <p>
+ * Hints and parameter bindings are stored as persistent linked lists, most recent first, that are shared between
+ * instances. Each list contains at most one entry per hint or parameter: adding a new hint or parameter binding,
+ * or merging in a subquery's information, never copies the existing entries, while rebinding an existing hint or
+ * parameter copies only the entries preceding the one it replaces.
  */
 class QueryInfo {
 
-    private final int firstResult;
-    private final int maxResults;
-    private final FlushModeType flushMode;                      // may be null
-    private final LockModeType lockMode;                        // may be null
-    private final Map<String, Object> hints;                    // may be null
-    private final Map<Parameter<?>, ParamBinding<?>> params;    // may be null
+    static final String TIMEOUT_HINT = "jakarta.persistence.query.timeout";
+
+    private int firstResult;
+    private int maxResults;
+    private FlushModeType flushMode;                      // may be null
+    private LockModeType lockMode;                        // may be null
+    private Node<String, Object> hints;                   // may be null
+    private Node<Parameter<?>, ParamBinding<?>> params;   // may be null
+    private QueryStreamListener listener;                 // may be null
+    private QueryCache cache;                             // may be null
+    private Duration cacheTtl;                            // null if results should not be cached
+    private boolean detach;                               // detach entity results from the persistence context
+    private List<BatchFetch> batchFetches;                // collections to load after executing the query
+    private Duration timeout;                             // may be null
+    private CancellationToken cancellation;               // may be null
 
 // Constructors
 
     QueryInfo() {
-        this(-1, -1, null, null, null, null);
+        this.firstResult = -1;
+        this.maxResults = -1;
+        this.batchFetches = Collections.emptyList();
     }
 
-    QueryInfo(int firstResult, int maxResults, FlushModeType flushMode,
-      LockModeType lockMode, Map<String, Object> hints, Map<Parameter<?>, ParamBinding<?>> params) {
-        if (firstResult < -1)
-            throw new IllegalArgumentException("invalid firstResult");
-        if (maxResults < -1)
-            throw new IllegalArgumentException("invalid maxResults");
-        this.firstResult = firstResult;
-        this.maxResults = maxResults;
-        this.flushMode = flushMode;
-        this.lockMode = lockMode;
-        this.hints = hints;
-        this.params = params;
+    // Copy constructor; the "withFoo()" methods modify the copy before returning it
+    private QueryInfo(QueryInfo original) {
+        this.firstResult = original.firstResult;
+        this.maxResults = original.maxResults;
+        this.flushMode = original.flushMode;
+        this.lockMode = original.lockMode;
+        this.hints = original.hints;
+        this.params = original.params;
+        this.listener = original.listener;
+        this.cache = original.cache;
+        this.cacheTtl = original.cacheTtl;
+        this.detach = original.detach;
+        this.batchFetches = original.batchFetches;
+        this.timeout = original.timeout;
+        this.cancellation = original.cancellation;
     }
 
 // Kludgey hack
@@ -64,6 +87,29 @@ class QueryInfo {
         return ((QueryStreamImpl<?, ?, ?, ?, ?, ?>)stream).queryInfo;
     }
 
+    // Create an empty instance for a new stream derived from the given stream, retaining only its listener, cache,
+    // timeout, and cancellation token
+    public static QueryInfo forDerivedStream(QueryStream<?, ?, ?, ?, ?> stream) {
+        final QueryInfo info = QueryInfo.of(stream);
+        return new QueryInfo().withListener(info.listener).withCache(info.cache)
+          .withTimeout(info.timeout).withCancellation(info.cancellation);
+    }
+
+    // Create an instance for an auxiliary query that evaluates the given stream's restrictions, retaining its flush mode,
+    // lock mode, hints other than entity graphs (which only apply to entity results), and parameter bindings, in addition
+    // to what forDerivedStream() retains
+    public static QueryInfo forAuxiliaryQuery(QueryStream<?, ?, ?, ?, ?> stream) {
+        final QueryInfo info = QueryInfo.of(stream);
+        final HashMap<String, Object> hints = new HashMap<>(info.getHints());
+        hints.remove(QueryStreamImpl.LOAD_GRAPH_HINT);
+        hints.remove(QueryStreamImpl.FETCH_GRAPH_HINT);
+        return QueryInfo.forDerivedStream(stream)
+          .withFlushMode(info.flushMode)
+          .withLockMode(info.lockMode)
+          .withHints(hints)
+          .withParams(info.getParams());
+    }
+
 // Configure the given query from this instance
 
     public void applyTo(Query query) {
@@ -75,17 +121,20 @@ class QueryInfo {
             query.setFlushMode(this.flushMode);
         if (this.lockMode != null)
             query.setLockMode(this.lockMode);
-        if (this.hints != null) {
-            for (Map.Entry<String, Object> hint : this.hints.entrySet())
-                query.setHint(hint.getKey(), hint.getValue());
-        }
-        if (this.params != null)
-            this.params.values().forEach(param -> param.applyTo(query));
+        for (Node<String, Object> hint = this.hints; hint != null; hint = hint.next)
+            query.setHint(hint.key, hint.value);
+        if (this.timeout != null)
+            query.setHint(TIMEOUT_HINT, (int)Math.min(Math.max(this.timeout.toMillis(), 1), Integer.MAX_VALUE));
+        for (Node<Parameter<?>, ParamBinding<?>> param = this.params; param != null; param = param.next)
+            param.value.applyTo(query);
     }
 
     /**
      * Merge a QueryInfo produced in a subquery into this instance, checking for conflicts.
      *
+     * <p>
+     * If both specify a timeout, the shorter one wins.
+     *
      * @param that subquery's {@link QueryInfo}
      * @throws IllegalArgumentException if {@code that} is null
      */
@@ -104,36 +153,43 @@ class QueryInfo {
             throw new IllegalArgumentException("conflicting JPA lock mode specified on query ("
               + this.lockMode + ") and nested subquery (" + that.lockMode + ")");
         }
-        return new QueryInfo(this.firstResult, this.maxResults, this.flushMode, this.lockMode,
-          this.merge("value", name -> "hint \"" + name + "\"", this.hints, that.hints),
-          this.merge("binding", ParamBinding::describeParameter, this.params, that.params));
+        final Node<String, Object> newHints = QueryInfo.merge("value", name -> "hint \"" + name + "\"", this.hints, that.hints);
+        final Node<Parameter<?>, ParamBinding<?>> newParams
+          = QueryInfo.merge("binding", ParamBinding::describeParameter, this.params, that.params);
+        final Duration newTimeout = this.timeout == null
+          || (that.timeout != null && that.timeout.compareTo(this.timeout) < 0) ? that.timeout : this.timeout;
+        if (newHints == this.hints && newParams == this.params && newTimeout == this.timeout)
+            return this;
+        final QueryInfo info = new QueryInfo(this);
+        info.hints = newHints;
+        info.params = newParams;
+        info.timeout = newTimeout;
+        return info;
     }
 
-    private <K, V> Map<K, V> merge(String valueName,
-      Function<? super K, String> keyDescriber, Map<K, V> thisMap, Map<K, V> thatMap) {
-        if (thisMap == null && thatMap == null)
-            return null;
-        if (thisMap == null)
-            return new HashMap<>(thatMap);
-        if (thatMap == null)
-            return new HashMap<>(thisMap);
-        final Map<K, V> newMap = new HashMap<>(thisMap);
-        for (Map.Entry<K, V> entry : thatMap.entrySet()) {
-            K key = entry.getKey();
-            if (!thisMap.containsKey(key)) {
-                newMap.put(key, entry.getValue());
+    // Merge thatList into thisList, sharing as much of the existing lists as possible
+    private static <K, V> Node<K, V> merge(String valueName,
+      Function<? super K, String> keyDescriber, Node<K, V> thisList, Node<K, V> thatList) {
+        if (thatList == null)
+            return thisList;
+        if (thisList == null)
+            return thatList;
+        final Map<K, Node<K, V>> thisIndex = (long)thisList.length * thatList.length > Node.MAX_LINEAR_SEARCH ?
+          thisList.index() : null;
+        Node<K, V> newList = thisList;
+        for (Node<K, V> entry = thatList; entry != null; entry = entry.next) {
+            final Node<K, V> thisEntry = thisIndex != null ? thisIndex.get(entry.key) : thisList.find(entry.key);
+            if (thisEntry == null) {
+                newList = new Node<>(entry.key, entry.value, newList);
                 continue;
             }
-            final V thisValue = thisMap.get(key);
-            final V thatValue = entry.getValue();
-            final Object keyDesc = key instanceof String ? "\"" + key + "\"" : key;
-            if (!Objects.equals(thisValue, thatValue)) {
+            if (!Objects.equals(thisEntry.value, entry.value)) {
                 throw new IllegalArgumentException("conflicting " + valueName + " specified for "
-                  + keyDescriber.apply(key) + " on outer query (" + thisValue + ") and nested subquery (" + thatValue + ")");
+                  + keyDescriber.apply(entry.key) + " on outer query (" + thisEntry.value + ")"
+                  + " and nested subquery (" + entry.value + ")");
             }
-            newMap.put(key, thisValue);
         }
-        return newMap;
+        return newList;
     }
 
 // Limits
@@ -142,14 +198,26 @@ class QueryInfo {
         return this.firstResult;
     }
     public QueryInfo withFirstResult(final int newFirstResult) {
-        return new QueryInfo(newFirstResult, this.maxResults, this.flushMode, this.lockMode, this.hints, this.params);
+        if (newFirstResult < -1)
+            throw new IllegalArgumentException("invalid firstResult");
+        if (newFirstResult == this.firstResult)
+            return this;
+        final QueryInfo info = new QueryInfo(this);
+        info.firstResult = newFirstResult;
+        return info;
     }
 
     public int getMaxResults() {
         return this.maxResults;
     }
     public QueryInfo withMaxResults(final int newMaxResults) {
-        return new QueryInfo(this.firstResult, newMaxResults, this.flushMode, this.lockMode, this.hints, this.params);
+        if (newMaxResults < -1)
+            throw new IllegalArgumentException("invalid maxResults");
+        if (newMaxResults == this.maxResults)
+            return this;
+        final QueryInfo info = new QueryInfo(this);
+        info.maxResults = newMaxResults;
+        return info;
     }
 
 // FlushMode
@@ -158,7 +226,11 @@ class QueryInfo {
         return this.flushMode;
     }
     public QueryInfo withFlushMode(final FlushModeType newFlushMode) {
-        return new QueryInfo(this.firstResult, this.maxResults, newFlushMode, this.lockMode, this.hints, this.params);
+        if (newFlushMode == this.flushMode)
+            return this;
+        final QueryInfo info = new QueryInfo(this);
+        info.flushMode = newFlushMode;
+        return info;
     }
 
 // LockMode
@@ -167,47 +239,64 @@ class QueryInfo {
         return this.lockMode;
     }
     public QueryInfo withLockMode(final LockModeType newLockMode) {
-        return new QueryInfo(this.firstResult, this.maxResults, this.flushMode, newLockMode, this.hints, this.params);
+        if (newLockMode == this.lockMode)
+            return this;
+        final QueryInfo info = new QueryInfo(this);
+        info.lockMode = newLockMode;
+        return info;
     }
 
 // Hints
 
     public Map<String, Object> getHints() {
-        return this.hints != null ? Collections.unmodifiableMap(this.hints) : Collections.emptyMap();
+        return this.hints != null ? Collections.unmodifiableMap(this.hints.toMap()) : Collections.emptyMap();
     }
     public QueryInfo withHint(String name, Object value) {
         if (name == null)
             throw new IllegalArgumentException("null name");
-        return this.withHints(Collections.singletonMap(name, value));
+        final QueryInfo info = new QueryInfo(this);
+        info.hints = new Node<>(name, value, Node.without(this.hints, Collections.singleton(name)));
+        return info;
     }
     public QueryInfo withHints(Map<String, Object> moreHints) {
         if (moreHints == null)
             throw new IllegalArgumentException("null hints");
         if (moreHints.keySet().stream().anyMatch(key -> key == null))
             throw new IllegalArgumentException("null key");
-        final HashMap<String, Object> newHints = new HashMap<>((this.hints != null ? this.hints.size() : 0) + moreHints.size());
-        if (this.hints != null)
-            newHints.putAll(this.hints);
-        newHints.putAll(moreHints);
-        return new QueryInfo(this.firstResult, this.maxResults, this.flushMode, this.lockMode, newHints, this.params);
+        Node<String, Object> newHints = Node.without(this.hints, moreHints.keySet());
+        for (Map.Entry<String, Object> hint : moreHints.entrySet())
+            newHints = new Node<>(hint.getKey(), hint.getValue(), newHints);
+        final QueryInfo info = new QueryInfo(this);
+        info.hints = newHints;
+        return info;
     }
 
 // Params
 
     public Set<ParamBinding<?>> getParams() {
-        return this.params != null ? Collections.unmodifiableSet(new HashSet<>(this.params.values())) : Collections.emptySet();
+        if (this.params == null)
+            return Collections.emptySet();
+        final HashSet<ParamBinding<?>> bindings = new HashSet<>(this.params.length * 2);
+        for (Node<Parameter<?>, ParamBinding<?>> param = this.params; param != null; param = param.next)
+            bindings.add(param.value);
+        return Collections.unmodifiableSet(bindings);
     }
     public <T> QueryInfo withParam(Parameter<T> parameter, T value) {
-        return this.withParams(Collections.singleton(new ParamBinding<T>(parameter, value)));
+        return this.withParam(new ParamBinding<T>(parameter, value));
     }
     public QueryInfo withParam(Parameter<Date> parameter, Date value, TemporalType temporalType) {
-        return this.withParams(Collections.singleton(new DateParamBinding(parameter, value, temporalType)));
+        return this.withParam(new DateParamBinding(parameter, value, temporalType));
     }
     public QueryInfo withParam(Parameter<Calendar> parameter, Calendar value, TemporalType temporalType) {
-        return this.withParams(Collections.singleton(new CalendarParamBinding(parameter, value, temporalType)));
+        return this.withParam(new CalendarParamBinding(parameter, value, temporalType));
     }
     public QueryInfo withParam(ParamBinding<?> binding) {
-        return this.withParams(Collections.singleton(binding));
+        if (binding == null)
+            throw new IllegalArgumentException("null param binding");
+        final QueryInfo info = new QueryInfo(this);
+        info.params = new Node<>(binding.getParameter(), binding,
+          Node.without(this.params, Collections.singleton(binding.getParameter())));
+        return info;
     }
     public QueryInfo withParams(Iterable<? extends ParamBinding<?>> moreParams0) {
         if (moreParams0 == null)
@@ -218,13 +307,195 @@ class QueryInfo {
                 throw new IllegalArgumentException("null param binding");
             moreParams.add(param);
         }
-        if (moreParams.stream().map(ParamBinding::getParameter).collect(Collectors.toSet()).size() < moreParams.size())
+        final Set<Parameter<?>> parameters = moreParams.stream().map(ParamBinding::getParameter).collect(Collectors.toSet());
+        if (parameters.size() < moreParams.size())
             throw new IllegalArgumentException("duplicated parameter");
-        final HashMap<Parameter<?>, ParamBinding<?>> newParams
-          = new HashMap<>((this.params != null ? this.params.size() : 0) + moreParams.size());
-        if (this.params != null)
-            newParams.putAll(this.params);
-        moreParams.forEach(binding -> newParams.put(binding.getParameter(), binding));
-        return new QueryInfo(this.firstResult, this.maxResults, this.flushMode, this.lockMode, this.hints, newParams);
+        Node<Parameter<?>, ParamBinding<?>> newParams = Node.without(this.params, parameters);
+        for (ParamBinding<?> binding : moreParams)
+            newParams = new Node<>(binding.getParameter(), binding, newParams);
+        final QueryInfo info = new QueryInfo(this);
+        info.params = newParams;
+        return info;
+    }
+
+// Listener
+
+    public QueryStreamListener getListener() {
+        return this.listener;
+    }
+    public QueryInfo withListener(final QueryStreamListener newListener) {
+        if (newListener == this.listener)
+            return this;
+        final QueryInfo info = new QueryInfo(this);
+        info.listener = newListener;
+        return info;
+    }
+
+// Cache
+
+    public QueryCache getCache() {
+        return this.cache;
+    }
+    public QueryInfo withCache(final QueryCache newCache) {
+        if (newCache == this.cache)
+            return this;
+        final QueryInfo info = new QueryInfo(this);
+        info.cache = newCache;
+        return info;
+    }
+
+    public Duration getCacheTtl() {
+        return this.cacheTtl;
+    }
+    public QueryInfo withCacheTtl(final Duration newCacheTtl) {
+        if (Objects.equals(newCacheTtl, this.cacheTtl))
+            return this;
+        final QueryInfo info = new QueryInfo(this);
+        info.cacheTtl = newCacheTtl;
+        return info;
+    }
+
+// Detach
+
+    public boolean isDetach() {
+        return this.detach;
+    }
+    public QueryInfo withDetach(final boolean newDetach) {
+        if (newDetach == this.detach)
+            return this;
+        final QueryInfo info = new QueryInfo(this);
+        info.detach = newDetach;
+        return info;
+    }
+
+// Batch fetches
+
+    public List<BatchFetch> getBatchFetches() {
+        return this.batchFetches;
+    }
+    public QueryInfo withBatchFetch(BatchFetch batchFetch) {
+        if (batchFetch == null)
+            throw new IllegalArgumentException("null batchFetch");
+        final ArrayList<BatchFetch> newBatchFetches = new ArrayList<>(this.batchFetches.size() + 1);
+        newBatchFetches.addAll(this.batchFetches);
+        newBatchFetches.add(batchFetch);
+        final QueryInfo info = new QueryInfo(this);
+        info.batchFetches = Collections.unmodifiableList(newBatchFetches);
+        return info;
+    }
+    public QueryInfo withoutBatchFetches() {
+        if (this.batchFetches.isEmpty())
+            return this;
+        final QueryInfo info = new QueryInfo(this);
+        info.batchFetches = Collections.emptyList();
+        return info;
+    }
+
+// Timeout
+
+    public Duration getTimeout() {
+        return this.timeout;
+    }
+    public QueryInfo withTimeout(final Duration newTimeout) {
+        if (newTimeout != null && (newTimeout.isNegative() || newTimeout.isZero()))
+            throw new IllegalArgumentException("non-positive timeout");
+        if (Objects.equals(newTimeout, this.timeout))
+            return this;
+        final QueryInfo info = new QueryInfo(this);
+        info.timeout = newTimeout;
+        return info;
+    }
+
+// Cancellation
+
+    public CancellationToken getCancellation() {
+        return this.cancellation;
+    }
+    public QueryInfo withCancellation(final CancellationToken newCancellation) {
+        if (newCancellation == this.cancellation)
+            return this;
+        final QueryInfo info = new QueryInfo(this);
+        info.cancellation = newCancellation;
+        return info;
+    }
+
+// Node
+
+    /**
+     * One entry in a persistent linked list of key/value pairs, most recent entry first, with at most one entry per key.
+     *
+     * <p>
+     * Instances are immutable; lists may share tails.
+     */
+    private static final class Node<K, V> {
+
+        // Beyond this many key comparisons, merging builds a hash index instead of searching linearly
+        static final int MAX_LINEAR_SEARCH = 64;
+
+        final K key;
+        final V value;
+        final Node<K, V> next;
+        final int length;
+
+        Node(K key, V value, Node<K, V> next) {
+            this.key = key;
+            this.value = value;
+            this.next = next;
+            this.length = next != null ? next.length + 1 : 1;
+        }
+
+        // Find the entry for the given key, if any
+        Node<K, V> find(K key) {
+            for (Node<K, V> node = this; node != null; node = node.next) {
+                if (node.key.equals(key))
+                    return node;
+            }
+            return null;
+        }
+
+        // Index the entries in this list by key
+        Map<K, Node<K, V>> index() {
+            final HashMap<K, Node<K, V>> map = new HashMap<>(this.length * 2);
+            for (Node<K, V> node = this; node != null; node = node.next)
+                map.put(node.key, node);
+            return map;
+        }
+
+        Map<K, V> toMap() {
+            final HashMap<K, V> map = new HashMap<>(this.length * 2);
+            for (Node<K, V> node = this; node != null; node = node.next)
+                map.put(node.key, node.value);
+            return map;
+        }
+
+        // Remove any entries for the given keys from the given list (which may be null), copying only the entries
+        // that precede the last one removed and sharing the rest
+        static <K, V> Node<K, V> without(Node<K, V> list, Set<?> keys) {
+
+            // Find the last entry to remove, stopping early once every key has been found
+            Node<K, V> last = null;
+            int remaining = keys.size();
+            for (Node<K, V> node = list; node != null && remaining > 0; node = node.next) {
+                if (keys.contains(node.key)) {
+                    last = node;
+                    remaining--;
+                }
+            }
+            if (last == null)
+                return list;
+
+            // Copy the preceding entries that are not removed onto the shared tail
+            final ArrayList<Node<K, V>> kept = new ArrayList<>();
+            for (Node<K, V> node = list; node != last; node = node.next) {
+                if (!keys.contains(node.key))
+                    kept.add(node);
+            }
+            Node<K, V> result = last.next;
+            for (int i = kept.size() - 1; i >= 0; i--) {
+                final Node<K, V> node = kept.get(i);
+                result = new Node<>(node.key, node.value, result);
+            }
+            return result;
+        }
     }
 }
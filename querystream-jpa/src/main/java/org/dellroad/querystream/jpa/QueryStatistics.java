@@ -0,0 +1,364 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * {@link QueryStreamListener} that aggregates query executions into in-memory histograms.
+ *
+ * <p>
+ * Executions are grouped by a key computed from each {@link QueryExecution}; by default, the key is a string combining
+ * the query type (search, update, or delete), the query's result or target type, and the operation, for example,
+ * {@code "SearchType<com.example.Employee>.getResultList()"}. A custom key function can be provided to the constructor.
+ *
+ * <p>
+ * Durations are recorded in histograms having power-of-two nanosecond buckets, so reported percentiles are
+ * accurate to within a factor of two. Instances are thread safe.
+ *
+ * <p>
+ * Example:
+ * <pre>
+ *  QueryStatistics stats = new QueryStatistics();
+ *  QueryStream.Builder qb = QueryStream.newBuilder(entityManager).withListener(stats);
+ *  ...
+ *  stats.getEntries().forEach((key, entry) -&gt;
+ *      log.info("{}: {} queries, p99 execution time {}", key, entry.getCount(), entry.getExecutionTimes().getPercentile(99));
+ * </pre>
+ */
+public class QueryStatistics implements QueryStreamListener {
+
+    private final Function<? super QueryExecution, ?> keyFunction;
+    private final ConcurrentHashMap<Object, Recorder> recorders = new ConcurrentHashMap<>();
+
+// Constructors
+
+    /**
+     * Constructor.
+     *
+     * <p>
+     * Executions will be grouped by query type, result or target type, and operation.
+     */
+    public QueryStatistics() {
+        this(QueryStatistics::defaultKey);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param keyFunction function mapping each execution to the key under which it is aggregated
+     * @throws IllegalArgumentException if {@code keyFunction} is null
+     */
+    public QueryStatistics(Function<? super QueryExecution, ?> keyFunction) {
+        if (keyFunction == null)
+            throw new IllegalArgumentException("null keyFunction");
+        this.keyFunction = keyFunction;
+    }
+
+// QueryStreamListener
+
+    @Override
+    public void queryExecuted(QueryExecution execution) {
+        if (execution == null)
+            throw new IllegalArgumentException("null execution");
+        this.recorders.computeIfAbsent(this.keyFunction.apply(execution), key -> new Recorder()).record(execution);
+    }
+
+// Access
+
+    /**
+     * Get a snapshot of the statistics gathered so far.
+     *
+     * @return unmodifiable mapping from key to statistics
+     */
+    public Map<Object, Entry> getEntries() {
+        final LinkedHashMap<Object, Entry> map = new LinkedHashMap<>();
+        this.recorders.forEach((key, recorder) -> map.put(key, recorder.snapshot()));
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Discard all statistics gathered so far.
+     */
+    public void reset() {
+        this.recorders.clear();
+    }
+
+    private static String defaultKey(QueryExecution execution) {
+        return execution.getQueryType().getClass().getSimpleName()
+          + "<" + execution.getQueryType().getType().getName() + ">." + execution.getOperation();
+    }
+
+// Object
+
+    @Override
+    public String toString() {
+        final StringBuilder buf = new StringBuilder();
+        this.getEntries().forEach((key, entry) -> buf.append(key).append(": ").append(entry).append('\n'));
+        return buf.toString();
+    }
+
+// Entry
+
+    /**
+     * Statistics for the query executions associated with one key.
+     *
+     * <p>
+     * Instances are immutable.
+     */
+    public static final class Entry {
+
+        private final long count;
+        private final long failureCount;
+        private final long cacheHitCount;
+        private final long rowCount;
+        private final Histogram buildTimes;
+        private final Histogram createTimes;
+        private final Histogram executionTimes;
+
+        Entry(long count, long failureCount, long cacheHitCount, long rowCount,
+          Histogram buildTimes, Histogram createTimes, Histogram executionTimes) {
+            this.count = count;
+            this.failureCount = failureCount;
+            this.cacheHitCount = cacheHitCount;
+            this.rowCount = rowCount;
+            this.buildTimes = buildTimes;
+            this.createTimes = createTimes;
+            this.executionTimes = executionTimes;
+        }
+
+        /**
+         * Get the number of query executions.
+         *
+         * @return execution count
+         */
+        public long getCount() {
+            return this.count;
+        }
+
+        /**
+         * Get the number of query executions that threw an exception.
+         *
+         * @return failed execution count
+         */
+        public long getFailureCount() {
+            return this.failureCount;
+        }
+
+        /**
+         * Get the number of query executions whose result was found in a {@link QueryCache}.
+         *
+         * @return cache hit count
+         * @see QueryExecution#isCacheHit
+         */
+        public long getCacheHitCount() {
+            return this.cacheHitCount;
+        }
+
+        /**
+         * Get the total number of rows returned or affected, over all executions for which the row count was known.
+         *
+         * @return total row count
+         */
+        public long getRowCount() {
+            return this.rowCount;
+        }
+
+        /**
+         * Get the distribution of criteria query build times.
+         *
+         * @return build time histogram
+         * @see QueryExecution#getBuildTime
+         */
+        public Histogram getBuildTimes() {
+            return this.buildTimes;
+        }
+
+        /**
+         * Get the distribution of JPA query creation times.
+         *
+         * @return creation time histogram
+         * @see QueryExecution#getCreateTime
+         */
+        public Histogram getCreateTimes() {
+            return this.createTimes;
+        }
+
+        /**
+         * Get the distribution of query execution times.
+         *
+         * @return execution time histogram
+         * @see QueryExecution#getExecutionTime
+         */
+        public Histogram getExecutionTimes() {
+            return this.executionTimes;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + this.count
+              + ",failures=" + this.failureCount
+              + ",cacheHits=" + this.cacheHitCount
+              + ",rows=" + this.rowCount
+              + ",build=" + this.buildTimes
+              + ",create=" + this.createTimes
+              + ",execute=" + this.executionTimes;
+        }
+    }
+
+// Histogram
+
+    /**
+     * A distribution of durations.
+     *
+     * <p>
+     * Instances are immutable.
+     */
+    public static final class Histogram {
+
+        private final long[] buckets;           // bucket i counts durations d with 2^(i-1) <= d < 2^i nanoseconds
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        Histogram(long[] buckets, long totalNanos, long maxNanos) {
+            long total = 0;
+            for (long bucket : buckets)
+                total += bucket;
+            this.buckets = buckets;
+            this.count = total;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        /**
+         * Get the number of durations recorded.
+         *
+         * @return sample count
+         */
+        public long getCount() {
+            return this.count;
+        }
+
+        /**
+         * Get the sum of all durations recorded.
+         *
+         * @return total duration
+         */
+        public Duration getTotal() {
+            return Duration.ofNanos(this.totalNanos);
+        }
+
+        /**
+         * Get the mean duration.
+         *
+         * @return mean duration, or zero if no durations have been recorded
+         */
+        public Duration getMean() {
+            return this.count > 0 ? Duration.ofNanos(this.totalNanos / this.count) : Duration.ZERO;
+        }
+
+        /**
+         * Get the maximum duration.
+         *
+         * @return maximum duration, or zero if no durations have been recorded
+         */
+        public Duration getMax() {
+            return Duration.ofNanos(this.maxNanos);
+        }
+
+        /**
+         * Get an upper bound for the given percentile.
+         *
+         * <p>
+         * The returned value is the upper limit of the histogram bucket containing the percentile, or the maximum
+         * duration recorded, whichever is smaller.
+         *
+         * @param percentile percentile between zero and 100 (inclusive)
+         * @return upper bound for the duration at {@code percentile}, or zero if no durations have been recorded
+         * @throws IllegalArgumentException if {@code percentile} is out of range
+         */
+        public Duration getPercentile(double percentile) {
+            if (!(percentile >= 0 && percentile <= 100))
+                throw new IllegalArgumentException("invalid percentile");
+            if (this.count == 0)
+                return Duration.ZERO;
+            final long threshold = Math.max(1, (long)Math.ceil(this.count * percentile / 100.0));
+            long seen = 0;
+            for (int i = 0; i < this.buckets.length; i++) {
+                if ((seen += this.buckets[i]) >= threshold)
+                    return Duration.ofNanos(i < 63 ? Math.min((1L << i) - 1, this.maxNanos) : this.maxNanos);
+            }
+            return Duration.ofNanos(this.maxNanos);
+        }
+
+        @Override
+        public String toString() {
+            return "[mean=" + this.getMean() + ",p50=" + this.getPercentile(50)
+              + ",p99=" + this.getPercentile(99) + ",max=" + this.getMax() + "]";
+        }
+    }
+
+// Recorder
+
+    private static final class Recorder {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder failureCount = new LongAdder();
+        private final LongAdder cacheHitCount = new LongAdder();
+        private final LongAdder rowCount = new LongAdder();
+        private final HistogramRecorder buildTimes = new HistogramRecorder();
+        private final HistogramRecorder createTimes = new HistogramRecorder();
+        private final HistogramRecorder executionTimes = new HistogramRecorder();
+
+        void record(QueryExecution execution) {
+            this.count.increment();
+            if (execution.getFailure() != null)
+                this.failureCount.increment();
+            if (execution.isCacheHit())
+                this.cacheHitCount.increment();
+            if (execution.getRowCount() >= 0)
+                this.rowCount.add(execution.getRowCount());
+            this.buildTimes.record(execution.getBuildTime());
+            this.createTimes.record(execution.getCreateTime());
+            this.executionTimes.record(execution.getExecutionTime());
+        }
+
+        Entry snapshot() {
+            return new Entry(this.count.sum(), this.failureCount.sum(), this.cacheHitCount.sum(), this.rowCount.sum(),
+              this.buildTimes.snapshot(), this.createTimes.snapshot(), this.executionTimes.snapshot());
+        }
+    }
+
+    private static final class HistogramRecorder {
+
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(Duration duration) {
+            final long nanos = Math.max(0, duration.toNanos());
+            this.buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(nanos));
+            this.totalNanos.add(nanos);
+            this.maxNanos.accumulate(nanos);
+        }
+
+        Histogram snapshot() {
+            final long[] array = new long[this.buckets.length()];
+            for (int i = 0; i < array.length; i++)
+                array[i] = this.buckets.get(i);
+            return new Histogram(array, this.totalNanos.sum(), this.maxNanos.get());
+        }
+    }
+}
@@ -22,6 +22,7 @@ import jakarta.persistence.criteria.From;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.ListJoin;
 import jakarta.persistence.criteria.MapJoin;
+import jakarta.persistence.criteria.ParameterExpression;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Selection;
@@ -29,10 +30,15 @@ import jakarta.persistence.criteria.SetJoin;
 import jakarta.persistence.criteria.Subquery;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -98,6 +104,17 @@ public interface QueryStream<X,
      */
     Q toQuery();
 
+    /**
+     * Create a reusable handle to this stream that builds its criteria API query only once.
+     *
+     * <p>
+     * This is useful when the same stream is executed repeatedly with only parameter values changing;
+     * see {@link CompiledQuery} for details.
+     *
+     * @return compiled query handle
+     */
+    CompiledQuery<X, C2, Q> compile();
+
     /**
      * Get the row offset associated with this query.
      *
@@ -274,6 +291,57 @@ public interface QueryStream<X,
      */
     QueryStream<X, S, C, C2, Q> withFetchGraph(String name);
 
+    /**
+     * Get the timeout associated with this query, if any.
+     *
+     * @return configured query timeout, or null for none
+     */
+    Duration getTimeout();
+
+    /**
+     * Configure a timeout for this query.
+     *
+     * <p>
+     * The timeout is applied using the standard {@code jakarta.persistence.query.timeout} hint (in milliseconds),
+     * which JPA providers typically map to {@link java.sql.Statement#setQueryTimeout}, so that the database aborts
+     * a runaway statement. Some providers round the timeout to whole seconds. If the provider or database does not
+     * support query timeouts, the timeout is ignored. If the timeout expires, the provider throws
+     * {@link jakarta.persistence.QueryTimeoutException} or {@link jakarta.persistence.PersistenceException}.
+     *
+     * <p>
+     * The timeout is retained by streams derived from this stream, e.g., via {@link SearchStream#map map()},
+     * and when this stream is used as a subquery, the outer query is given the shorter of the two timeouts.
+     *
+     * @param timeout query timeout, or null to remove any timeout
+     * @return new stream with the specified timeout configured
+     * @throws IllegalArgumentException if {@code timeout} is zero or negative
+     */
+    QueryStream<X, S, C, C2, Q> withTimeout(Duration timeout);
+
+    /**
+     * Get the {@link CancellationToken} associated with this query, if any.
+     *
+     * @return configured cancellation token, or null for none
+     */
+    CancellationToken getCancellation();
+
+    /**
+     * Associate a {@link CancellationToken} with this query.
+     *
+     * <p>
+     * After the token is {@linkplain CancellationToken#cancel cancelled}, queries are no longer executed, result streams
+     * are closed when the next result is requested, and pending asynchronous results are cancelled; see
+     * {@link CancellationToken} for details.
+     *
+     * <p>
+     * The token is retained by streams derived from this stream, e.g., via {@link SearchStream#map map()}.
+     * A token associated with a subquery is ignored.
+     *
+     * @param cancellation cancellation token, or null to remove any token
+     * @return new stream with the specified cancellation token configured
+     */
+    QueryStream<X, S, C, C2, Q> withCancellation(CancellationToken cancellation);
+
 // Refs
 
     /**
@@ -423,17 +491,124 @@ public interface QueryStream<X,
      *  <li>{@link #bindParam bindParam()} - Register a parameter binding with the current {@link Query} under construction.</li>
      *  <li>{@link #getEntityManager} - Get the {@link EntityManager} associated with this instance.</li>
      * </ul>
+     *
+     * <p>
+     * Query executions can be monitored by registering a {@link QueryStreamListener} via {@link #withListener withListener()},
+     * and query results can be cached by registering a {@link QueryCache} via {@link #withCache withCache()}.
+     * Literal values can be automatically replaced by parameters via {@link #withAutoParameters withAutoParameters()}.
      */
     final class Builder extends ForwardingCriteriaBuilder {
 
         private final EntityManager entityManager;
         private final CriteriaBuilder criteriaBuilder;
+        private final QueryStreamListener listener;
+        private final QueryCache cache;
+        private final boolean autoParameters;
 
         private Builder(EntityManager entityManager) {
+            this(entityManager, null, null, false);
+        }
+
+        private Builder(EntityManager entityManager, QueryStreamListener listener, QueryCache cache, boolean autoParameters) {
             if (entityManager == null)
                 throw new IllegalArgumentException("null entityManager");
             this.entityManager = entityManager;
             this.criteriaBuilder = this.entityManager.getCriteriaBuilder();
+            this.listener = listener;
+            this.cache = cache;
+            this.autoParameters = autoParameters;
+        }
+
+        /**
+         * Create a new {@link Builder} like this one but whose streams report query executions to the given listener.
+         *
+         * <p>
+         * The listener is notified of queries executed by streams created by the returned builder, and by streams
+         * derived from those streams. It is not notified of queries executed by streams created by this instance.
+         *
+         * @param listener query execution listener, or null for none
+         * @return new stream builder
+         * @see QueryStatistics
+         */
+        public Builder withListener(QueryStreamListener listener) {
+            return new Builder(this.entityManager, listener, this.cache, this.autoParameters);
+        }
+
+        /**
+         * Get the {@link QueryStreamListener} associated with this instance, if any.
+         *
+         * @return query execution listener, or null if none
+         */
+        public QueryStreamListener getListener() {
+            return this.listener;
+        }
+
+        /**
+         * Create a new {@link Builder} like this one but whose streams use the given {@link QueryCache}.
+         *
+         * <p>
+         * The cache is used by {@link SearchStream}s created by the returned builder (and streams derived from them)
+         * on which {@link SearchStream#cached cached()} has been invoked. The cache is invalidated as needed when
+         * {@link UpdateStream}s and {@link DeleteStream}s created by the returned builder are executed.
+         *
+         * @param cache query result cache, or null for none
+         * @return new stream builder
+         */
+        public Builder withCache(QueryCache cache) {
+            return new Builder(this.entityManager, this.listener, cache, this.autoParameters);
+        }
+
+        /**
+         * Get the {@link QueryCache} associated with this instance, if any.
+         *
+         * @return query result cache, or null if none
+         */
+        public QueryCache getCache() {
+            return this.cache;
+        }
+
+        /**
+         * Create a new {@link Builder} like this one but which automatically replaces literal values with parameters.
+         *
+         * <p>
+         * Normally, a Java value passed to a method like {@link #equal(Expression, Object) equal()} becomes a literal
+         * in the generated SQL, so each distinct value produces a distinct SQL string, which defeats the JPA provider's
+         * query plan cache and the database's prepared statement cache. When auto-parameterization is enabled, the
+         * returned builder instead creates a new {@link ParameterExpression} for each such value and
+         * {@linkplain #bindParam binds} it to the value, so that each query pipeline produces a single SQL string.
+         *
+         * <p>
+         * Auto-parameterization applies to the comparison methods {@link #equal(Expression, Object) equal()},
+         * {@link #notEqual(Expression, Object) notEqual()}, {@link #greaterThan(Expression, Comparable) greaterThan()},
+         * {@link #greaterThanOrEqualTo(Expression, Comparable) greaterThanOrEqualTo()},
+         * {@link #lessThan(Expression, Comparable) lessThan()},
+         * {@link #lessThanOrEqualTo(Expression, Comparable) lessThanOrEqualTo()},
+         * {@link #between(Expression, Comparable, Comparable) between()}, {@link #gt(Expression, Number) gt()},
+         * {@link #ge(Expression, Number) ge()}, {@link #lt(Expression, Number) lt()}, {@link #le(Expression, Number) le()},
+         * {@link #like(Expression, String) like()}, and {@link #notLike(Expression, String) notLike()}.
+         * It only applies while a {@link Query} is being built by a QueryStream query execution method (see
+         * {@link #bindParam bindParam()}); at other times, and for null, {@link Date}, and {@link Calendar} values
+         * (the latter two of which require a {@link TemporalType}), literals are used as usual.
+         *
+         * <p>
+         * Because the automatic parameters replace values that are determined by the stream's configuration functions,
+         * they are not considered when looking up {@linkplain SearchStream#cached cached} results, just like literal values.
+         *
+         * @param autoParameters true to replace literal values with parameters, false to use literals
+         * @return new stream builder
+         */
+        public Builder withAutoParameters(boolean autoParameters) {
+            return new Builder(this.entityManager, this.listener, this.cache, autoParameters);
+        }
+
+        /**
+         * Determine whether this instance automatically replaces literal values with parameters.
+         *
+         * @return true if auto-parameterization is enabled
+         * @see #withAutoParameters withAutoParameters()
+         */
+        public boolean isAutoParameters() {
+            return this.autoParameters;
         }
 
         /**
@@ -455,6 +630,10 @@ public interface QueryStream<X,
             return this.criteriaBuilder;
         }
 
+        private QueryInfo newQueryInfo() {
+            return new QueryInfo().withListener(this.listener).withCache(this.cache);
+        }
+
         /**
          * Create a {@link SearchStream} for search queries.
          *
@@ -464,7 +643,7 @@ public interface QueryStream<X,
          * @throws IllegalArgumentException if {@code type} is null
          */
         public <X> RootStream<X> stream(Class<X> type) {
-            return new RootStreamImpl<>(this.entityManager, type);
+            return new RootStreamImpl<>(this.entityManager, type, this.newQueryInfo());
         }
 
         /**
@@ -636,7 +815,7 @@ public interface QueryStream<X,
          * @throws IllegalArgumentException if {@code type} is null
          */
         public <X> DeleteStream<X> deleteStream(Class<X> type) {
-            return new DeleteStreamImpl<>(this.entityManager, type);
+            return new DeleteStreamImpl<>(this.entityManager, type, this.newQueryInfo());
         }
 
         /**
@@ -648,7 +827,59 @@ public interface QueryStream<X,
          * @throws IllegalArgumentException if {@code type} is null
          */
         public <X> UpdateStream<X> updateStream(Class<X> type) {
-            return new UpdateStreamImpl<>(this.entityManager, type);
+            return new UpdateStreamImpl<>(this.entityManager, type, this.newQueryInfo());
+        }
+
+        /**
+         * Build and evaluate the JPA queries for the given streams concurrently and return their result lists, in order.
+         *
+         * <p>
+         * Equivalent to {@link #executeAll(Executor, List) executeAll}{@code (null, Arrays.asList(streams))}.
+         *
+         * @param streams the streams to query
+         * @return the result list of each stream, in the same order as {@code streams}
+         * @throws IllegalArgumentException if {@code streams} or any element is null
+         * @throws UnsupportedOperationException if any stream has any {@linkplain SearchStream#batchFetch batch fetches}
+         * @see #executeAll(Executor, List)
+         */
+        public List<List<?>> executeAll(SearchStream<?, ?>... streams) {
+            if (streams == null)
+                throw new IllegalArgumentException("null streams");
+            return this.executeAll(null, Arrays.asList(streams));
+        }
+
+        /**
+         * Build and evaluate the JPA queries for the given streams concurrently and return their result lists, in order.
+         *
+         * <p>
+         * This is useful when several independent queries are needed at once: the total time taken is then roughly that
+         * of the slowest query, rather than the sum of them all. Each stream's Criteria API query is built on the calling
+         * thread, so any {@link Ref}s are bound as usual; each query is then executed using its own {@link EntityManager}
+         * created from the {@link jakarta.persistence.EntityManagerFactory} of the stream's {@link EntityManager}.
+         * Therefore, the streams must all be associated with a persistence unit whose connection pool can accommodate
+         * the resulting number of concurrent connections.
+         *
+         * <p>
+         * The same caveats as {@link SearchStream#getResultListAsync(Executor) SearchStream.getResultListAsync()} apply:
+         * the queries are not executed within the current transaction (if any) and therefore do not see uncommitted changes,
+         * and the returned entities are detached.
+         *
+         * <p>
+         * To bound the number of concurrent queries (e.g., to the size of the connection pool), supply an {@code executor}
+         * with a bounded number of threads. If {@code executor} is null, a temporary thread pool with one thread per stream,
+         * but no more than eight threads, is used.
+         *
+         * <p>
+         * If any query fails, the exception thrown by the first such query (in stream order) is rethrown.
+         *
+         * @param executor executor for querying the streams, or null to use a temporary thread pool
+         * @param streams the streams to query
+         * @return the result list of each stream, in the same order as {@code streams}
+         * @throws IllegalArgumentException if {@code streams} or any element is null
+         * @throws UnsupportedOperationException if any stream has any {@linkplain SearchStream#batchFetch batch fetches}
+         */
+        public List<List<?>> executeAll(Executor executor, List<? extends SearchStream<?, ?>> streams) {
+            return ParallelSearch.executeAll(streams, executor);
         }
 
         /**
@@ -775,5 +1006,145 @@ public interface QueryStream<X,
         public void bindParam(ParamBinding<?> binding) {
             QueryStreamImpl.bindParam(binding, true);
         }
+
+        /**
+         * Create a predicate testing whether an expression is a member of a collection of values, padding the
+         * {@code IN} list so that SQL strings are more likely to be reused.
+         *
+         * <p>
+         * Each distinct number of {@code IN} list elements produces a distinct SQL string, which defeats the JPA
+         * provider's query plan cache and the database's prepared statement cache. This method pads the list of
+         * distinct values, by repeating the last value, up to the next power of two, so that collections of many
+         * different sizes share only a few SQL strings. While a {@link Query} is being built (see
+         * {@link #bindParam bindParam()}), the values are bound as parameters, unless any value is null or is
+         * a {@link Date} or {@link Calendar}; otherwise, literals are used.
+         *
+         * <p>
+         * If {@code values} is empty, a predicate that is always false is returned.
+         *
+         * <p>
+         * For very large collections, see {@link SearchStream#getResultListChunked SearchStream.getResultListChunked()}.
+         *
+         * @param expr expression to test
+         * @param values values to match
+         * @param <T> value type
+         * @return {@code IN} predicate
+         * @throws IllegalArgumentException if {@code expr} or {@code values} is null
+         */
+        public <T> Predicate inPadded(Expression<? extends T> expr, Collection<? extends T> values) {
+            return InLists.padded(this.criteriaBuilder, expr, values);
+        }
+
+        @Override
+        public Predicate equal(Expression<?> x, Object y) {
+            final Expression<?> param = this.autoParam(x, y);
+            return param != null ? super.equal(x, param) : super.equal(x, y);
+        }
+
+        @Override
+        public Predicate notEqual(Expression<?> x, Object y) {
+            final Expression<?> param = this.autoParam(x, y);
+            return param != null ? super.notEqual(x, param) : super.notEqual(x, y);
+        }
+
+        @Override
+        public <Y extends Comparable<? super Y>> Predicate greaterThan(Expression<? extends Y> x, Y y) {
+            final Expression<Y> param = this.autoParam(x, y);
+            return param != null ? super.greaterThan(x, param) : super.greaterThan(x, y);
+        }
+
+        @Override
+        public <Y extends Comparable<? super Y>> Predicate greaterThanOrEqualTo(Expression<? extends Y> x, Y y) {
+            final Expression<Y> param = this.autoParam(x, y);
+            return param != null ? super.greaterThanOrEqualTo(x, param) : super.greaterThanOrEqualTo(x, y);
+        }
+
+        @Override
+        public <Y extends Comparable<? super Y>> Predicate lessThan(Expression<? extends Y> x, Y y) {
+            final Expression<Y> param = this.autoParam(x, y);
+            return param != null ? super.lessThan(x, param) : super.lessThan(x, y);
+        }
+
+        @Override
+        public <Y extends Comparable<? super Y>> Predicate lessThanOrEqualTo(Expression<? extends Y> x, Y y) {
+            final Expression<Y> param = this.autoParam(x, y);
+            return param != null ? super.lessThanOrEqualTo(x, param) : super.lessThanOrEqualTo(x, y);
+        }
+
+        @Override
+        public <Y extends Comparable<? super Y>> Predicate between(Expression<? extends Y> expr, Y lo, Y hi) {
+            if (lo == null || hi == null)
+                return super.between(expr, lo, hi);
+            final Expression<Y> loParam = this.autoParam(expr, lo);
+            final Expression<Y> hiParam = this.autoParam(expr, hi);
+            return loParam != null ? super.between(expr, loParam, hiParam) : super.between(expr, lo, hi);
+        }
+
+        @Override
+        public Predicate gt(Expression<? extends Number> x, Number y) {
+            final Expression<Number> param = this.autoParam(x, y);
+            return param != null ? super.gt(x, param) : super.gt(x, y);
+        }
+
+        @Override
+        public Predicate ge(Expression<? extends Number> x, Number y) {
+            final Expression<Number> param = this.autoParam(x, y);
+            return param != null ? super.ge(x, param) : super.ge(x, y);
+        }
+
+        @Override
+        public Predicate lt(Expression<? extends Number> x, Number y) {
+            final Expression<Number> param = this.autoParam(x, y);
+            return param != null ? super.lt(x, param) : super.lt(x, y);
+        }
+
+        @Override
+        public Predicate le(Expression<? extends Number> x, Number y) {
+            final Expression<Number> param = this.autoParam(x, y);
+            return param != null ? super.le(x, param) : super.le(x, y);
+        }
+
+        @Override
+        public Predicate like(Expression<String> x, String y) {
+            final Expression<String> param = this.autoParam(x, y);
+            return param != null ? super.like(x, param) : super.like(x, y);
+        }
+
+        @Override
+        public Predicate like(Expression<String> x, String y, Expression<Character> esc) {
+            final Expression<String> param = this.autoParam(x, y);
+            return param != null ? super.like(x, param, esc) : super.like(x, y, esc);
+        }
+
+        @Override
+        public Predicate like(Expression<String> x, String y, char esc) {
+            final Expression<String> param = this.autoParam(x, y);
+            return param != null ? super.like(x, param, esc) : super.like(x, y, esc);
+        }
+
+        @Override
+        public Predicate notLike(Expression<String> x, String y) {
+            final Expression<String> param = this.autoParam(x, y);
+            return param != null ? super.notLike(x, param) : super.notLike(x, y);
+        }
+
+        @Override
+        public Predicate notLike(Expression<String> x, String y, Expression<Character> esc) {
+            final Expression<String> param = this.autoParam(x, y);
+            return param != null ? super.notLike(x, param, esc) : super.notLike(x, y, esc);
+        }
+
+        @Override
+        public Predicate notLike(Expression<String> x, String y, char esc) {
+            final Expression<String> param = this.autoParam(x, y);
+            return param != null ? super.notLike(x, param, esc) : super.notLike(x, y, esc);
+        }
+
+        // Replace the given value compared against the given expression with a bound parameter, or return null to use a literal
+        private <T> Expression<T> autoParam(Expression<?> expr, T value) {
+            if (!this.autoParameters || !AutoParamBinding.isParameterizable(value))
+                return null;
+            return AutoParamBinding.bind(this.criteriaBuilder, expr, value);
+        }
     }
 }
@@ -6,6 +6,8 @@
 package org.dellroad.querystream.jpa;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
 import jakarta.persistence.FlushModeType;
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.Parameter;
@@ -17,18 +19,32 @@ import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.EntityType;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.dellroad.querystream.jpa.querytype.QueryType;
+import org.dellroad.querystream.jpa.querytype.SearchType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,11 +65,10 @@ abstract class QueryStreamImpl<X,
   Q extends Query,
   QT extends QueryType<X, C, C2, Q>> implements QueryStream<X, S, C, C2, Q> {
 
-    private static final ThreadLocal<QueryInfo> THREAD_QUERY_INFO = new ThreadLocal<>();        // current Query info
-    private static final ThreadLocal<CurrentQuery> THREAD_CURRENT_QUERY = new ThreadLocal<>();  // current CriteriaQuery info
+    private static final ThreadLocal<BuildContext> THREAD_BUILD_CONTEXT = new ThreadLocal<>();  // current build, if any
 
-    private static final String LOAD_GRAPH_HINT = "jakarta.persistence.loadgraph";
-    private static final String FETCH_GRAPH_HINT = "jakarta.persistence.fetchgraph";
+    static final String LOAD_GRAPH_HINT = "jakarta.persistence.loadgraph";
+    static final String FETCH_GRAPH_HINT = "jakarta.persistence.fetchgraph";
 
     protected final Logger log = LoggerFactory.getLogger(this.getClass());
 
@@ -123,6 +138,18 @@ abstract class QueryStreamImpl<X,
         return this.create(this.entityManager, this.queryType, this.configurer, queryInfo);
     }
 
+    /**
+     * Wrap a {@link QueryConfigurer} whose query is derived from this instance's by a fixed operation, so that
+     * a {@link QueryCache} treats all configurers derived from this instance by that operation as equivalent.
+     *
+     * @param derivation name of the deriving operation; it must fully determine the derived query
+     * @param configurer derived query configuration
+     */
+    <C3 extends CommonAbstractCriteria, X3, S3 extends Selection<X3>> QueryConfigurer<C3, X3, S3> derive(
+      String derivation, QueryConfigurer<C3, X3, ? extends S3> configurer) {
+        return new DerivedConfigurer<>(this.configurer, derivation, configurer);
+    }
+
 // Subclass required methods
 
     /**
@@ -160,27 +187,303 @@ abstract class QueryStreamImpl<X,
 
     @Override
     public C2 toCriteriaQuery() {
+        final BuildContext context = THREAD_BUILD_CONTEXT.get();
+        if (context != null)
+            return this.toCriteriaQuery(context);
+        return QueryStreamImpl.withBuildContext(new BuildContext(null), newContext -> this.toCriteriaQuery(newContext));
+    }
+
+    C2 toCriteriaQuery(BuildContext context) {
         final CriteriaBuilder builder = this.entityManager.getCriteriaBuilder();
         final C2 query = this.queryType.createCriteriaQuery(builder);
-        return QueryStreamImpl.withCurrentQuery(builder, query, () -> this.select(query, this.configure(builder, query)));
+        return context.withCurrentQuery(builder, query, () -> this.select(query, this.configure(builder, query)));
     }
 
     @Override
     public Q toQuery() {
+        return this.build((criteria, mergedInfo) -> {
+            final Q query = this.queryType.createQuery(this.entityManager, criteria);
+            mergedInfo.applyTo(query);                              // apply merged QueryInfo configuration to the query
+            return query;
+        });
+    }
+
+    /**
+     * Build the criteria API query and the merged {@link QueryInfo} that should be applied to the resulting {@link Query}.
+     *
+     * @param finisher receives the criteria API query and the {@link QueryInfo} merged from it and all subqueries
+     */
+    <T> T build(BiFunction<? super C2, ? super QueryInfo, ? extends T> finisher) {
 
         // Create a merged QueryInfo object into which we can merge this and all subquery QueryInfo's
-        final QueryInfo previous = THREAD_QUERY_INFO.get();
-        THREAD_QUERY_INFO.set(this.queryInfo);
-        final Q query;
+        return QueryStreamImpl.withBuildContext(new BuildContext(this.queryInfo), context -> {
+            final C2 criteria = this.toCriteriaQuery(context);
+            return finisher.apply(criteria, context.getQueryInfo());
+        });
+    }
+
+    /**
+     * Build and execute the JPA query, using the {@link QueryCache} and reporting to the {@link QueryStreamListener}, if any.
+     *
+     * @param operation name of the executing method, for reporting purposes and cache lookups
+     * @param executor executes the query
+     * @param rowCounter determines the row count from the query result, or returns -1 if unknown
+     */
+    <R> R execute(String operation, Function<? super Q, ? extends R> executor, ToLongFunction<? super R> rowCounter) {
+        final CancellationToken cancellation = this.queryInfo.getCancellation();
+        if (cancellation != null)
+            cancellation.checkCancelled();
+        final QueryStreamListener listener = this.queryInfo.getListener();
+        final QueryCache cache = this.queryInfo.getCache();
+        final Duration cacheTtl = cache != null ? this.queryInfo.getCacheTtl() : null;
+        final R result = listener == null && cacheTtl == null ?
+          executor.apply(this.toQuery()) : this.execute(operation, executor, rowCounter, listener, cache, cacheTtl);
+
+        // Bulk updates and deletes can change cached results
+        if (cache != null && !(this.queryType instanceof SearchType))
+            cache.invalidate(this.queryType.getType());
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> R execute(String operation, Function<? super Q, ? extends R> executor, ToLongFunction<? super R> rowCounter,
+      QueryStreamListener listener, QueryCache cache, Duration cacheTtl) {
+
+        // Build the query, checking the cache (if any) before asking the JPA provider to create the query
+        final long startTime = System.nanoTime();
+        final Prepared<Q> prepared = this.build((criteria, mergedInfo) -> {
+            final Prepared<Q> info = new Prepared<>();
+            info.buildNanos = System.nanoTime() - startTime;
+            if (cacheTtl != null && mergedInfo.getLockMode() == null) {
+                info.cacheKey = cache.newKey(this.configurer, operation, mergedInfo);
+                info.cacheEntry = cache.get(info.cacheKey);
+                if (info.cacheEntry != null)
+                    return info;
+                info.cacheGeneration = cache.getGeneration();
+                info.queriedTypes = QueryCache.getQueriedTypes(QueryStreamImpl.getBuildContext().getQueries());
+            }
+            info.query = this.queryType.createQuery(this.entityManager, criteria);
+            mergedInfo.applyTo(info.query);
+            info.createNanos = System.nanoTime() - startTime - info.buildNanos;
+            return info;
+        });
+
+        // Handle cache hit
+        if (prepared.cacheEntry != null) {
+            final R result = (R)prepared.cacheEntry.getValue();
+            if (listener != null) {
+                this.notifyListener(listener, new QueryExecution(this.queryType, operation,
+                  prepared.buildNanos, 0, 0, rowCounter.applyAsLong(result), null, true));
+            }
+            return result;
+        }
+
+        // Execute query
+        final long executeStartTime = System.nanoTime();
+        R result;
         try {
-            query = this.queryType.createQuery(this.entityManager, this.toCriteriaQuery());
-            THREAD_QUERY_INFO.get().applyTo(query);                 // apply merged QueryInfo configuration to the query
-            return query;
-        } finally {
-            THREAD_QUERY_INFO.set(previous);
+            result = executor.apply(prepared.query);
+        } catch (RuntimeException e) {
+            if (listener != null) {
+                this.notifyListener(listener, new QueryExecution(this.queryType, operation,
+                  prepared.buildNanos, prepared.createNanos, System.nanoTime() - executeStartTime, -1, e, false));
+            }
+            throw e;
+        }
+        final long executeNanos = System.nanoTime() - executeStartTime;
+
+        // Cache result
+        if (prepared.cacheKey != null) {
+            if (result instanceof List)
+                result = (R)Collections.unmodifiableList(new ArrayList<>((List<?>)result));
+            cache.put(prepared.cacheKey, result, prepared.queriedTypes, cacheTtl, prepared.cacheGeneration);
+        }
+
+        // Report execution
+        if (listener != null) {
+            this.notifyListener(listener, new QueryExecution(this.queryType, operation,
+              prepared.buildNanos, prepared.createNanos, executeNanos, rowCounter.applyAsLong(result), null, false));
+        }
+        return result;
+    }
+
+    // Wrap the given result stream so that it observes the stream's cancellation token, if any
+    static <X> Stream<X> observeCancellation(QueryStream<?, ?, ?, ?, ?> stream, Stream<X> results) {
+        final CancellationToken cancellation = QueryInfo.of(stream).getCancellation();
+        return cancellation != null ? cancellation.observe(results) : results;
+    }
+
+    // Like execute() but for use by default interface methods
+    @SuppressWarnings("unchecked")
+    static <Q extends Query, R> R execute(QueryStream<?, ?, ?, ?, Q> stream,
+      String operation, Function<? super Q, ? extends R> executor, ToLongFunction<? super R> rowCounter) {
+        return ((QueryStreamImpl<?, ?, ?, ?, Q, ?>)stream).execute(operation, executor, rowCounter);
+    }
+
+    /**
+     * Build the JPA query on the current thread, then execute it asynchronously using a new {@link EntityManager}.
+     *
+     * <p>
+     * Bulk updates and deletes are executed within a new resource-local transaction, if the {@link EntityManager}
+     * supports them. The {@link QueryCache}, if any, is not consulted, but the {@link QueryStreamListener}, if any,
+     * is notified (from the executing thread).
+     *
+     * <p>
+     * If a {@link CancellationToken} is configured, the returned future is cancelled along with the token,
+     * and a bulk update or delete is rolled back if the token is cancelled before it commits.
+     *
+     * @param operation name of the executing method, for reporting purposes
+     * @param asyncExecutor runs the query, or null for the {@link CompletableFuture} default
+     * @param executor executes the query
+     * @param rowCounter determines the row count from the query result, or returns -1 if unknown
+     */
+    <R> CompletableFuture<R> executeAsync(String operation, Executor asyncExecutor,
+      Function<? super Q, ? extends R> executor, ToLongFunction<? super R> rowCounter) {
+
+        // Sanity check
+        this.checkExecuteAsync(operation);
+
+        // Build the criteria API query now, while any Refs are bound
+        final long startTime = System.nanoTime();
+        final CompiledQuery.Compiled<C2> compiled = this.build(CompiledQuery.Compiled::new);
+        return this.executeAsync(operation, compiled, System.nanoTime() - startTime,
+          this.entityManager.getEntityManagerFactory(), asyncExecutor, executor, rowCounter);
+    }
+
+    /**
+     * Verify that this instance's queries can be executed by {@link #executeAsync executeAsync()}.
+     *
+     * @param operation name of the executing method, for reporting purposes
+     * @throws UnsupportedOperationException if this instance has any batch fetches
+     * @throws java.util.concurrent.CancellationException if this instance's {@link CancellationToken} has been cancelled
+     */
+    void checkExecuteAsync(String operation) {
+        if (!this.queryInfo.getBatchFetches().isEmpty())
+            throw new UnsupportedOperationException("sorry, " + operation + " is not supported with batchFetch()");
+        final CancellationToken cancellation = this.queryInfo.getCancellation();
+        if (cancellation != null)
+            cancellation.checkCancelled();
+    }
+
+    /**
+     * Execute an already built query asynchronously using a new {@link EntityManager}, as {@link #executeAsync executeAsync()}.
+     *
+     * <p>
+     * This allows one query to be built once and then executed several times with different parameter bindings.
+     * The caller must first invoke {@link #checkExecuteAsync checkExecuteAsync()}.
+     *
+     * @param operation name of the executing method, for reporting purposes
+     * @param compiled the query built from this instance, with its final {@link QueryInfo}
+     * @param buildNanos time spent building the query, for reporting purposes
+     * @param entityManagerFactory creates the {@link EntityManager} used to execute the query
+     * @param asyncExecutor runs the query, or null for the {@link CompletableFuture} default
+     * @param executor executes the query
+     * @param rowCounter determines the row count from the query result, or returns -1 if unknown
+     */
+    <R> CompletableFuture<R> executeAsync(String operation, CompiledQuery.Compiled<C2> compiled, long buildNanos,
+      EntityManagerFactory entityManagerFactory, Executor asyncExecutor,
+      Function<? super Q, ? extends R> executor, ToLongFunction<? super R> rowCounter) {
+        final CancellationToken cancellation = this.queryInfo.getCancellation();
+        final boolean bulk = !(this.queryType instanceof SearchType);
+        final QueryStreamListener listener = this.queryInfo.getListener();
+        final QueryCache cache = this.queryInfo.getCache();
+
+        // Execute the query using its own EntityManager
+        final Supplier<R> task = () -> {
+            if (cancellation != null)
+                cancellation.checkCancelled();
+            final EntityManager asyncEntityManager = entityManagerFactory.createEntityManager();
+            try {
+                final EntityTransaction tx = bulk ? QueryStreamImpl.getResourceLocalTransaction(asyncEntityManager) : null;
+                if (tx != null)
+                    tx.begin();
+                try {
+                    final long createStartTime = System.nanoTime();
+                    final Q query = this.queryType.createQuery(asyncEntityManager, compiled.criteria);
+                    compiled.queryInfo.applyTo(query);
+                    final long executeStartTime = System.nanoTime();
+                    final R result;
+                    try {
+                        result = executor.apply(query);
+                        if (tx != null) {
+                            if (cancellation != null)
+                                cancellation.checkCancelled();          // roll back instead
+                            tx.commit();
+                        }
+                    } catch (RuntimeException e) {
+                        if (listener != null) {
+                            this.notifyListener(listener, new QueryExecution(this.queryType, operation, buildNanos,
+                              executeStartTime - createStartTime, System.nanoTime() - executeStartTime, -1, e, false));
+                        }
+                        throw e;
+                    }
+                    if (listener != null) {
+                        this.notifyListener(listener, new QueryExecution(this.queryType, operation, buildNanos,
+                          executeStartTime - createStartTime, System.nanoTime() - executeStartTime,
+                          rowCounter.applyAsLong(result), null, false));
+                    }
+
+                    // Bulk updates and deletes can change cached results
+                    if (cache != null && bulk)
+                        cache.invalidate(this.queryType.getType());
+                    return result;
+                } finally {
+                    if (tx != null && tx.isActive())
+                        tx.rollback();
+                }
+            } finally {
+                asyncEntityManager.close();
+            }
+        };
+        final CompletableFuture<R> future = asyncExecutor != null ?
+          CompletableFuture.supplyAsync(task, asyncExecutor) : CompletableFuture.supplyAsync(task);
+        if (cancellation != null) {
+            final Runnable unregister = cancellation.onCancel(() -> future.cancel(false));
+            future.whenComplete((result, e) -> unregister.run());
+        }
+        return future;
+    }
+
+    // Like executeAsync() but for use by default interface methods
+    @SuppressWarnings("unchecked")
+    static <Q extends Query, R> CompletableFuture<R> executeAsync(QueryStream<?, ?, ?, ?, Q> stream, String operation,
+      Executor asyncExecutor, Function<? super Q, ? extends R> executor, ToLongFunction<? super R> rowCounter) {
+        return ((QueryStreamImpl<?, ?, ?, ?, Q, ?>)stream).executeAsync(operation, asyncExecutor, executor, rowCounter);
+    }
+
+    // Get the resource-local transaction of the given EntityManager, or null if it uses JTA transactions
+    private static EntityTransaction getResourceLocalTransaction(EntityManager entityManager) {
+        try {
+            return entityManager.getTransaction();
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private void notifyListener(QueryStreamListener listener, QueryExecution execution) {
+        try {
+            listener.queryExecuted(execution);
+        } catch (RuntimeException e) {
+            this.log.warn("exception from " + listener + " (ignoring)", e);
         }
     }
 
+    // The outcome of building a query in execute()
+    private static final class Prepared<Q> {
+        Q query;                                    // null if result was found in the cache
+        QueryCache.Key cacheKey;                    // null if result should not be cached
+        QueryCache.Entry cacheEntry;                // null unless result was found in the cache
+        Set<Class<?>> queriedTypes;
+        long cacheGeneration;
+        long buildNanos;
+        long createNanos;
+    }
+
+    @Override
+    public CompiledQuery<X, C2, Q> compile() {
+        return new CompiledQuery<>(this.entityManager, this.queryType::createQuery, () -> this.build(CompiledQuery.Compiled::new));
+    }
+
     @Override
     public int getFirstResult() {
         return this.queryInfo.getFirstResult();
@@ -261,6 +564,26 @@ abstract class QueryStreamImpl<X,
         return this.withEntityGraph(FETCH_GRAPH_HINT, name);
     }
 
+    @Override
+    public Duration getTimeout() {
+        return this.queryInfo.getTimeout();
+    }
+
+    @Override
+    public QueryStream<X, S, C, C2, Q> withTimeout(Duration timeout) {
+        return this.withQueryInfo(this.queryInfo.withTimeout(timeout));
+    }
+
+    @Override
+    public CancellationToken getCancellation() {
+        return this.queryInfo.getCancellation();
+    }
+
+    @Override
+    public QueryStream<X, S, C, C2, Q> withCancellation(CancellationToken cancellation) {
+        return this.withQueryInfo(this.queryInfo.withCancellation(cancellation));
+    }
+
     private QueryStream<X, S, C, C2, Q> withEntityGraph(String hintName, String graphName) {
         if (graphName == null)
             throw new IllegalArgumentException("null entity graph name");
@@ -360,15 +683,125 @@ abstract class QueryStreamImpl<X,
           + " information to be configured only on a Query object, not on a CriteriaQuery or Subquery");
     }
 
+// Metamodel
+
+    // Get the identifier attribute of the given entity type, which must have a single identifier attribute
+    static <X> SingularAttribute<? super X, ?> getIdAttribute(EntityManager entityManager, Class<X> type) {
+        final EntityType<X> entityType;
+        try {
+            entityType = entityManager.getMetamodel().entity(type);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(type.getName() + " is not an entity type", e);
+        }
+        if (!entityType.hasSingleIdAttribute())
+            throw new IllegalArgumentException("entity type " + type.getName() + " does not have a single identifier attribute");
+        return entityType.getId(entityType.getIdType().getJavaType());
+    }
+
+    static boolean isNumeric(Class<?> type) {
+        return type.isPrimitive() ? type != boolean.class && type != char.class : Number.class.isAssignableFrom(type);
+    }
+
+// Detaching
+
+    // Detach the given query results from the persistence context, if the stream is configured to do so
+    static <X, T extends Iterable<? extends X>> T detachResults(SearchStream<X, ?> stream, T results) {
+        final EntityManager entityManager = QueryStreamImpl.getDetachingEntityManager(stream);
+        if (entityManager != null) {
+            for (X result : results)
+                QueryStreamImpl.detach(entityManager, result);
+        }
+        return results;
+    }
+
+    // Detach the given query result from the persistence context, if the stream is configured to do so
+    static <X> X detachResult(SearchStream<X, ?> stream, X result) {
+        final EntityManager entityManager = QueryStreamImpl.getDetachingEntityManager(stream);
+        if (entityManager != null)
+            QueryStreamImpl.detach(entityManager, result);
+        return result;
+    }
+
+    // Detach each query result from the persistence context after it has been consumed, if the stream is configured to do so
+    static <X> Stream<X> detachResults(SearchStream<X, ?> stream, Stream<X> results) {
+        final EntityManager entityManager = QueryStreamImpl.getDetachingEntityManager(stream);
+        if (entityManager == null)
+            return results;
+        final Spliterator<X> spliterator = results.spliterator();
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<X>(spliterator.estimateSize(),
+          spliterator.characteristics()) {
+            @Override
+            public boolean tryAdvance(Consumer<? super X> action) {
+                return spliterator.tryAdvance(result -> {
+                    action.accept(result);
+                    QueryStreamImpl.detach(entityManager, result);
+                });
+            }
+        }, false).onClose(results::close);
+    }
+
+    private static EntityManager getDetachingEntityManager(SearchStream<?, ?> stream) {
+        if (!QueryInfo.of(stream).isDetach())
+            return null;
+        final EntityManager entityManager = stream.getEntityManager();
+        try {
+            entityManager.getMetamodel().entity(stream.getQueryType().getType());
+        } catch (IllegalArgumentException e) {
+            return null;                                        // not an entity type, so there's nothing to detach
+        }
+        return entityManager;
+    }
+
+    private static void detach(EntityManager entityManager, Object result) {
+        if (result != null && entityManager.contains(result))
+            entityManager.detach(result);
+    }
+
+// Build context
+
+    // Get the context of the build in progress
+    static BuildContext getBuildContext() {
+        final BuildContext context = THREAD_BUILD_CONTEXT.get();
+        if (context == null)
+            throw new IllegalStateException("subquery must be created in the context of a containing query");
+        return context;
+    }
+
+    // Get the context of the build in progress, or null if there is none
+    static BuildContext getBuildContextIfAny() {
+        return THREAD_BUILD_CONTEXT.get();
+    }
+
+    // Determine whether a Query is under construction by the current thread, so that parameters may be bound
+    static boolean isBuildingQuery() {
+        final BuildContext context = THREAD_BUILD_CONTEXT.get();
+        return context != null && context.getQueryInfo() != null;
+    }
+
+    // Make the given context available to code invoked from user-supplied functions while performing the given action
+    static <T> T withBuildContext(BuildContext context, Function<? super BuildContext, T> action) {
+        final BuildContext previous = THREAD_BUILD_CONTEXT.get();
+        THREAD_BUILD_CONTEXT.set(context);
+        try {
+            return action.apply(context);
+        } finally {
+            context.finish();
+            if (previous != null)
+                THREAD_BUILD_CONTEXT.set(previous);
+            else
+                THREAD_BUILD_CONTEXT.remove();                  // don't leave an entry behind in (possibly virtual) threads
+        }
+    }
+
 // QueryInfo Merging
 
     // Merge the QueryInfo information from a subquery into the "global" QueryInfo we will use for the outermost query
     static void mergeQueryInfo(QueryInfo innerQueryInfo, boolean requireQuery) {
-        if (innerQueryInfo == null)
+        final BuildContext context = THREAD_BUILD_CONTEXT.get();
+        if (context != null)
+            context.mergeQueryInfo(innerQueryInfo, requireQuery);
+        else if (innerQueryInfo == null)
             throw new IllegalArgumentException("null innerQueryInfo");
-        final QueryInfo outerQueryInfo = THREAD_QUERY_INFO.get();
-        if (outerQueryInfo != null)
-            THREAD_QUERY_INFO.set(outerQueryInfo.withMergedInfo(innerQueryInfo));
         else if (requireQuery)
             throw new IllegalStateException("there is no Query currently under construction");
     }
@@ -381,22 +814,6 @@ abstract class QueryStreamImpl<X,
 // CurrentQuery
 
     static CurrentQuery getCurrentQuery() {
-        final CurrentQuery info = THREAD_CURRENT_QUERY.get();
-        if (info == null)
-            throw new IllegalStateException("subquery must be created in the context of a containing query");
-        return info;
-    }
-
-    static <T> T withCurrentQuery(CriteriaBuilder builder, CommonAbstractCriteria query, Supplier<T> action) {
-        if (action == null)
-            throw new IllegalArgumentException("null action");
-        final CurrentQuery prev = THREAD_CURRENT_QUERY.get();
-        final CurrentQuery info = new CurrentQuery(builder, query);
-        THREAD_CURRENT_QUERY.set(info);
-        try {
-            return action.get();
-        } finally {
-            THREAD_CURRENT_QUERY.set(prev);
-        }
+        return QueryStreamImpl.getBuildContext().getCurrentQuery();
     }
 }
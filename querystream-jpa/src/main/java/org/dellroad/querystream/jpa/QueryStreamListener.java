@@ -0,0 +1,32 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+/**
+ * Callback interface for monitoring the queries executed by {@link QueryStream}s.
+ *
+ * <p>
+ * A listener is registered via {@link QueryStream.Builder#withListener QueryStream.Builder.withListener()} and
+ * is then notified after every query executed via {@link SearchStream#getResultList}, {@link SearchStream#getResultStream},
+ * {@link SearchValue#value}, {@link UpdateStream#update}, or {@link DeleteStream#delete} on any stream created by
+ * that builder, including streams derived from them.
+ *
+ * <p>
+ * Listeners are invoked synchronously in the thread that executed the query, so they should return quickly
+ * and must be thread safe. Any exception thrown by a listener is logged and otherwise ignored.
+ *
+ * @see QueryStatistics
+ */
+@FunctionalInterface
+public interface QueryStreamListener {
+
+    /**
+     * Receive notification that a query has been executed.
+     *
+     * @param execution details of the query execution
+     */
+    void queryExecuted(QueryExecution execution);
+}
@@ -15,6 +15,14 @@ import jakarta.persistence.criteria.Selection;
  * via {@link QueryStream#bind QueryStream.bind()}. Once bound, they may be accessed
  * in a subsequent filter predicate, subquery {@link QueryStream}, etc., via {@link #get}.
  *
+ * <p>
+ * When a {@link Ref} is bound during the building of a query, that binding is scoped to that particular build.
+ * Therefore, a stream that binds {@link Ref}s may be executed repeatedly, and may even be shared by multiple threads
+ * and built concurrently; each build sees only its own binding. After a build completes, {@link #get} returns the
+ * value bound by the most recent build, which is useful when building from a single thread, e.g., via
+ * {@link QueryStream#toCriteriaQuery}. Values bound outside of any build (i.e., by invoking {@link #bind bind()}
+ * directly) are visible to all builds until {@link #unbind} is invoked.
+ *
  * @param <X> stream item type
  * @param <S> criteria type for stream item
  */
@@ -17,6 +17,7 @@ import jakarta.persistence.criteria.Selection;
 import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -89,6 +90,12 @@ public interface RootStream<X> extends FromStream<X, Root<X>> {
     @Override
     RootStream<X> having(Function<? super Root<X>, ? extends Expression<Boolean>> havingFunction);
 
+    @Override
+    RootStream<X> seekAfter(Object... sortKeys);
+
+    @Override
+    RootStream<X> seekAfter(SeekCursor cursor);
+
     @Override
     RootValue<X> findAny();
 
@@ -124,6 +131,18 @@ public interface RootStream<X> extends FromStream<X, Root<X>> {
     @Override
     RootStream<X> skip(int num);
 
+    @Override
+    RootStream<X> cached(Duration ttl);
+
+    @Override
+    RootStream<X> readOnly();
+
+    @Override
+    RootStream<X> readOnly(boolean detach);
+
+    @Override
+    RootStream<X> batchFetch(PluralAttribute<? super X, ?, ?> attribute, int batchSize);
+
     @Override
     RootStream<X> withFlushMode(FlushModeType flushMode);
 
@@ -154,6 +173,12 @@ public interface RootStream<X> extends FromStream<X, Root<X>> {
     @Override
     RootStream<X> withFetchGraph(String name);
 
+    @Override
+    RootStream<X> withTimeout(Duration timeout);
+
+    @Override
+    RootStream<X> withCancellation(CancellationToken cancellation);
+
     @Override
     RootStream<X> fetch(SingularAttribute<? super X, ?> attribute);
 
@@ -19,6 +19,7 @@ import jakarta.persistence.criteria.Selection;
 import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -32,13 +33,13 @@ class RootStreamImpl<X> extends FromStreamImpl<X, Root<X>> implements RootStream
 
 // Constructors
 
-    RootStreamImpl(EntityManager entityManager, Class<X> type) {
-        this(entityManager, new SearchType<X>(type));
+    RootStreamImpl(EntityManager entityManager, Class<X> type, QueryInfo queryInfo) {
+        this(entityManager, new SearchType<X>(type), queryInfo);
     }
 
     // Separate constructor to avoid bogus error ("cannot reference queryType before supertype constructor has been called")
-    private RootStreamImpl(EntityManager entityManager, SearchType<X> queryType) {
-        this(entityManager, queryType, (builder, query) -> query.from(queryType.getType()), new QueryInfo());
+    private RootStreamImpl(EntityManager entityManager, SearchType<X> queryType, QueryInfo queryInfo) {
+        this(entityManager, queryType, (builder, query) -> query.from(queryType.getType()), queryInfo);
     }
 
     RootStreamImpl(EntityManager entityManager, SearchType<X> queryType,
@@ -160,6 +161,16 @@ class RootStreamImpl<X> extends FromStreamImpl<X, Root<X>> implements RootStream
         return (RootStream<X>)super.having(havingFunction);
     }
 
+    @Override
+    public RootStream<X> seekAfter(Object... sortKeys) {
+        return (RootStream<X>)super.seekAfter(sortKeys);
+    }
+
+    @Override
+    public RootStream<X> seekAfter(SeekCursor cursor) {
+        return (RootStream<X>)super.seekAfter(cursor);
+    }
+
     @Override
     public RootValue<X> findAny() {
         return (RootValue<X>)super.findAny();
@@ -238,6 +249,26 @@ class RootStreamImpl<X> extends FromStreamImpl<X, Root<X>> implements RootStream
         return (RootStream<X>)super.skip(skip);
     }
 
+    @Override
+    public RootStream<X> cached(Duration ttl) {
+        return (RootStream<X>)super.cached(ttl);
+    }
+
+    @Override
+    public RootStream<X> readOnly() {
+        return (RootStream<X>)super.readOnly();
+    }
+
+    @Override
+    public RootStream<X> readOnly(boolean detach) {
+        return (RootStream<X>)super.readOnly(detach);
+    }
+
+    @Override
+    public RootStream<X> batchFetch(PluralAttribute<? super X, ?, ?> attribute, int batchSize) {
+        return (RootStream<X>)super.batchFetch(attribute, batchSize);
+    }
+
     @Override
     public RootStream<X> withFlushMode(FlushModeType flushMode) {
         return (RootStream<X>)super.withFlushMode(flushMode);
@@ -287,4 +318,14 @@ class RootStreamImpl<X> extends FromStreamImpl<X, Root<X>> implements RootStream
     public RootStream<X> withFetchGraph(String name) {
         return (RootStream<X>)super.withFetchGraph(name);
     }
+
+    @Override
+    public RootStream<X> withTimeout(Duration timeout) {
+        return (RootStream<X>)super.withTimeout(timeout);
+    }
+
+    @Override
+    public RootStream<X> withCancellation(CancellationToken cancellation) {
+        return (RootStream<X>)super.withCancellation(cancellation);
+    }
 }
@@ -12,8 +12,10 @@ import jakarta.persistence.TemporalType;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
@@ -42,6 +44,18 @@ public interface RootValue<X> extends FromValue<X, Root<X>>, RootStream<X> {
     @Override
     RootValue<X> filter(Function<? super Root<X>, ? extends Expression<Boolean>> predicateBuilder);
 
+    @Override
+    RootValue<X> cached(Duration ttl);
+
+    @Override
+    RootValue<X> readOnly();
+
+    @Override
+    RootValue<X> readOnly(boolean detach);
+
+    @Override
+    RootValue<X> batchFetch(PluralAttribute<? super X, ?, ?> attribute, int batchSize);
+
     @Override
     RootValue<X> withFlushMode(FlushModeType flushMode);
 
@@ -71,4 +85,10 @@ public interface RootValue<X> extends FromValue<X, Root<X>>, RootStream<X> {
 
     @Override
     RootValue<X> withFetchGraph(String name);
+
+    @Override
+    RootValue<X> withTimeout(Duration timeout);
+
+    @Override
+    RootValue<X> withCancellation(CancellationToken cancellation);
 }
@@ -14,8 +14,10 @@ import jakarta.persistence.criteria.AbstractQuery;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
@@ -69,6 +71,26 @@ class RootValueImpl<X> extends RootStreamImpl<X> implements RootValue<X> {
         return (RootValue<X>)super.filter(predicateBuilder);
     }
 
+    @Override
+    public RootValue<X> cached(Duration ttl) {
+        return (RootValue<X>)super.cached(ttl);
+    }
+
+    @Override
+    public RootValue<X> readOnly() {
+        return (RootValue<X>)super.readOnly();
+    }
+
+    @Override
+    public RootValue<X> readOnly(boolean detach) {
+        return (RootValue<X>)super.readOnly(detach);
+    }
+
+    @Override
+    public RootValue<X> batchFetch(PluralAttribute<? super X, ?, ?> attribute, int batchSize) {
+        return (RootValue<X>)super.batchFetch(attribute, batchSize);
+    }
+
     @Override
     public RootValue<X> withFlushMode(FlushModeType flushMode) {
         return (RootValue<X>)super.withFlushMode(flushMode);
@@ -118,4 +140,14 @@ class RootValueImpl<X> extends RootStreamImpl<X> implements RootValue<X> {
     public RootValue<X> withFetchGraph(String name) {
         return (RootValue<X>)super.withFetchGraph(name);
     }
+
+    @Override
+    public RootValue<X> withTimeout(Duration timeout) {
+        return (RootValue<X>)super.withTimeout(timeout);
+    }
+
+    @Override
+    public RootValue<X> withCancellation(CancellationToken cancellation) {
+        return (RootValue<X>)super.withCancellation(cancellation);
+    }
 }
@@ -5,6 +5,8 @@
 
 package org.dellroad.querystream.jpa;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.FlushModeType;
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.NonUniqueResultException;
@@ -33,14 +35,19 @@ import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SetAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.dellroad.querystream.jpa.querytype.SearchType;
 
@@ -63,7 +70,8 @@ public interface SearchStream<X, S extends Selection<X>>
      * @see TypedQuery#getResultList
      */
     default List<X> getResultList() {
-        return this.toQuery().getResultList();
+        return QueryStreamImpl.detachResults(this, BatchFetch.fetchAll(this,
+          QueryStreamImpl.execute(this, "getResultList()", TypedQuery::getResultList, List::size)));
     }
 
     /**
@@ -72,11 +80,246 @@ public interface SearchStream<X, S extends Selection<X>>
      * <p>
      * Delegates to {@link TypedQuery#getResultStream} and can throw any exception thrown by that method.
      *
+     * <p>
+     * If this stream is {@linkplain #cached cached}, the result list is retrieved (possibly from the cache) and streamed;
+     * the same is true if this stream has any {@linkplain #batchFetch batch fetches}.
+     *
+     * <p>
+     * If this stream is {@linkplain #readOnly(boolean) read-only with detaching enabled}, each entity is detached
+     * once it has been consumed.
+     *
      * @return result of executed query
      * @see TypedQuery#getResultStream
      */
     default Stream<X> getResultStream() {
-        return this.toQuery().getResultStream();
+        if (QueryInfo.of(this).getCacheTtl() != null || !QueryInfo.of(this).getBatchFetches().isEmpty())
+            return this.getResultList().stream();
+        return QueryStreamImpl.detachResults(this, QueryStreamImpl.observeCancellation(this,
+          QueryStreamImpl.execute(this, "getResultStream()", TypedQuery::getResultStream, resultStream -> -1)));
+    }
+
+    /**
+     * Build and evaluate a series of JPA queries based on this instance that retrieve the results in chunks
+     * and return the results as a single stream.
+     *
+     * <p>
+     * Equivalent to {@link #streamInChunks(int, boolean) streamInChunks}{@code (chunkSize, false)}.
+     *
+     * @param chunkSize maximum number of items to retrieve in each query
+     * @return lazily retrieved results
+     * @throws IllegalArgumentException if {@code chunkSize} is not positive
+     * @see #streamInChunks(int, boolean)
+     */
+    default Stream<X> streamInChunks(int chunkSize) {
+        return this.streamInChunks(chunkSize, false);
+    }
+
+    /**
+     * Build and evaluate a series of JPA queries based on this instance that retrieve the results in chunks
+     * and return the results as a single stream.
+     *
+     * <p>
+     * This is useful when iterating over very large result sets, for which {@link #getResultStream} may require
+     * memory proportional to the number of results (some JPA providers materialize the entire result list).
+     * Each chunk is retrieved lazily, using keyset pagination via {@link #pageAfter pageAfter()}, as the previous
+     * chunk is exhausted. Therefore, this stream must be sorted, and the sort orderings should include some unique key.
+     * Each query is configured with this stream's hints, lock mode, parameters, etc.
+     *
+     * <p>
+     * If {@code detach} is true, the entities in each chunk are {@linkplain EntityManager#detach detached} from the
+     * persistence context once the next chunk is retrieved (and after the last chunk is exhausted), so that memory usage
+     * does not grow with the number of results. In that case, any changes made to those entities while they were managed
+     * should be flushed before they are detached.
+     *
+     * <p>
+     * Because each chunk is retrieved by a separate query, the results will reflect any concurrent changes
+     * unless the chunks are retrieved within a transaction with sufficient isolation.
+     *
+     * @param chunkSize maximum number of items to retrieve in each query
+     * @param detach true to detach each chunk's entities when done with them
+     * @return lazily retrieved results
+     * @throws IllegalArgumentException if {@code chunkSize} is not positive
+     * @throws UnsupportedOperationException if this stream has had {@link #skip skip()} or {@link #limit limit()} applied
+     * @throws IllegalStateException (when retrieving the first chunk) if this stream has no sort orderings
+     * @see #pageAfter pageAfter()
+     */
+    default Stream<X> streamInChunks(int chunkSize, boolean detach) {
+        QueryStreamImpl.checkOffsetLimit(this, "streamInChunks()");
+        return StreamSupport.stream(new ChunkSpliterator<>(this, chunkSize, detach), false);
+    }
+
+    /**
+     * Build and evaluate a JPA query based on this instance by splitting it into partitions that are queried in parallel.
+     *
+     * <p>
+     * Equivalent to {@link #getResultListParallel(EntityManagerFactory, int, Function, Comparator, Executor)
+     * getResultListParallel}{@code (entityManagerFactory, partitions, partitionFunction, null, null)}.
+     *
+     * @param entityManagerFactory factory for the {@link EntityManager}s used to query each partition
+     * @param partitions maximum number of partitions
+     * @param partitionFunction function returning the integral numeric expression whose range is partitioned
+     * @return result of executed queries
+     * @throws IllegalArgumentException if {@code entityManagerFactory} or {@code partitionFunction} is null
+     * @throws IllegalArgumentException if {@code partitions} is not positive
+     * @throws IllegalArgumentException if the partition expression does not have an integral type
+     * @throws IllegalArgumentException if this stream is sorted
+     * @see #getResultListParallel(EntityManagerFactory, int, Function, Comparator, Executor)
+     */
+    default List<X> getResultListParallel(EntityManagerFactory entityManagerFactory, int partitions,
+      Function<? super S, ? extends Expression<? extends Number>> partitionFunction) {
+        return this.getResultListParallel(entityManagerFactory, partitions, partitionFunction, null, null);
+    }
+
+    /**
+     * Build and evaluate a JPA query based on this instance by splitting it into partitions that are queried in parallel.
+     *
+     * <p>
+     * This is useful for scanning large tables using multiple database connections. First, the minimum and maximum values
+     * of the integral numeric expression returned by {@code partitionFunction} (typically a primary key, or some other
+     * indexed property) are queried. That range is then split into at most {@code partitions} disjoint sub-ranges, and each
+     * sub-range is queried concurrently using its own {@link EntityManager} created from {@code entityManagerFactory}.
+     * The Criteria API query for the partitions is built only once, on the calling thread, and parameterized
+     * by the sub-range bounds.
+     *
+     * <p>
+     * If this stream is sorted, then {@code comparator} must be provided and must be consistent with the sort
+     * orderings; it is used to merge the (sorted) results from the partitions. Otherwise, the results from each partition
+     * are concatenated in the order of the sub-ranges.
+     *
+     * <p>
+     * Some caveats:
+     * <ul>
+     *  <li>{@code entityManagerFactory} must be the factory for the persistence unit associated with this stream</li>
+     *  <li>The partitions are not queried within the current transaction (if any) and therefore do not see uncommitted
+     *      changes, and the returned entities are detached</li>
+     *  <li>Each partition is executed like {@link #getResultListAsync(Executor) getResultListAsync()}, so any
+     *      {@link QueryStreamListener} is notified once per partition from the executing thread</li>
+     *  <li>{@link #skip skip()}, {@link #limit limit()}, grouping, {@linkplain #withLockMode lock modes}, and
+     *      {@linkplain #batchFetch batch fetches} are not supported</li>
+     * </ul>
+     *
+     * @param entityManagerFactory factory for the {@link EntityManager}s used to query each partition
+     * @param partitions maximum number of partitions
+     * @param partitionFunction function returning the integral numeric expression whose range is partitioned
+     * @param comparator for merging sorted results, or null if this stream is not sorted
+     * @param executor executor for querying the partitions, or null to use a temporary thread pool of at most eight threads
+     * @return result of executed queries
+     * @throws IllegalArgumentException if {@code entityManagerFactory} or {@code partitionFunction} is null
+     * @throws IllegalArgumentException if {@code partitions} is not positive
+     * @throws IllegalArgumentException if the partition expression does not have an integral type
+     * @throws IllegalArgumentException if this stream is sorted and {@code comparator} is null
+     * @throws UnsupportedOperationException if this stream has had {@link #skip skip()} or {@link #limit limit()} applied
+     * @throws UnsupportedOperationException if this stream is grouped
+     * @throws UnsupportedOperationException if this stream has a {@linkplain #withLockMode lock mode}
+     * @throws UnsupportedOperationException if this stream has any {@linkplain #batchFetch batch fetches}
+     */
+    List<X> getResultListParallel(EntityManagerFactory entityManagerFactory, int partitions,
+      Function<? super S, ? extends Expression<? extends Number>> partitionFunction,
+      Comparator<? super X> comparator, Executor executor);
+
+    /**
+     * Build a JPA query based on this instance and evaluate it asynchronously, returning the result list.
+     *
+     * <p>
+     * Equivalent to {@link #getResultListAsync(Executor) getResultListAsync}{@code (null)}.
+     *
+     * @return future result of executed query
+     * @throws UnsupportedOperationException if this stream has any {@linkplain #batchFetch batch fetches}
+     * @see #getResultListAsync(Executor)
+     */
+    default CompletableFuture<List<X>> getResultListAsync() {
+        return this.getResultListAsync(null);
+    }
+
+    /**
+     * Build a JPA query based on this instance and evaluate it asynchronously, returning the result list.
+     *
+     * <p>
+     * The Criteria API query is built immediately, on the calling thread, so any {@link Ref}s are bound
+     * before this method returns. The query is then executed by {@code executor} using a new {@link EntityManager}
+     * created from the {@link jakarta.persistence.EntityManagerFactory} of this stream's {@link EntityManager}; that
+     * {@link EntityManager} is closed once the query completes. This allows several independent queries to run
+     * concurrently, each on its own database connection; on Java 21+, a virtual thread executor works well here.
+     *
+     * <p>
+     * Some caveats:
+     * <ul>
+     *  <li>The query is not executed within the current transaction (if any) and therefore does not see uncommitted
+     *      changes, and the returned entities are detached</li>
+     *  <li>The {@linkplain #cached cache}, if any, is not consulted</li>
+     *  <li>Any {@link QueryStreamListener} is notified from the executing thread</li>
+     * </ul>
+     *
+     * @param executor executes the query, or null for the {@link CompletableFuture} default executor
+     * @return future result of executed query
+     * @throws UnsupportedOperationException if this stream has any {@linkplain #batchFetch batch fetches}
+     * @see TypedQuery#getResultList
+     */
+    default CompletableFuture<List<X>> getResultListAsync(Executor executor) {
+        return QueryStreamImpl.executeAsync(this, "getResultListAsync()", executor, TypedQuery::getResultList, List::size);
+    }
+
+    /**
+     * Build and evaluate a series of JPA queries based on this instance, each restricted to a chunk of the given values,
+     * and return the combined results.
+     *
+     * <p>
+     * Equivalent to {@link #getResultListChunked(Function, Collection, int, Comparator)
+     * getResultListChunked}{@code (exprFunction, values, chunkSize, null)}.
+     *
+     * @param exprFunction function returning the expression whose value must be in {@code values}
+     * @param values the values to match
+     * @param chunkSize maximum number of values per query
+     * @param <T> value type
+     * @return combined results of executed queries
+     * @throws IllegalArgumentException if {@code exprFunction} or {@code values} is null
+     * @throws IllegalArgumentException if {@code chunkSize} is not positive
+     * @throws UnsupportedOperationException if this stream has had {@link #skip skip()} or {@link #limit limit()} applied
+     * @see #getResultListChunked(Function, Collection, int, Comparator)
+     */
+    default <T> List<X> getResultListChunked(Function<? super S, ? extends Expression<? extends T>> exprFunction,
+      Collection<? extends T> values, int chunkSize) {
+        return this.getResultListChunked(exprFunction, values, chunkSize, null);
+    }
+
+    /**
+     * Build and evaluate a series of JPA queries based on this instance, each restricted to a chunk of the given values,
+     * and return the combined results.
+     *
+     * <p>
+     * This is useful when filtering on a large collection of values (e.g., identifiers), which would otherwise result
+     * in a huge SQL statement that could exceed the database's limit on the number of parameters or {@code IN} list size.
+     * The distinct values in {@code values} are split into chunks of at most {@code chunkSize} values, and for each chunk
+     * this stream is queried with the additional restriction that the expression returned by {@code exprFunction}
+     * is in that chunk, using {@link QueryStream.Builder#inPadded QueryStream.Builder.inPadded()}, except that the
+     * {@code IN} list is never padded beyond {@code chunkSize} values. If there is only one chunk, a single query
+     * is executed; if {@code values} is empty, no query is executed.
+     *
+     * <p>
+     * If this stream is sorted, then {@code comparator} should be provided and be consistent with the sort
+     * orderings; it is used to merge the (sorted) results from the chunks. Otherwise, the results from each chunk
+     * are concatenated in order.
+     *
+     * <p>
+     * Some caveats:
+     * <ul>
+     *  <li>Each chunk is queried separately, so aggregate and grouping operations apply to each chunk separately</li>
+     *  <li>Duplicate results are only eliminated within each chunk</li>
+     * </ul>
+     *
+     * @param exprFunction function returning the expression whose value must be in {@code values}
+     * @param values the values to match
+     * @param chunkSize maximum number of values per query
+     * @param comparator for merging sorted results, or null to concatenate results
+     * @param <T> value type
+     * @return combined results of executed queries
+     * @throws IllegalArgumentException if {@code exprFunction} or {@code values} is null
+     * @throws IllegalArgumentException if {@code chunkSize} is not positive
+     * @throws UnsupportedOperationException if this stream has had {@link #skip skip()} or {@link #limit limit()} applied
+     */
+    default <T> List<X> getResultListChunked(Function<? super S, ? extends Expression<? extends T>> exprFunction,
+      Collection<? extends T> values, int chunkSize, Comparator<? super X> comparator) {
+        return InLists.getResultListChunked(this, exprFunction, values, chunkSize, comparator);
     }
 
 // CriteriaQuery stuff
@@ -302,7 +545,7 @@ public interface SearchStream<X, S extends Selection<X>>
      * Execute this query and return true if the given property is true for every resulting item.
      *
      * <p>
-     * Delegates to {@link TypedQuery#getResultStream} and can throw any exception thrown by that method.
+     * Executes an existence query as described in {@link #isEmpty}.
      *
      * @param attribute boolean property
      * @return true if all results have the given property true
@@ -313,7 +556,7 @@ public interface SearchStream<X, S extends Selection<X>>
      * Execute this query and return true if the predicate returned by the given function is true for every resulting item.
      *
      * <p>
-     * Delegates to {@link TypedQuery#getResultStream} and can throw any exception thrown by that method.
+     * Executes an existence query as described in {@link #isEmpty}.
      *
      * @param predicateBuilder function mapping this stream's item to a boolean {@link Expression}
      * @return true if all results have the computed expression true
@@ -324,7 +567,7 @@ public interface SearchStream<X, S extends Selection<X>>
      * Execute this query and return true if any results are found for which the given property is true.
      *
      * <p>
-     * Delegates to {@link TypedQuery#getResultStream} and can throw any exception thrown by that method.
+     * Executes an existence query as described in {@link #isEmpty}.
      *
      * @param attribute boolean property
      * @return true if one or more results have the given property true
@@ -335,7 +578,7 @@ public interface SearchStream<X, S extends Selection<X>>
      * Execute this query and return true if any results are found for which the predicate returned by the given function is true.
      *
      * <p>
-     * Delegates to {@link TypedQuery#getResultStream} and can throw any exception thrown by that method.
+     * Executes an existence query as described in {@link #isEmpty}.
      *
      * @param predicateBuilder function mapping this stream's item to a boolean {@link Expression}
      * @return true if one or more results have the computed expression true
@@ -346,7 +589,7 @@ public interface SearchStream<X, S extends Selection<X>>
      * Execute this query and return true if no results are found for which the given property is true.
      *
      * <p>
-     * Delegates to {@link TypedQuery#getResultStream} and can throw any exception thrown by that method.
+     * Executes an existence query as described in {@link #isEmpty}.
      *
      * @param attribute boolean property
      * @return true if no results have the given property true
@@ -357,7 +600,7 @@ public interface SearchStream<X, S extends Selection<X>>
      * Execute this query and return true if no result are found for which the predicate returned by the given function is true.
      *
      * <p>
-     * Delegates to {@link TypedQuery#getResultStream} and can throw any exception thrown by that method.
+     * Executes an existence query as described in {@link #isEmpty}.
      *
      * @param predicateBuilder function mapping this stream's item to a boolean {@link Expression}
      * @return true if no results have the computed expression true
@@ -371,7 +614,10 @@ public interface SearchStream<X, S extends Selection<X>>
      * Note: to perform an "exists" operation in a subquery, use {@link ExprStream#exists}.
      *
      * <p>
-     * Delegates to {@link TypedQuery#getResultStream} and can throw any exception thrown by that method.
+     * The query has any sort orderings removed and its maximum results set to one, and if this stream's items are
+     * entities or entity properties, a constant is selected instead, so that no entities are hydrated and the database
+     * can stop searching after the first row found. If {@link #skip skip()} has been applied, the items are selected as usual.
+     * Delegates to {@link TypedQuery#getResultList} and can throw any exception thrown by that method.
      *
      * @return true if no results are found, false if one or more results are found
      * @see ExprStream#exists
@@ -406,6 +652,11 @@ public interface SearchStream<X, S extends Selection<X>>
      * not only actually verifies the uniqueness assumption, but it also makes that assumption clearer in the code.
      *
      * <p>
+     * Because two rows suffice to detect a non-unique result, the single value methods such as
+     * {@link SearchValue#value value()} and {@link SearchValue#fetch fetch()} retrieve at most two rows.
+     * The returned value itself is not {@linkplain #limit limited}, so it may still be used as a subquery or further filtered.
+     *
+     * <p>
      * Example:
      * <pre>
      *  final User user = qb.stream(User.class)
@@ -418,6 +669,123 @@ public interface SearchStream<X, S extends Selection<X>>
      */
     SearchValue<X, S> findSingle();
 
+// Grouped aggregation
+
+    /**
+     * Build and evaluate a JPA query that groups the items in this stream by some key and computes an aggregate value
+     * for each group, and return the results as a {@link Map}.
+     *
+     * <p>
+     * This is analogous to collecting a {@link Stream} using
+     * {@link java.util.stream.Collectors#groupingBy(Function, java.util.stream.Collector) Collectors.groupingBy()},
+     * except that the grouping and aggregation are performed by the database using a single {@code GROUP BY} query.
+     * Each row's key and aggregate value are selected via a constructor expression, so there is no intermediate
+     * {@code Object[]} per row, and the rows are added to the returned map as they are read.
+     *
+     * <p>
+     * Example:
+     * <pre>
+     *  final Map&lt;Department, Double&gt; averageSalaryByDepartment = qb.stream(Employee.class)
+     *    .groupingBy(e -&gt; e.get(Employee_.department), e -&gt; qb.avg(e.get(Employee_.salary)));
+     * </pre>
+     *
+     * <p>
+     * The returned map iterates in the order of the query results, so any sort orderings must refer only to the key
+     * or aggregate values.
+     *
+     * @param keyFunction function returning the grouping key expression
+     * @param aggregateFunction function returning the aggregate expression computed for each group
+     * @param <K> key type
+     * @param <V> aggregate value type
+     * @return mutable mapping from key to aggregate value
+     * @throws IllegalArgumentException if {@code keyFunction} or {@code aggregateFunction} is null
+     * @throws UnsupportedOperationException if this stream has had {@link #skip skip()} or {@link #limit limit()} applied
+     * @throws UnsupportedOperationException if this stream is already grouped
+     */
+    <K, V> Map<K, V> groupingBy(Function<? super S, ? extends Expression<K>> keyFunction,
+      Function<? super S, ? extends Expression<V>> aggregateFunction);
+
+// Keyset pagination
+
+    /**
+     * Restrict this stream to the items that sort strictly after the item having the given sort key values.
+     *
+     * <p>
+     * This is an alternative to {@link #skip skip()} for paging through large result sets ("keyset" or "seek" pagination).
+     * Instead of having the database scan and discard all of the skipped rows, this method adds a predicate that compares
+     * the stream's sort keys against the given values, so that retrieving any page requires only an index range scan.
+     *
+     * <p>
+     * The sort keys are the expressions from this stream's {@linkplain #orderBy sort orderings}, which therefore must be
+     * configured prior to invoking this method, and {@code sortKeys} must provide one value for each of them, in the same
+     * order. For example, ordering by {@code (lastName ASC, id DESC)} after {@code ("Smith", 123)} generates the predicate
+     * {@code lastName > :p1 OR (lastName = :p1 AND id < :p2)}, where parameters {@code p1} and {@code p2} are bound to
+     * {@code "Smith"} and {@code 123}; so, different sort key values yield the same SQL. {@link java.util.Date}
+     * and {@link java.util.Calendar} values, and all values when only building a
+     * {@linkplain #toCriteriaQuery Criteria API query}, are used as literals instead.
+     *
+     * <p>
+     * For correct results, the orderings should include some unique key (so that no two items sort equally)
+     * and the sort key expressions should never be null.
+     *
+     * @param sortKeys the sort key values of the last item already seen
+     * @return new stream containing only those items sorting after {@code sortKeys}
+     * @throws IllegalArgumentException if {@code sortKeys} is null or empty
+     * @throws IllegalArgumentException if any sort key value is null or not {@link Comparable}
+     * @throws IllegalArgumentException if the number of sort key values does not match the number of sort orderings
+     * @throws IllegalStateException if this stream has no sort orderings
+     * @see #pageAfter pageAfter()
+     */
+    SearchStream<X, S> seekAfter(Object... sortKeys);
+
+    /**
+     * Restrict this stream to the items that sort strictly after the item identified by the given cursor.
+     *
+     * <p>
+     * Equivalent to {@link #seekAfter(Object[]) seekAfter}{@code (cursor.getSortKeys().toArray())}.
+     *
+     * @param cursor identifies the last item already seen
+     * @return new stream containing only those items sorting after {@code cursor}
+     * @throws IllegalArgumentException if {@code cursor} is null
+     * @throws IllegalArgumentException if the number of sort key values does not match the number of sort orderings
+     * @throws IllegalStateException if this stream has no sort orderings
+     * @see #seekAfter(Object[])
+     */
+    SearchStream<X, S> seekAfter(SeekCursor cursor);
+
+    /**
+     * Retrieve the page of at most {@code pageSize} items that follows the given cursor using keyset pagination.
+     *
+     * <p>
+     * The returned {@link SeekPage} includes a {@link SeekCursor} that can be used to retrieve the next page.
+     * The sort key values for the cursor are retrieved along with the items in the same query, so this stream's
+     * selection must be something that can appear in a multi-select (e.g., not a compound selection). A cursor can't
+     * hold null values, so the sort key expressions must never be null for the last item of any full page; use e.g.
+     * {@link jakarta.persistence.criteria.CriteriaBuilder#coalesce coalesce()} or a filter to exclude nulls.
+     *
+     * <p>
+     * Example:
+     * <pre>
+     *  final SearchStream&lt;Employee, Root&lt;Employee&gt;&gt; stream = qb.stream(Employee.class)
+     *    .orderBy(Employee_.name, true, Employee_.id, true);
+     *  SeekCursor cursor = null;
+     *  do {
+     *      final SeekPage&lt;Employee&gt; page = stream.pageAfter(cursor, 100);
+     *      page.getItems().forEach(this::process);
+     *      cursor = page.getNextCursor();
+     *  } while (cursor != null);
+     * </pre>
+     *
+     * @param cursor identifies the last item already seen, or null to retrieve the first page
+     * @param pageSize maximum number of items to retrieve
+     * @return the next page of items
+     * @throws IllegalArgumentException if {@code pageSize} is not positive
+     * @throws IllegalStateException if this stream has no sort orderings
+     * @throws IllegalStateException if a full page is retrieved whose last item has a null sort key value
+     * @see #seekAfter(SeekCursor)
+     */
+    SeekPage<X> pageAfter(SeekCursor cursor, int pageSize);
+
 // Binding
 
     /**
@@ -481,7 +849,7 @@ public interface SearchStream<X, S extends Selection<X>>
                 break;
             }
             return joinable && path instanceof From ? ((From<?, X>)path).join(attribute) : path.get(attribute);
-        }, new QueryInfo());
+        }, QueryInfo.forDerivedStream(this));
     }
 
     /**
@@ -499,7 +867,7 @@ public interface SearchStream<X, S extends Selection<X>>
             throw new IllegalArgumentException("null exprFunction");
         QueryStreamImpl.checkOffsetLimit(this, "map()");
         return new ExprStreamImpl<>(this.getEntityManager(), new SearchType<Y>(type),
-          (builder, query) -> exprFunction.apply(this.configure(builder, query)), new QueryInfo());
+          (builder, query) -> exprFunction.apply(this.configure(builder, query)), QueryInfo.forDerivedStream(this));
     }
 
     /**
@@ -519,7 +887,7 @@ public interface SearchStream<X, S extends Selection<X>>
         final PluralAttribute<X, C, E> attribute2 = (PluralAttribute<X, C, E>)attribute;
         return new ExprStreamImpl<>(this.getEntityManager(), new SearchType<>(attribute.getJavaType()),
           (builder, query) -> ((Path<X>)this.configure(builder, query)).get(attribute2),  // cast must be valid if attribute exists
-          new QueryInfo());
+          QueryInfo.forDerivedStream(this));
     }
 
     /**
@@ -540,7 +908,7 @@ public interface SearchStream<X, S extends Selection<X>>
         final MapAttribute<X, K, V> attribute2 = (MapAttribute<X, K, V>)attribute;
         return new ExprStreamImpl<>(this.getEntityManager(), new SearchType<>((Class<M>)attribute.getJavaType()),
           (builder, query) -> ((Path<X>)this.configure(builder, query)).get(attribute2),  // cast must be valid if attribute exists
-          new QueryInfo());
+          QueryInfo.forDerivedStream(this));
     }
 
     /**
@@ -558,7 +926,7 @@ public interface SearchStream<X, S extends Selection<X>>
             throw new IllegalArgumentException("null exprFunction");
         QueryStreamImpl.checkOffsetLimit(this, "mapToExpr()");
         return new ExprStreamImpl<>(this.getEntityManager(), new SearchType<Y>(type),
-          (builder, query) -> exprFunction.apply(this.configure(builder, query)), new QueryInfo());
+          (builder, query) -> exprFunction.apply(this.configure(builder, query)), QueryInfo.forDerivedStream(this));
     }
 
     /**
@@ -576,7 +944,7 @@ public interface SearchStream<X, S extends Selection<X>>
             throw new IllegalArgumentException("null pathFunction");
         QueryStreamImpl.checkOffsetLimit(this, "mapToPath()");
         return new PathStreamImpl<>(this.getEntityManager(), new SearchType<Y>(type),
-          (builder, query) -> pathFunction.apply(this.configure(builder, query)), new QueryInfo());
+          (builder, query) -> pathFunction.apply(this.configure(builder, query)), QueryInfo.forDerivedStream(this));
     }
 
     /**
@@ -595,7 +963,7 @@ public interface SearchStream<X, S extends Selection<X>>
             throw new IllegalArgumentException("null fromFunction");
         QueryStreamImpl.checkOffsetLimit(this, "mapToFrom()");
         return new FromStreamImpl<>(this.getEntityManager(), new SearchType<Y>(type),
-          (builder, query) -> fromFunction.apply(this.configure(builder, query)), new QueryInfo());
+          (builder, query) -> fromFunction.apply(this.configure(builder, query)), QueryInfo.forDerivedStream(this));
     }
 
     /**
@@ -613,7 +981,7 @@ public interface SearchStream<X, S extends Selection<X>>
             throw new IllegalArgumentException("null rootFunction");
         QueryStreamImpl.checkOffsetLimit(this, "mapToRoot()");
         return new RootStreamImpl<>(this.getEntityManager(), new SearchType<Y>(type),
-          (builder, query) -> rootFunction.apply(this.configure(builder, query)), new QueryInfo());
+          (builder, query) -> rootFunction.apply(this.configure(builder, query)), QueryInfo.forDerivedStream(this));
     }
 
     /**
@@ -673,7 +1041,7 @@ public interface SearchStream<X, S extends Selection<X>>
         QueryStreamImpl.checkOffsetLimit(this, "mapToDouble()");
         return new DoubleStreamImpl(this.getEntityManager(),
           (builder, query) -> builder.toDouble(((Path<X>)this.configure(builder, query)).get(attribute)),  // cast must be valid...
-          new QueryInfo());
+          QueryInfo.forDerivedStream(this));
     }
 
     /**
@@ -687,7 +1055,8 @@ public interface SearchStream<X, S extends Selection<X>>
             throw new IllegalArgumentException("null doubleExprFunction");
         QueryStreamImpl.checkOffsetLimit(this, "mapToDouble()");
         return new DoubleStreamImpl(this.getEntityManager(),
-          (builder, query) -> builder.toDouble(doubleExprFunction.apply(this.configure(builder, query))), new QueryInfo());
+          (builder, query) -> builder.toDouble(doubleExprFunction.apply(this.configure(builder, query))),
+          QueryInfo.forDerivedStream(this));
     }
 
     /**
@@ -702,7 +1071,7 @@ public interface SearchStream<X, S extends Selection<X>>
         QueryStreamImpl.checkOffsetLimit(this, "mapToLong()");
         return new LongStreamImpl(this.getEntityManager(),
           (builder, query) -> builder.toLong(((Path<X>)this.configure(builder, query)).get(attribute)),  // cast must be valid...
-          new QueryInfo());
+          QueryInfo.forDerivedStream(this));
     }
 
     /**
@@ -716,7 +1085,8 @@ public interface SearchStream<X, S extends Selection<X>>
             throw new IllegalArgumentException("null longExprFunction");
         QueryStreamImpl.checkOffsetLimit(this, "mapToLong()");
         return new LongStreamImpl(this.getEntityManager(),
-          (builder, query) -> builder.toLong(longExprFunction.apply(this.configure(builder, query))), new QueryInfo());
+          (builder, query) -> builder.toLong(longExprFunction.apply(this.configure(builder, query))),
+          QueryInfo.forDerivedStream(this));
     }
 
     /**
@@ -731,7 +1101,7 @@ public interface SearchStream<X, S extends Selection<X>>
         QueryStreamImpl.checkOffsetLimit(this, "mapToInt()");
         return new IntStreamImpl(this.getEntityManager(),
           (builder, query) -> builder.toInteger(((Path<X>)this.configure(builder, query)).get(attribute)),  // cast must be valid...
-          new QueryInfo());
+          QueryInfo.forDerivedStream(this));
     }
 
     /**
@@ -745,7 +1115,8 @@ public interface SearchStream<X, S extends Selection<X>>
             throw new IllegalArgumentException("null intExprFunction");
         QueryStreamImpl.checkOffsetLimit(this, "mapToInt()");
         return new IntStreamImpl(this.getEntityManager(),
-          (builder, query) -> builder.toInteger(intExprFunction.apply(this.configure(builder, query))), new QueryInfo());
+          (builder, query) -> builder.toInteger(intExprFunction.apply(this.configure(builder, query))),
+          QueryInfo.forDerivedStream(this));
     }
 
     /**
@@ -771,7 +1142,43 @@ public interface SearchStream<X, S extends Selection<X>>
             throw new IllegalArgumentException("null selectionFunction");
         QueryStreamImpl.checkOffsetLimit(this, "mapToSelection()");
         return new SearchStreamImpl<>(this.getEntityManager(), new SearchType<Y>(type),
-          (builder, query) -> selectionFunction.apply(this.configure(builder, query)), new QueryInfo());
+          (builder, query) -> selectionFunction.apply(this.configure(builder, query)), QueryInfo.forDerivedStream(this));
+    }
+
+    /**
+     * Map this stream into a stream of data transfer objects constructed from the given selections.
+     *
+     * <p>
+     * This uses {@link CriteriaBuilder#construct CriteriaBuilder.construct()} to build a constructor expression,
+     * so {@code type} must have a constructor whose parameters match the selections. Only the selected columns
+     * are retrieved, and the resulting objects are not entities, so they are not managed by the persistence context.
+     * This makes this method useful when only a few properties of each entity are needed, e.g., for list views.
+     *
+     * <p>
+     * Example:
+     * <pre>
+     *  final List&lt;EmployeeSummary&gt; summaries = qb.stream(Employee.class)
+     *    .mapToDto(EmployeeSummary.class, e -&gt; List.of(e.get(Employee_.name), e.get(Employee_.salary)))
+     *    .getResultList();
+     * </pre>
+     *
+     * @param type data transfer object type
+     * @param selectionsFunction function returning the selections passed to {@code type}'s constructor
+     * @param <D> data transfer object type
+     * @return mapped stream
+     * @throws IllegalArgumentException if {@code type} or {@code selectionsFunction} is null
+     */
+    default <D> SearchStream<D, Selection<D>> mapToDto(Class<D> type,
+      Function<? super S, ? extends List<? extends Selection<?>>> selectionsFunction) {
+        if (type == null)
+            throw new IllegalArgumentException("null type");
+        if (selectionsFunction == null)
+            throw new IllegalArgumentException("null selectionsFunction");
+        QueryStreamImpl.checkOffsetLimit(this, "mapToDto()");
+        return new SearchStreamImpl<>(this.getEntityManager(), new SearchType<D>(type),
+          (builder, query) -> builder.construct(type,
+            selectionsFunction.apply(this.configure(builder, query)).toArray(new Selection<?>[0])),
+          QueryInfo.forDerivedStream(this));
     }
 
 // Flat Mapping
@@ -825,7 +1232,7 @@ public interface SearchStream<X, S extends Selection<X>>
         QueryStreamImpl.checkOffsetLimit(this, "flatMapKeys()");
         return new PathStreamImpl<>(this.getEntityManager(), new SearchType<>(attribute.getKeyJavaType()),
           (builder, query) -> ((From<?, X>)this.configure(builder, query)).join(attribute, JoinType.INNER).key(),       // valid...
-          new QueryInfo());
+          QueryInfo.forDerivedStream(this));
     }
 
     /**
@@ -841,7 +1248,7 @@ public interface SearchStream<X, S extends Selection<X>>
         QueryStreamImpl.checkOffsetLimit(this, "flatMapValues()");
         return new PathStreamImpl<>(this.getEntityManager(), new SearchType<>(attribute.getElementType().getJavaType()),
           (builder, query) -> ((From<?, X>)this.configure(builder, query)).join(attribute, JoinType.INNER).value(),     // valid...
-          new QueryInfo());
+          QueryInfo.forDerivedStream(this));
     }
 
 // Singluar joins
@@ -905,7 +1312,7 @@ public interface SearchStream<X, S extends Selection<X>>
                 join.on(onPredicate);
             return join;
           },
-          new QueryInfo());
+          QueryInfo.forDerivedStream(this));
     }
 
 // Plural Joins
@@ -969,7 +1376,7 @@ public interface SearchStream<X, S extends Selection<X>>
                 join.on(onPredicate);
             return join;
           },
-          new QueryInfo());
+          QueryInfo.forDerivedStream(this));
     }
 
     /**
@@ -1031,7 +1438,7 @@ public interface SearchStream<X, S extends Selection<X>>
                 join.on(onPredicate);
             return join;
           },
-          new QueryInfo());
+          QueryInfo.forDerivedStream(this));
     }
 
     /**
@@ -1093,7 +1500,7 @@ public interface SearchStream<X, S extends Selection<X>>
                 join.on(onPredicate);
             return join;
           },
-          new QueryInfo());
+          QueryInfo.forDerivedStream(this));
     }
 
     /**
@@ -1158,7 +1565,7 @@ public interface SearchStream<X, S extends Selection<X>>
                 join.on(onPredicate);
             return join;
           },
-          new QueryInfo());
+          QueryInfo.forDerivedStream(this));
     }
 
 // Fetches
@@ -1217,6 +1624,93 @@ public interface SearchStream<X, S extends Selection<X>>
      */
     SearchStream<X, S> fetch(PluralAttribute<? super X, ?, ?> attribute, JoinType joinType);
 
+    /**
+     * Load a collection association of the entities in this stream using separate, batched queries.
+     *
+     * <p>
+     * When the query is executed, the entities it returns are queried again, {@code batchSize} at a time, using
+     * {@code WHERE id IN (...)} with a fetch join of the collection, so that the collection is initialized for
+     * every returned entity. This requires {@code ceil(N / batchSize)} additional queries for {@code N} results,
+     * instead of one additional query per entity when each collection is loaded lazily.
+     *
+     * <p>
+     * Unlike a plural {@link #fetch(PluralAttribute, JoinType) fetch()}, this does not duplicate rows in the main
+     * query, so it may be combined with {@link #skip skip()} and {@link #limit limit()}.
+     *
+     * <p>
+     * This stream's items must be entities having a single identifier attribute. The collections are loaded by
+     * {@link #getResultList}, {@link #getResultStream} (which then retrieves all results before returning),
+     * {@link SearchValue#value}, {@link ExprStream#page page()}, and {@link #pageAfter pageAfter()}. Batch fetches
+     * do not carry over to streams whose items are not these entities, such as those returned by {@link ExprStream#count}.
+     *
+     * @param attribute collection association
+     * @param batchSize maximum number of entities to query at once
+     * @return a new stream that loads the specified collection
+     * @throws IllegalArgumentException if {@code attribute} is null
+     * @throws IllegalArgumentException if {@code batchSize} is not positive
+     * @throws IllegalArgumentException if this stream's item type is not an entity type with a single identifier attribute
+     */
+    SearchStream<X, S> batchFetch(PluralAttribute<? super X, ?, ?> attribute, int batchSize);
+
+// Read-only queries
+
+    /**
+     * Configure this stream for queries whose results will only be read, not modified.
+     *
+     * <p>
+     * Equivalent to {@link #readOnly(boolean) readOnly}{@code (false)}.
+     *
+     * @return new stream configured for read-only queries
+     * @see #readOnly(boolean)
+     */
+    SearchStream<X, S> readOnly();
+
+    /**
+     * Configure this stream for queries whose results will only be read, not modified.
+     *
+     * <p>
+     * The returned stream uses {@link FlushModeType#COMMIT}, so executing its query does not trigger an automatic flush of
+     * the persistence context, and sets the JPA provider-specific hints (for Hibernate and EclipseLink) that cause
+     * returned entities to be loaded read-only, so the provider does not keep snapshots of them for dirty checking.
+     * Because of the flush mode, the query may not reflect changes made in the current transaction that have
+     * not yet been flushed.
+     *
+     * <p>
+     * If {@code detach} is true, returned entities are also {@linkplain EntityManager#detach detached} from the persistence
+     * context: those returned by {@link #getResultList} and {@link SearchValue#value} immediately, and those returned by
+     * {@link #getResultStream} once each has been consumed. This keeps the persistence context from growing when reading
+     * many entities, but lazy associations not already loaded will not be loadable from detached entities.
+     *
+     * @param detach true to detach returned entities from the persistence context
+     * @return new stream configured for read-only queries
+     */
+    SearchStream<X, S> readOnly(boolean detach);
+
+// Caching
+
+    /**
+     * Cache the results of this stream's queries in the {@link QueryCache} associated with the
+     * {@link QueryStream.Builder} that created this stream.
+     *
+     * <p>
+     * Results returned by {@link #getResultList}, {@link #getResultStream}, and {@link SearchValue#value} are cached for
+     * up to the given time-to-live. Streams derived from the returned stream via {@link #withParam withParam()},
+     * {@link #skip skip()}, etc., share its cache entries when their parameter bindings, hints, and offset/limit match.
+     * So do values derived from it by operations without arguments, like {@link ExprStream#count count()}, each time they
+     * are derived; operations that take arguments, like {@link #filter filter()}, create queries that only hit the cache
+     * when the stream or value they return is reused. Queries with a {@linkplain #withLockMode lock mode} are not cached.
+     *
+     * <p>
+     * See {@link QueryCache} for how cache entries are keyed and invalidated, and for important caveats.
+     *
+     * @param ttl maximum time for which to cache results
+     * @return new stream with caching enabled
+     * @throws IllegalArgumentException if {@code ttl} is null, zero, or negative
+     * @throws IllegalStateException if no {@link QueryCache} was configured via
+     *  {@link QueryStream.Builder#withCache QueryStream.Builder.withCache()}
+     */
+    SearchStream<X, S> cached(Duration ttl);
+
 // Narrowing overrides (QueryStream)
 
     @Override
@@ -1272,4 +1766,10 @@ public interface SearchStream<X, S extends Selection<X>>
 
     @Override
     SearchStream<X, S> withFetchGraph(String name);
+
+    @Override
+    SearchStream<X, S> withTimeout(Duration timeout);
+
+    @Override
+    SearchStream<X, S> withCancellation(CancellationToken cancellation);
 }
@@ -6,32 +6,40 @@
 package org.dellroad.querystream.jpa;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.FlushModeType;
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.Parameter;
 import jakarta.persistence.TemporalType;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.AbstractQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Order;
 import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Selection;
 import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 import org.dellroad.querystream.jpa.querytype.SearchType;
 
@@ -39,6 +47,9 @@ class SearchStreamImpl<X, S extends Selection<X>>
   extends QueryStreamImpl<X, S, AbstractQuery<?>, CriteriaQuery<X>, TypedQuery<X>, SearchType<X>>
   implements SearchStream<X, S> {
 
+    private static final String HIBERNATE_READ_ONLY_HINT = "org.hibernate.readOnly";
+    private static final String ECLIPSELINK_READ_ONLY_HINT = "eclipselink.read-only";
+
 // Constructors
 
     SearchStreamImpl(EntityManager entityManager, SearchType<X> queryType,
@@ -257,11 +268,11 @@ class SearchStreamImpl<X, S extends Selection<X>>
         if (attribute == null)
             throw new IllegalArgumentException("null attribute");
         QueryStreamImpl.checkOffsetLimit(this, "allMatch()");
-        return !this.withConfig((builder, query) -> {
+        return !((SearchStreamImpl<X, S>)this.withConfig((builder, query) -> {
             final S selection = this.configure(builder, query);
             this.and(builder, query, builder.not(((Path<X>)selection).get(attribute))); // cast must be valid if attribute exists
             return selection;
-        }).getResultStream().findAny().isPresent();
+        })).exists();
     }
 
     @Override
@@ -269,21 +280,21 @@ class SearchStreamImpl<X, S extends Selection<X>>
         if (predicateBuilder == null)
             throw new IllegalArgumentException("null predicateBuilder");
         QueryStreamImpl.checkOffsetLimit(this, "allMatch()");
-        return !this.withConfig((builder, query) -> {
+        return !((SearchStreamImpl<X, S>)this.withConfig((builder, query) -> {
             final S selection = this.configure(builder, query);
             this.and(builder, query, builder.not(predicateBuilder.apply(selection)));
             return selection;
-        }).getResultStream().findAny().isPresent();
+        })).exists();
     }
 
     @Override
     public boolean anyMatch(SingularAttribute<? super X, Boolean> attribute) {
-        return this.filter(attribute).getResultStream().findAny().isPresent();
+        return ((SearchStreamImpl<X, S>)this.filter(attribute)).exists();
     }
 
     @Override
     public boolean anyMatch(Function<? super S, ? extends Expression<Boolean>> predicateBuilder) {
-        return this.filter(predicateBuilder).getResultStream().findAny().isPresent();
+        return ((SearchStreamImpl<X, S>)this.filter(predicateBuilder)).exists();
     }
 
     @Override
@@ -298,7 +309,37 @@ class SearchStreamImpl<X, S extends Selection<X>>
 
     @Override
     public boolean isEmpty() {
-        return !this.getResultStream().findAny().isPresent();
+        return !this.exists();
+    }
+
+    /**
+     * Determine whether this stream has any results using a query that returns at most one row.
+     *
+     * <p>
+     * Unless {@link #skip skip()} has been applied, the query has its sort orderings removed, and entity and property
+     * selections are replaced by a constant, so that no entities are hydrated and the database can stop at the first row.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean exists() {
+
+        // Copy the query configuration, but not caching, batch fetches, or entity graphs (which only apply to entities)
+        final int maxResults = this.queryInfo.getMaxResults();
+        final QueryInfo existsInfo = QueryInfo.forAuxiliaryQuery(this)
+          .withFirstResult(this.queryInfo.getFirstResult())
+          .withMaxResults(maxResults >= 0 ? Math.min(maxResults, 1) : 1);
+
+        // When skipping rows, a constant selection could alter the number of distinct or grouped rows
+        if (this.queryInfo.getFirstResult() > 0)
+            return !((SearchStream<X, S>)this.withQueryInfo(existsInfo)).getResultList().isEmpty();
+
+        // Select a constant instead of entities and properties; other selections could be aggregates, so leave them alone
+        return !new SearchStreamImpl<Object, Selection<Object>>(this.entityManager, new SearchType<>(Object.class),
+          (builder, query) -> {
+            final S selection = this.configure(builder, query);
+            if (query instanceof CriteriaQuery)
+                ((CriteriaQuery<?>)query).orderBy(Collections.emptyList());
+            return (Selection<Object>)(selection instanceof Path ? builder.literal(1) : selection);
+          }, existsInfo).getResultList().isEmpty();
     }
 
     @Override
@@ -316,6 +357,138 @@ class SearchStreamImpl<X, S extends Selection<X>>
         return this.toValue(false);
     }
 
+    // Limit the given query to the two rows that suffice to detect a non-unique result
+    static <Q extends TypedQuery<?>> Q limitForSingleResult(Q query) {
+        if (query.getMaxResults() > 2)
+            query.setMaxResults(2);
+        return query;
+    }
+
+// Grouped aggregation
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> Map<K, V> groupingBy(Function<? super S, ? extends Expression<K>> keyFunction,
+      Function<? super S, ? extends Expression<V>> aggregateFunction) {
+        if (keyFunction == null)
+            throw new IllegalArgumentException("null keyFunction");
+        if (aggregateFunction == null)
+            throw new IllegalArgumentException("null aggregateFunction");
+        QueryStreamImpl.checkOffsetLimit(this, "groupingBy()");
+        final SearchStream<GroupEntry, Selection<GroupEntry>> entries = new SearchStreamImpl<>(this.entityManager,
+          new SearchType<>(GroupEntry.class), (builder, query) -> {
+            final S selection = this.configure(builder, query);
+            if (!query.getGroupList().isEmpty())
+                throw new UnsupportedOperationException("sorry, groupingBy() is not supported on grouped queries");
+            final Expression<K> key = keyFunction.apply(selection);
+            query.groupBy(key);
+            return builder.construct(GroupEntry.class, key, aggregateFunction.apply(selection));
+          }, this.queryInfo.withoutBatchFetches());
+        final LinkedHashMap<K, V> map = new LinkedHashMap<>();
+        try (Stream<GroupEntry> stream = entries.getResultStream()) {
+            stream.forEachOrdered(entry -> map.put((K)entry.getKey(), (V)entry.getValue()));
+        }
+        return map;
+    }
+
+// Parallel execution
+
+    @Override
+    public List<X> getResultListParallel(EntityManagerFactory entityManagerFactory, int partitions,
+      Function<? super S, ? extends Expression<? extends Number>> partitionFunction,
+      Comparator<? super X> comparator, Executor executor) {
+        return ParallelSearch.getResultList(this, entityManagerFactory, partitions, partitionFunction, comparator, executor);
+    }
+
+// Keyset pagination
+
+    @Override
+    public SearchStream<X, S> seekAfter(Object... sortKeys) {
+        return this.seekAfter(SeekCursor.of(sortKeys));
+    }
+
+    @Override
+    public SearchStream<X, S> seekAfter(SeekCursor cursor) {
+        if (cursor == null)
+            throw new IllegalArgumentException("null cursor");
+        QueryStreamImpl.checkOffsetLimit(this, "seekAfter()");
+        final List<Object> sortKeys = cursor.getSortKeys();
+        return this.withConfig((builder, query) -> {
+            final S selection = this.configure(builder, query);
+            final List<Order> orders = SearchStreamImpl.getSeekOrders(query, "seekAfter()");
+            if (sortKeys.size() != orders.size()) {
+                throw new IllegalArgumentException("wrong number of sort key values: stream has " + orders.size()
+                  + " sort ordering(s) but " + sortKeys.size() + " value(s) were given");
+            }
+            this.and(builder, query, SearchStreamImpl.seekPredicate(builder, orders, sortKeys));
+            return selection;
+        });
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public SeekPage<X> pageAfter(SeekCursor cursor, int pageSize) {
+        if (pageSize <= 0)
+            throw new IllegalArgumentException("pageSize <= 0");
+        QueryStreamImpl.checkOffsetLimit(this, "pageAfter()");
+        final SearchStream<X, S> stream = cursor != null ? this.seekAfter(cursor) : this;
+
+        // Select each item along with its sort key values, so we can build the next cursor
+        final List<Object[]> rows = new SearchStreamImpl<Object[], Selection<Object[]>>(this.entityManager,
+          new SearchType<>(Object[].class), (builder, query) -> {
+            final S selection = stream.configure(builder, query);
+            final List<Order> orders = SearchStreamImpl.getSeekOrders(query, "pageAfter()");
+            final Selection<?>[] selections = new Selection<?>[1 + orders.size()];
+            selections[0] = selection;
+            for (int i = 0; i < orders.size(); i++)
+                selections[1 + i] = orders.get(i).getExpression();
+            return builder.array(selections);
+          }, this.queryInfo.withoutBatchFetches().withMaxResults(pageSize)).getResultList();
+
+        // Build page; batch fetches apply to the items, not the rows
+        final ArrayList<X> items = new ArrayList<>(rows.size());
+        rows.forEach(row -> items.add((X)row[0]));
+        BatchFetch.fetchAll(this, items);
+        if (rows.size() < pageSize)
+            return new SeekPage<>(items, null);
+        final Object[] sortKeys = Arrays.copyOfRange(rows.get(rows.size() - 1), 1, rows.get(0).length);
+        if (Arrays.asList(sortKeys).contains(null)) {
+            throw new IllegalStateException("pageAfter() found a null sort key value in " + Arrays.asList(sortKeys)
+              + ", so it can't create the next cursor; keyset pagination requires sort key expressions that are never null");
+        }
+        return new SeekPage<>(items, SeekCursor.of(sortKeys));
+    }
+
+    private static List<Order> getSeekOrders(AbstractQuery<?> query, String operation) {
+        if (!(query instanceof CriteriaQuery)) {
+            throw new UnsupportedOperationException("sorry, can't use " + operation + " in a subquery because"
+              + " the JPA Criteria API doesn't support sorting in subqueries");
+        }
+        final List<Order> orders = ((CriteriaQuery<?>)query).getOrderList();
+        if (orders.isEmpty())
+            throw new IllegalStateException(operation + " requires sort orderings to be configured first via orderBy()");
+        return orders;
+    }
+
+    // Build (k1 > v1) OR (k1 = v1 AND k2 > v2) OR ..., with each value bound to a parameter when possible
+    @SuppressWarnings("unchecked")
+    private static Predicate seekPredicate(CriteriaBuilder builder, List<Order> orders, List<Object> sortKeys) {
+        final ArrayList<Predicate> equalities = new ArrayList<>(orders.size());
+        final ArrayList<Predicate> disjuncts = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            final Order order = orders.get(i);
+            final Expression<Comparable<Object>> expr = (Expression<Comparable<Object>>)order.getExpression();
+            final Comparable<Object> value = (Comparable<Object>)sortKeys.get(i);
+            final Expression<Comparable<Object>> param = AutoParamBinding.isParameterizable(value) ?
+              AutoParamBinding.bind(builder, expr, value) : builder.literal(value);
+            final ArrayList<Predicate> conjuncts = new ArrayList<>(equalities);
+            conjuncts.add(order.isAscending() ? builder.greaterThan(expr, param) : builder.lessThan(expr, param));
+            disjuncts.add(conjuncts.size() == 1 ? conjuncts.get(0) : builder.and(conjuncts.toArray(new Predicate[0])));
+            equalities.add(builder.equal(expr, param));
+        }
+        return disjuncts.size() == 1 ? disjuncts.get(0) : builder.or(disjuncts.toArray(new Predicate[0]));
+    }
+
 // Binding
 
     @Override
@@ -362,6 +535,42 @@ class SearchStreamImpl<X, S extends Selection<X>>
         throw new UnsupportedOperationException();      // this should never happen if "attribute" is really valid
     }
 
+    @Override
+    public SearchStream<X, S> batchFetch(PluralAttribute<? super X, ?, ?> attribute, int batchSize) {
+        final BatchFetch batchFetch = new BatchFetch(attribute, batchSize);
+        QueryStreamImpl.getIdAttribute(this.entityManager, this.queryType.getType());   // verify entity type
+        return (SearchStream<X, S>)this.withQueryInfo(this.queryInfo.withBatchFetch(batchFetch));
+    }
+
+// Read-only queries
+
+    @Override
+    public SearchStream<X, S> readOnly() {
+        return this.readOnly(false);
+    }
+
+    @Override
+    public SearchStream<X, S> readOnly(boolean detach) {
+        return (SearchStream<X, S>)this.withQueryInfo(this.queryInfo
+          .withFlushMode(FlushModeType.COMMIT)
+          .withHint(HIBERNATE_READ_ONLY_HINT, true)
+          .withHint(ECLIPSELINK_READ_ONLY_HINT, "True")
+          .withDetach(detach));
+    }
+
+// Caching
+
+    @Override
+    public SearchStream<X, S> cached(Duration ttl) {
+        if (ttl == null)
+            throw new IllegalArgumentException("null ttl");
+        if (ttl.isNegative() || ttl.isZero())
+            throw new IllegalArgumentException("ttl must be positive");
+        if (this.queryInfo.getCache() == null)
+            throw new IllegalStateException("no QueryCache has been configured via QueryStream.Builder.withCache()");
+        return (SearchStream<X, S>)this.withQueryInfo(this.queryInfo.withCacheTtl(ttl));
+    }
+
 // Narrowing overrides (QueryStreamImpl)
 
     @Override
@@ -459,4 +668,14 @@ class SearchStreamImpl<X, S extends Selection<X>>
     public SearchStream<X, S> withFetchGraph(String name) {
         return (SearchStream<X, S>)super.withFetchGraph(name);
     }
+
+    @Override
+    public SearchStream<X, S> withTimeout(Duration timeout) {
+        return (SearchStream<X, S>)super.withTimeout(timeout);
+    }
+
+    @Override
+    public SearchStream<X, S> withCancellation(CancellationToken cancellation) {
+        return (SearchStream<X, S>)super.withCancellation(cancellation);
+    }
 }
@@ -13,12 +13,17 @@ import jakarta.persistence.Parameter;
 import jakarta.persistence.TemporalType;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -36,7 +41,61 @@ public interface SearchValue<X, S extends Selection<X>> extends SearchStream<X,
      * @throws NonUniqueResultException if there is more than one result
      */
     default X value() {
-        return this.toQuery().getSingleResult();
+        return QueryStreamImpl.detachResult(this, BatchFetch.fetch(this,
+          QueryStreamImpl.execute(this, "value()",
+          query -> SearchStreamImpl.limitForSingleResult(query).getSingleResult(), result -> 1)));
+    }
+
+    /**
+     * Build a JPA query based on this instance and evaluate it asynchronously, returning the single result, if any.
+     *
+     * <p>
+     * Equivalent to {@link #valueAsync(Executor) valueAsync}{@code (null)}.
+     *
+     * @return future result of executed query
+     * @throws UnsupportedOperationException if this stream has any {@linkplain #batchFetch batch fetches}
+     * @see #valueAsync(Executor)
+     */
+    default CompletableFuture<X> valueAsync() {
+        return this.valueAsync(null);
+    }
+
+    /**
+     * Build a JPA query based on this instance and evaluate it asynchronously, returning the single result, if any.
+     *
+     * <p>
+     * The returned future completes exceptionally with {@link NoResultException} if there is no result,
+     * or {@link NonUniqueResultException} if there is more than one result. Otherwise, this method behaves
+     * like {@link #getResultListAsync(Executor) getResultListAsync()}.
+     *
+     * @param executor executes the query, or null for the {@link CompletableFuture} default executor
+     * @return future result of executed query
+     * @throws UnsupportedOperationException if this stream has any {@linkplain #batchFetch batch fetches}
+     * @see #getResultListAsync(Executor)
+     */
+    default CompletableFuture<X> valueAsync(Executor executor) {
+        return QueryStreamImpl.executeAsync(this, "valueAsync()", executor,
+          query -> SearchStreamImpl.limitForSingleResult(query).getSingleResult(), result -> 1);
+    }
+
+    /**
+     * Build and evaluate a JPA query based on this instance and return its materialized outcome.
+     *
+     * <p>
+     * The query is executed exactly once, retrieving at most two rows (enough to detect a non-unique result),
+     * and the returned {@link ValueResult} can then be inspected any number of times without further queries.
+     * This avoids the redundant executions of idioms like {@code if (v.isPresent()) return v.value();}.
+     *
+     * <p>
+     * Unlike {@link #value}, this method does not throw {@link NoResultException} or {@link NonUniqueResultException};
+     * instead, those outcomes are reported by the returned {@link ValueResult}.
+     *
+     * @return materialized result of executed query
+     */
+    default ValueResult<X> fetch() {
+        final List<X> results = QueryStreamImpl.execute(this, "fetch()",
+          query -> SearchStreamImpl.limitForSingleResult(query).getResultList(), List::size);
+        return ValueResult.of(QueryStreamImpl.detachResults(this, BatchFetch.fetchAll(this, results)));
     }
 
     /**
@@ -48,11 +107,7 @@ public interface SearchValue<X, S extends Selection<X>> extends SearchStream<X,
      * @throws NonUniqueResultException if there is more than one result
      */
     default X orElse(X defaultValue) {
-        try {
-            return this.value();
-        } catch (NoResultException e) {
-            return defaultValue;
-        }
+        return this.fetch().orElse(defaultValue);
     }
 
     /**
@@ -68,11 +123,7 @@ public interface SearchValue<X, S extends Selection<X>> extends SearchStream<X,
     default <T extends Throwable> X orElseThrow(Supplier<? extends T> supplier) throws T {
         if (supplier == null)
             throw new IllegalArgumentException("null supplier");
-        try {
-            return this.value();
-        } catch (NoResultException e) {
-            throw supplier.get();
-        }
+        return this.fetch().orElseThrow(supplier);
     }
 
     /**
@@ -87,11 +138,7 @@ public interface SearchValue<X, S extends Selection<X>> extends SearchStream<X,
     default X orElseGet(Supplier<? extends X> supplier) {
         if (supplier == null)
             throw new IllegalArgumentException("null supplier");
-        try {
-            return this.value();
-        } catch (NoResultException e) {
-            return supplier.get();
-        }
+        return this.fetch().orElseGet(supplier);
     }
 
     /**
@@ -104,28 +151,20 @@ public interface SearchValue<X, S extends Selection<X>> extends SearchStream<X,
     default void ifPresent(Consumer<? super X> consumer) {
         if (consumer == null)
             throw new IllegalArgumentException("null consumer");
-        final X value;
-        try {
-            value = this.value();
-        } catch (NoResultException e) {
-            return;
-        }
-        consumer.accept(value);
+        this.fetch().ifPresent(consumer);
     }
 
     /**
      * Build and evaluate a JPA query based on this instance and return true if a result is returned, otherwise false.
      *
+     * <p>
+     * If the result itself is also needed, use {@link #fetch} instead to avoid executing the query twice.
+     *
      * @return true if executed query returns a result, false otherwise
      * @throws NonUniqueResultException if there is more than one result
      */
     default boolean isPresent() {
-        try {
-            this.value();
-        } catch (NoResultException e) {
-            return false;
-        }
-        return true;
+        return this.fetch().isPresent();
     }
 
     /**
@@ -140,15 +179,7 @@ public interface SearchValue<X, S extends Selection<X>> extends SearchStream<X,
      * @throws IllegalArgumentException if this query returns a null value
      */
     default Optional<X> toOptional() {
-        final X value;
-        try {
-            value = this.value();
-        } catch (NoResultException e) {
-            return Optional.empty();
-        }
-        if (value == null)
-            throw new IllegalArgumentException("null values cannot be represented in Optional");
-        return Optional.of(value);
+        return this.fetch().toOptional();
     }
 
 // Narrowing overrides (SearchStream)
@@ -159,6 +190,12 @@ public interface SearchValue<X, S extends Selection<X>> extends SearchStream<X,
         return ((SearchStreamImpl<Y, Selection<Y>>)SearchStream.super.mapToSelection(type, selectionFunction)).toValue();
     }
 
+    @Override
+    default <D> SearchValue<D, Selection<D>> mapToDto(Class<D> type,
+      Function<? super S, ? extends List<? extends Selection<?>>> selectionsFunction) {
+        return ((SearchStreamImpl<D, Selection<D>>)SearchStream.super.mapToDto(type, selectionsFunction)).toValue();
+    }
+
 // Narrowing overrides (QueryStream)
 
     @Override
@@ -176,6 +213,18 @@ public interface SearchValue<X, S extends Selection<X>> extends SearchStream<X,
     @Override
     SearchValue<X, S> filter(Function<? super S, ? extends Expression<Boolean>> predicateBuilder);
 
+    @Override
+    SearchValue<X, S> cached(Duration ttl);
+
+    @Override
+    SearchValue<X, S> readOnly();
+
+    @Override
+    SearchValue<X, S> readOnly(boolean detach);
+
+    @Override
+    SearchValue<X, S> batchFetch(PluralAttribute<? super X, ?, ?> attribute, int batchSize);
+
     @Override
     SearchValue<X, S> withFlushMode(FlushModeType flushMode);
 
@@ -205,4 +254,10 @@ public interface SearchValue<X, S extends Selection<X>> extends SearchStream<X,
 
     @Override
     SearchValue<X, S> withFetchGraph(String name);
+
+    @Override
+    SearchValue<X, S> withTimeout(Duration timeout);
+
+    @Override
+    SearchValue<X, S> withCancellation(CancellationToken cancellation);
 }
@@ -13,8 +13,10 @@ import jakarta.persistence.TemporalType;
 import jakarta.persistence.criteria.AbstractQuery;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.PluralAttribute;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
@@ -68,6 +70,26 @@ class SearchValueImpl<X, S extends Selection<X>> extends SearchStreamImpl<X, S>
         return (SearchValue<X, S>)super.filter(predicateBuilder);
     }
 
+    @Override
+    public SearchValue<X, S> cached(Duration ttl) {
+        return (SearchValue<X, S>)super.cached(ttl);
+    }
+
+    @Override
+    public SearchValue<X, S> readOnly() {
+        return (SearchValue<X, S>)super.readOnly();
+    }
+
+    @Override
+    public SearchValue<X, S> readOnly(boolean detach) {
+        return (SearchValue<X, S>)super.readOnly(detach);
+    }
+
+    @Override
+    public SearchValue<X, S> batchFetch(PluralAttribute<? super X, ?, ?> attribute, int batchSize) {
+        return (SearchValue<X, S>)super.batchFetch(attribute, batchSize);
+    }
+
     @Override
     public SearchValue<X, S> withFlushMode(FlushModeType flushMode) {
         return (SearchValue<X, S>)super.withFlushMode(flushMode);
@@ -117,4 +139,14 @@ class SearchValueImpl<X, S extends Selection<X>> extends SearchStreamImpl<X, S>
     public SearchValue<X, S> withFetchGraph(String name) {
         return (SearchValue<X, S>)super.withFetchGraph(name);
     }
+
+    @Override
+    public SearchValue<X, S> withTimeout(Duration timeout) {
+        return (SearchValue<X, S>)super.withTimeout(timeout);
+    }
+
+    @Override
+    public SearchValue<X, S> withCancellation(CancellationToken cancellation) {
+        return (SearchValue<X, S>)super.withCancellation(cancellation);
+    }
 }
@@ -0,0 +1,89 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Identifies a position in a sorted {@link SearchStream} for keyset ("seek") pagination.
+ *
+ * <p>
+ * A cursor contains the values of the stream's sort keys for some row, in the same order as the stream's
+ * {@linkplain SearchStream#orderBy sort orderings}. Passing a cursor to {@link SearchStream#seekAfter(SeekCursor)}
+ * restricts the stream to the rows that sort strictly after that row.
+ *
+ * <p>
+ * Cursors are normally obtained from {@link SeekPage#getNextCursor} and treated as opaque tokens, but they may also be
+ * constructed directly via {@link #of of()}.
+ *
+ * <p>
+ * Instances are immutable.
+ *
+ * @see SearchStream#pageAfter SearchStream.pageAfter()
+ */
+public final class SeekCursor {
+
+    private final List<Object> sortKeys;
+
+    private SeekCursor(List<Object> sortKeys) {
+        this.sortKeys = sortKeys;
+    }
+
+    /**
+     * Create a cursor from the given sort key values.
+     *
+     * @param sortKeys sort key values, in the same order as the stream's sort orderings
+     * @return new cursor
+     * @throws IllegalArgumentException if {@code sortKeys} is null or empty
+     * @throws IllegalArgumentException if any sort key value is null or not {@link Comparable}
+     */
+    public static SeekCursor of(Object... sortKeys) {
+        if (sortKeys == null)
+            throw new IllegalArgumentException("null sortKeys");
+        if (sortKeys.length == 0)
+            throw new IllegalArgumentException("empty sortKeys");
+        for (Object sortKey : sortKeys) {
+            if (sortKey == null)
+                throw new IllegalArgumentException("null sort key");
+            if (!(sortKey instanceof Comparable))
+                throw new IllegalArgumentException("sort key is not Comparable: " + sortKey);
+        }
+        return new SeekCursor(Collections.unmodifiableList(Arrays.asList(sortKeys.clone())));
+    }
+
+    /**
+     * Get the sort key values.
+     *
+     * @return immutable list of sort key values
+     */
+    public List<Object> getSortKeys() {
+        return this.sortKeys;
+    }
+
+// Object
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this)
+            return true;
+        if (obj == null || obj.getClass() != this.getClass())
+            return false;
+        final SeekCursor that = (SeekCursor)obj;
+        return this.sortKeys.equals(that.sortKeys);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.sortKeys.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[sortKeys=" + this.sortKeys + "]";
+    }
+}
@@ -0,0 +1,68 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of results from {@link SearchStream#pageAfter SearchStream.pageAfter()}.
+ *
+ * <p>
+ * Instances are immutable.
+ *
+ * @param <X> stream item type
+ */
+public final class SeekPage<X> {
+
+    private final List<X> items;
+    private final SeekCursor nextCursor;
+
+    SeekPage(List<X> items, SeekCursor nextCursor) {
+        if (items == null)
+            throw new IllegalArgumentException("null items");
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Get the items in this page.
+     *
+     * @return immutable list of items
+     */
+    public List<X> getItems() {
+        return this.items;
+    }
+
+    /**
+     * Get the cursor identifying the last item in this page, to be used to retrieve the next page.
+     *
+     * <p>
+     * This returns null if this page contained fewer items than requested, which means there are no more pages.
+     * Note that if the last page happens to be full, the following page will be empty.
+     *
+     * @return cursor for the next page, or null if there is no next page
+     */
+    public SeekCursor getNextCursor() {
+        return this.nextCursor;
+    }
+
+    /**
+     * Determine whether there may be more items after this page.
+     *
+     * @return true if {@link #getNextCursor} is not null
+     */
+    public boolean hasNext() {
+        return this.nextCursor != null;
+    }
+
+// Object
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[items=" + this.items + ",nextCursor=" + this.nextCursor + "]";
+    }
+}
@@ -0,0 +1,127 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.AbstractMap;
+import java.util.DoubleSummaryStatistics;
+import java.util.IntSummaryStatistics;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+
+/**
+ * Support for {@link IntStream#summaryStatistics}, {@link LongStream#summaryStatistics},
+ * and {@link DoubleStream#summaryStatistics}.
+ *
+ * <p>
+ * The count, sum, minimum, and maximum are selected together using a constructor expression, so that a single query
+ * suffices; the average is derived from the count and sum. Because SQL's {@code SUM()}, {@code MIN()}, and {@code MAX()}
+ * return null when there are no rows, the constructors below accept boxed values and map null to "no values".
+ */
+final class SummaryStatistics {
+
+    private SummaryStatistics() {
+    }
+
+// Selections
+
+    @SuppressWarnings("unchecked")
+    static Selection<IntSummaryStatistics> ofInt(CriteriaBuilder builder, Expression<Integer> expr) {
+        return (Selection<IntSummaryStatistics>)(Selection<?>)builder.construct(IntStats.class,
+          builder.count(expr), builder.sumAsLong(expr), builder.min(expr), builder.max(expr));
+    }
+
+    @SuppressWarnings("unchecked")
+    static Selection<LongSummaryStatistics> ofLong(CriteriaBuilder builder, Expression<Long> expr) {
+        return (Selection<LongSummaryStatistics>)(Selection<?>)builder.construct(LongStats.class,
+          builder.count(expr), builder.sum(expr), builder.min(expr), builder.max(expr));
+    }
+
+    @SuppressWarnings("unchecked")
+    static Selection<DoubleSummaryStatistics> ofDouble(CriteriaBuilder builder, Expression<Double> expr) {
+        return (Selection<DoubleSummaryStatistics>)(Selection<?>)builder.construct(DoubleStats.class,
+          builder.count(expr), builder.sum(expr), builder.min(expr), builder.max(expr));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K> Selection<Map.Entry<K, IntSummaryStatistics>> ofInt(CriteriaBuilder builder,
+      Expression<K> key, Expression<Integer> expr) {
+        return (Selection<Map.Entry<K, IntSummaryStatistics>>)(Selection<?>)builder.construct(IntEntry.class,
+          key, builder.count(expr), builder.sumAsLong(expr), builder.min(expr), builder.max(expr));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K> Selection<Map.Entry<K, LongSummaryStatistics>> ofLong(CriteriaBuilder builder,
+      Expression<K> key, Expression<Long> expr) {
+        return (Selection<Map.Entry<K, LongSummaryStatistics>>)(Selection<?>)builder.construct(LongEntry.class,
+          key, builder.count(expr), builder.sum(expr), builder.min(expr), builder.max(expr));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K> Selection<Map.Entry<K, DoubleSummaryStatistics>> ofDouble(CriteriaBuilder builder,
+      Expression<K> key, Expression<Double> expr) {
+        return (Selection<Map.Entry<K, DoubleSummaryStatistics>>)(Selection<?>)builder.construct(DoubleEntry.class,
+          key, builder.count(expr), builder.sum(expr), builder.min(expr), builder.max(expr));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> Class<Map.Entry<K, V>> entryType() {
+        return (Class<Map.Entry<K, V>>)(Class<?>)Map.Entry.class;
+    }
+
+// Result classes - these are instantiated by the JPA provider
+
+    static class IntStats extends IntSummaryStatistics {
+
+        public IntStats(Long count, Long sum, Integer min, Integer max) {
+            super(count != null ? count : 0, min != null ? min : Integer.MAX_VALUE,
+              max != null ? max : Integer.MIN_VALUE, sum != null ? sum : 0);
+        }
+    }
+
+    static class LongStats extends LongSummaryStatistics {
+
+        public LongStats(Long count, Long sum, Long min, Long max) {
+            super(count != null ? count : 0, min != null ? min : Long.MAX_VALUE,
+              max != null ? max : Long.MIN_VALUE, sum != null ? sum : 0);
+        }
+    }
+
+    static class DoubleStats extends DoubleSummaryStatistics {
+
+        public DoubleStats(Long count, Double sum, Double min, Double max) {
+            super(count != null ? count : 0, min != null ? min : Double.POSITIVE_INFINITY,
+              max != null ? max : Double.NEGATIVE_INFINITY, sum != null ? sum : 0.0);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static class IntEntry extends AbstractMap.SimpleImmutableEntry<Object, IntSummaryStatistics> {
+
+        public IntEntry(Object key, Long count, Long sum, Integer min, Integer max) {
+            super(key, new IntStats(count, sum, min, max));
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static class LongEntry extends AbstractMap.SimpleImmutableEntry<Object, LongSummaryStatistics> {
+
+        public LongEntry(Object key, Long count, Long sum, Long min, Long max) {
+            super(key, new LongStats(count, sum, min, max));
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static class DoubleEntry extends AbstractMap.SimpleImmutableEntry<Object, DoubleSummaryStatistics> {
+
+        public DoubleEntry(Object key, Long count, Double sum, Double min, Double max) {
+            super(key, new DoubleStats(count, sum, min, max));
+        }
+    }
+}
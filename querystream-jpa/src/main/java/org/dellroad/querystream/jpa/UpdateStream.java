@@ -5,6 +5,7 @@
 
 package org.dellroad.querystream.jpa;
 
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.FlushModeType;
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.Parameter;
@@ -17,9 +18,12 @@ import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Selection;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -40,6 +44,86 @@ public interface UpdateStream<X> extends QueryStream<X, Root<X>, CriteriaUpdate<
      */
     int update();
 
+    /**
+     * Build a JPA query based on this instance and execute it asynchronously.
+     *
+     * <p>
+     * Equivalent to {@link #updateAsync(Executor) updateAsync}{@code (null)}.
+     *
+     * @return future number of entities updated
+     * @see #updateAsync(Executor)
+     */
+    default CompletableFuture<Integer> updateAsync() {
+        return this.updateAsync(null);
+    }
+
+    /**
+     * Build a JPA query based on this instance and execute it asynchronously.
+     *
+     * <p>
+     * The Criteria API query is built immediately, on the calling thread, so any {@link Ref}s are bound
+     * before this method returns. The update is then executed by {@code executor} using a new {@link EntityManager}
+     * created from the {@link jakarta.persistence.EntityManagerFactory} of this stream's {@link EntityManager}.
+     * If that {@link EntityManager} supports resource-local transactions, the update executes within its own new
+     * transaction, which is committed when the update succeeds; otherwise, the caller is responsible for arranging
+     * a transaction on the executing thread. In either case, the update is not part of the current transaction (if any).
+     *
+     * @param executor executes the update, or null for the {@link CompletableFuture} default executor
+     * @return future number of entities updated
+     * @see #update
+     */
+    default CompletableFuture<Integer> updateAsync(Executor executor) {
+        return QueryStreamImpl.executeAsync(this, "updateAsync()", executor, Query::executeUpdate, rowCount -> rowCount);
+    }
+
+    /**
+     * Build and execute a JPA query based on this instance in batches, each of which updates at most {@code batchSize}
+     * entities.
+     *
+     * <p>
+     * Equivalent to {@link #updateInBatches(int, Consumer, Consumer) updateInBatches}{@code (batchSize, null, null)}.
+     *
+     * @param batchSize maximum number of entities updated per batch
+     * @return the number of entities updated
+     * @throws IllegalArgumentException if {@code batchSize} is not positive
+     * @throws IllegalArgumentException if the entity type does not have a single, comparable identifier
+     * @throws UnsupportedOperationException if this stream has had {@link #skip skip()} or {@link #limit limit()} applied
+     * @see #updateInBatches(int, Consumer, Consumer)
+     */
+    default int updateInBatches(int batchSize) {
+        return this.updateInBatches(batchSize, null, null);
+    }
+
+    /**
+     * Build and execute a JPA query based on this instance in batches, each of which updates at most {@code batchSize}
+     * entities.
+     *
+     * <p>
+     * A single {@link #update()} of a large number of entities can hold row locks for a long time and generate
+     * a large amount of undo/redo information. This method instead splits the target entities into consecutive ranges
+     * of the entity identifier, each containing at most {@code batchSize} entities, and executes a separate bulk
+     * update for each range. The range bounds are found by querying, in order, the identifiers of the entities matching
+     * this stream's filters, so each batch targets exactly {@code batchSize} entities, except possibly the last.
+     * A batch may still update fewer entities if matching entities are concurrently changed or removed.
+     *
+     * <p>
+     * Each batch is executed by passing a {@link Runnable} to {@code batchRunner}, which would typically run it
+     * in its own transaction, so that locks are released and changes become visible after each batch; for example,
+     * with Spring's {@code TransactionTemplate}, use {@code batch -> tx.executeWithoutResult(status -> batch.run())}.
+     * If {@code batchRunner} is null, each batch is simply executed within the current transaction.
+     * After each batch, {@code progressListener} (if any) is notified with the number of entities updated
+     * and the time taken.
+     *
+     * @param batchSize maximum number of entities updated per batch
+     * @param batchRunner executes each batch, or null to execute each batch directly
+     * @param progressListener receives progress after each batch, or null for none
+     * @return the number of entities updated
+     * @throws IllegalArgumentException if {@code batchSize} is not positive
+     * @throws IllegalArgumentException if the entity type does not have a single, comparable identifier
+     * @throws UnsupportedOperationException if this stream has had {@link #skip skip()} or {@link #limit limit()} applied
+     */
+    int updateInBatches(int batchSize, Consumer<? super Runnable> batchRunner, Consumer<? super BatchProgress> progressListener);
+
 // Setters
 
     /**
@@ -171,4 +255,10 @@ public interface UpdateStream<X> extends QueryStream<X, Root<X>, CriteriaUpdate<
 
     @Override
     UpdateStream<X> withFetchGraph(String name);
+
+    @Override
+    UpdateStream<X> withTimeout(Duration timeout);
+
+    @Override
+    UpdateStream<X> withCancellation(CancellationToken cancellation);
 }
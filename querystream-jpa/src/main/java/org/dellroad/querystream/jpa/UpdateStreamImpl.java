@@ -11,6 +11,7 @@ import jakarta.persistence.LockModeType;
 import jakarta.persistence.Parameter;
 import jakarta.persistence.Query;
 import jakarta.persistence.TemporalType;
+import jakarta.persistence.criteria.AbstractQuery;
 import jakarta.persistence.criteria.CriteriaUpdate;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Path;
@@ -18,6 +19,7 @@ import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Selection;
 import jakarta.persistence.metamodel.SingularAttribute;
 
+import java.time.Duration;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
@@ -31,27 +33,40 @@ class UpdateStreamImpl<X>
   extends QueryStreamImpl<X, Root<X>, CriteriaUpdate<X>, CriteriaUpdate<X>, Query, UpdateType<X>>
   implements UpdateStream<X> {
 
+    final QueryConfigurer<AbstractQuery<?>, X, ? extends Root<X>> searchConfigurer;    // selects target rows, for batching
+
 // Constructors
 
-    UpdateStreamImpl(EntityManager entityManager, Class<X> type) {
-        this(entityManager, new UpdateType<X>(type));
+    UpdateStreamImpl(EntityManager entityManager, Class<X> type, QueryInfo queryInfo) {
+        this(entityManager, new UpdateType<X>(type), queryInfo);
     }
 
     // Separate constructor to avoid bogus error ("cannot reference queryType before supertype constructor has been called")
-    private UpdateStreamImpl(EntityManager entityManager, UpdateType<X> queryType) {
-        super(entityManager, queryType, (builder, query) -> query.from(queryType.getType()), new QueryInfo());
+    private UpdateStreamImpl(EntityManager entityManager, UpdateType<X> queryType, QueryInfo queryInfo) {
+        this(entityManager, queryType, (builder, query) -> query.from(queryType.getType()),
+          BulkBatches.searchRoot(queryType.getType()), queryInfo);
     }
 
     private UpdateStreamImpl(EntityManager entityManager, UpdateType<X> queryType,
-      QueryConfigurer<CriteriaUpdate<X>, X, ? extends Root<X>> configurer, QueryInfo queryInfo) {
+      QueryConfigurer<CriteriaUpdate<X>, X, ? extends Root<X>> configurer,
+      QueryConfigurer<AbstractQuery<?>, X, ? extends Root<X>> searchConfigurer, QueryInfo queryInfo) {
         super(entityManager, queryType, configurer, queryInfo);
+        if (searchConfigurer == null)
+            throw new IllegalArgumentException("null searchConfigurer");
+        this.searchConfigurer = searchConfigurer;
     }
 
 // UpdateStream
 
     @Override
     public int update() {
-        return this.toQuery().executeUpdate();
+        return this.execute("update()", Query::executeUpdate, rowCount -> rowCount);
+    }
+
+    @Override
+    public int updateInBatches(int batchSize,
+      Consumer<? super Runnable> batchRunner, Consumer<? super BatchProgress> progressListener) {
+        return BulkBatches.execute(this, this.searchConfigurer, "updateInBatches()", batchSize, batchRunner, progressListener);
     }
 
     @Override
@@ -116,7 +131,15 @@ class UpdateStreamImpl<X>
     @Override
     UpdateStream<X> create(EntityManager entityManager, UpdateType<X> queryType,
       QueryConfigurer<CriteriaUpdate<X>, X, ? extends Root<X>> configurer, QueryInfo queryInfo) {
-        return new UpdateStreamImpl<>(entityManager, queryType, configurer, queryInfo);
+        return new UpdateStreamImpl<>(entityManager, queryType, configurer, this.searchConfigurer, queryInfo);
+    }
+
+    // Extend the search-side configurer of the given stream, which was derived from this one by filtering, etc.
+    @SuppressWarnings("unchecked")
+    private UpdateStream<X> withSearchConfig(QueryStream<?, ?, ?, ?, ?> stream,
+      QueryConfigurer<AbstractQuery<?>, X, ? extends Root<X>> searchConfigurer) {
+        final UpdateStreamImpl<X> impl = (UpdateStreamImpl<X>)stream;
+        return new UpdateStreamImpl<>(this.entityManager, this.queryType, impl.configurer, searchConfigurer, impl.queryInfo);
     }
 
     @Override
@@ -144,22 +167,23 @@ class UpdateStreamImpl<X>
     @Override
     public <X2, S2 extends Selection<X2>> UpdateStream<X> bind(
       Ref<X2, ? super S2> ref, Function<? super Root<X>, ? extends S2> refFunction) {
-        return (UpdateStream<X>)super.bind(ref, refFunction);
+        return this.withSearchConfig(super.bind(ref, refFunction), BulkBatches.bind(this.searchConfigurer, ref, refFunction));
     }
 
     @Override
     public UpdateStream<X> peek(Consumer<? super Root<X>> peeker) {
-        return (UpdateStream<X>)super.peek(peeker);
+        return this.withSearchConfig(super.peek(peeker), BulkBatches.peek(this.searchConfigurer, peeker));
     }
 
     @Override
     public UpdateStream<X> filter(SingularAttribute<? super X, Boolean> attribute) {
-        return (UpdateStream<X>)super.filter(attribute);
+        return this.withSearchConfig(super.filter(attribute), BulkBatches.filter(this.searchConfigurer, attribute));
     }
 
     @Override
     public UpdateStream<X> filter(Function<? super Root<X>, ? extends Expression<Boolean>> predicateBuilder) {
-        return (UpdateStream<X>)super.filter(predicateBuilder);
+        return this.withSearchConfig(super.filter(predicateBuilder),
+          BulkBatches.filter(this.searchConfigurer, predicateBuilder));
     }
 
     @Override
@@ -221,4 +245,14 @@ class UpdateStreamImpl<X>
     public UpdateStream<X> withFetchGraph(String name) {
         return (UpdateStream<X>)super.withFetchGraph(name);
     }
+
+    @Override
+    public UpdateStream<X> withTimeout(Duration timeout) {
+        return (UpdateStream<X>)super.withTimeout(timeout);
+    }
+
+    @Override
+    public UpdateStream<X> withCancellation(CancellationToken cancellation) {
+        return (UpdateStream<X>)super.withCancellation(cancellation);
+    }
 }
@@ -0,0 +1,190 @@
+
+/*
+ * Copyright (C) 2018 Archie L. Cobbs. All rights reserved.
+ */
+
+package org.dellroad.querystream.jpa;
+
+import jakarta.persistence.NoResultException;
+import jakarta.persistence.NonUniqueResultException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The materialized result of {@link SearchValue#fetch SearchValue.fetch()}.
+ *
+ * <p>
+ * An instance captures the outcome of a single query execution: either there was exactly one result (which
+ * may be null), no result, or more than one result. Inspecting an instance never executes another query.
+ *
+ * <p>
+ * Instances are immutable.
+ *
+ * @param <X> result type
+ */
+public final class ValueResult<X> {
+
+    private static final ValueResult<?> ABSENT = new ValueResult<>(null, 0);
+    private static final ValueResult<?> NON_UNIQUE = new ValueResult<>(null, 2);
+
+    private final X value;
+    private final int count;                            // 0, 1, or 2 meaning "more than one"
+
+    private ValueResult(X value, int count) {
+        this.value = value;
+        this.count = count;
+    }
+
+    // Create an instance from the results of a query limited to at most two rows
+    @SuppressWarnings("unchecked")
+    static <X> ValueResult<X> of(List<? extends X> results) {
+        switch (results.size()) {
+        case 0:
+            return (ValueResult<X>)ValueResult.ABSENT;
+        case 1:
+            return new ValueResult<>(results.get(0), 1);
+        default:
+            return (ValueResult<X>)ValueResult.NON_UNIQUE;
+        }
+    }
+
+    /**
+     * Get the single result.
+     *
+     * @return query result, possibly null
+     * @throws NoResultException if there was no result
+     * @throws NonUniqueResultException if there was more than one result
+     */
+    public X get() {
+        this.checkUnique();
+        if (this.count == 0)
+            throw new NoResultException("query returned no result");
+        return this.value;
+    }
+
+    /**
+     * Determine whether the query returned exactly one result.
+     *
+     * @return true if there was a single result, false if there was no result
+     * @throws NonUniqueResultException if there was more than one result
+     */
+    public boolean isPresent() {
+        this.checkUnique();
+        return this.count == 1;
+    }
+
+    /**
+     * Determine whether the query returned no result.
+     *
+     * @return true if there was no result, otherwise false
+     */
+    public boolean isAbsent() {
+        return this.count == 0;
+    }
+
+    /**
+     * Determine whether the query returned more than one result.
+     *
+     * <p>
+     * Unlike most other methods in this class, this method never throws {@link NonUniqueResultException}.
+     *
+     * @return true if there was more than one result, otherwise false
+     */
+    public boolean isNonUnique() {
+        return this.count > 1;
+    }
+
+    /**
+     * Get the single result, if any, otherwise the given value.
+     *
+     * @param defaultValue value to return if there was no result
+     * @return query result, or {@code defaultValue} if not found
+     * @throws NonUniqueResultException if there was more than one result
+     */
+    public X orElse(X defaultValue) {
+        return this.isPresent() ? this.value : defaultValue;
+    }
+
+    /**
+     * Get the single result, if any, otherwise the value from the given {@link Supplier}.
+     *
+     * @param supplier supplier of default value
+     * @return query result, or value from {@code supplier} if not found
+     * @throws NonUniqueResultException if there was more than one result
+     * @throws IllegalArgumentException if {@code supplier} is null
+     */
+    public X orElseGet(Supplier<? extends X> supplier) {
+        if (supplier == null)
+            throw new IllegalArgumentException("null supplier");
+        return this.isPresent() ? this.value : supplier.get();
+    }
+
+    /**
+     * Get the single result, if any, otherwise throw an exception provided by the given {@link Supplier}.
+     *
+     * @param supplier creator of exception
+     * @param <T> exception type
+     * @return query result
+     * @throws T if there was no result
+     * @throws NonUniqueResultException if there was more than one result
+     * @throws IllegalArgumentException if {@code supplier} is null
+     */
+    public <T extends Throwable> X orElseThrow(Supplier<? extends T> supplier) throws T {
+        if (supplier == null)
+            throw new IllegalArgumentException("null supplier");
+        if (!this.isPresent())
+            throw supplier.get();
+        return this.value;
+    }
+
+    /**
+     * Give the single result, if any, to the given {@link Consumer}.
+     *
+     * @param consumer receives the query result, if any
+     * @throws NonUniqueResultException if there was more than one result
+     * @throws IllegalArgumentException if {@code consumer} is null
+     */
+    public void ifPresent(Consumer<? super X> consumer) {
+        if (consumer == null)
+            throw new IllegalArgumentException("null consumer");
+        if (this.isPresent())
+            consumer.accept(this.value);
+    }
+
+    /**
+     * Get the single result, if any, as an {@link Optional}.
+     *
+     * @return the optional query result
+     * @throws NonUniqueResultException if there was more than one result
+     * @throws IllegalArgumentException if the query result was null
+     */
+    public Optional<X> toOptional() {
+        if (!this.isPresent())
+            return Optional.empty();
+        if (this.value == null)
+            throw new IllegalArgumentException("null values cannot be represented in Optional");
+        return Optional.of(this.value);
+    }
+
+    private void checkUnique() {
+        if (this.count > 1)
+            throw new NonUniqueResultException("query returned more than one result");
+    }
+
+// Object
+
+    @Override
+    public String toString() {
+        switch (this.count) {
+        case 0:
+            return "ValueResult[absent]";
+        case 1:
+            return "ValueResult[value=" + this.value + "]";
+        default:
+            return "ValueResult[non-unique]";
+        }
+    }
+}
@@ -6,8 +6,15 @@
 package org.dellroad.querystream.jpa;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.NoResultException;
+import jakarta.persistence.NonUniqueResultException;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnitUtil;
 import jakarta.persistence.TemporalType;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.ParameterExpression;
@@ -20,17 +27,37 @@ import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Duration;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.DoubleSummaryStatistics;
+import java.util.IntSummaryStatistics;
+import java.util.Iterator;
 import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.dellroad.querystream.test.io.CapturePrintStream;
+import org.dellroad.querystream.test.jpa.Department;
+import org.dellroad.querystream.test.jpa.Department_;
 import org.dellroad.querystream.test.jpa.Employee;
 import org.dellroad.querystream.test.jpa.Employee_;
 import org.hibernate.Session;
@@ -67,21 +94,9 @@ public class QueryTest {
     public void testQueries(TestCase testCase) throws Exception {
 
         // Execute query, while capturing Hibernate's logging
-        final byte[] capture;
-        final PrintStream originalOut = System.out;
-        try (CapturePrintStream captureOut = CapturePrintStream.of(originalOut)) {
-            captureOut.startCapture();
-            System.setOut(captureOut);
-            this.runQuery(testCase);
-            System.out.flush();
-            capture = captureOut.stopCapture();
-        } finally {
-            System.setOut(originalOut);
-        }
+        final String actualNormalized = this.captureSQL(() -> this.runQuery(testCase));
 
-        // Grab and massage Hibernate SQL output and expected output
-        final String actual = new String(capture);
-        final String actualNormalized = actual.replaceAll("^Hibernate:", "").replaceAll("(?s)\\s+", " ").trim();
+        // Massage expected output
         final String expected = testCase.getSQL();
         final String expectedNormalized = expected.replaceAll("(?s)\\s+", " ").trim();
 
@@ -89,15 +104,31 @@ public class QueryTest {
         //this.log.info("EXPECTED SQL:");
         //this.log.info(expected);
         //this.log.info("ACTUAL SQL:");
-        //this.log.info(actual);
+        //this.log.info(actualNormalized);
         //this.log.info("^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^");
 
         // Compare generated SQL to expected
         Assert.assertEquals(actualNormalized, expectedNormalized);
     }
 
+    // Run the given action and return the SQL logged by Hibernate, normalized
+    private String captureSQL(Runnable action) {
+        final byte[] capture;
+        final PrintStream originalOut = System.out;
+        try (CapturePrintStream captureOut = CapturePrintStream.of(originalOut)) {
+            captureOut.startCapture();
+            System.setOut(captureOut);
+            action.run();
+            System.out.flush();
+            capture = captureOut.stopCapture();
+        } finally {
+            System.setOut(originalOut);
+        }
+        return new String(capture).replaceAll("^Hibernate:", "").replaceAll("(?s)\\s+", " ").trim();
+    }
+
     @Transactional
-    public void runQuery(TestCase testCase) throws Exception {
+    public void runQuery(TestCase testCase) {
         final QueryStream<?, ?, ?, ?, ?> stream = testCase.getQueryStream();
         if (stream instanceof SearchStream)
             ((SearchStream<?, ?>)stream).getResultList().size();
@@ -522,6 +553,1339 @@ public class QueryTest {
 //          .orElse(null), null);
     }
 
+    @Test
+    @Transactional
+    public void testCompiledQuery() throws Exception {
+
+        // Create some employees
+        final String prefix = "compiled" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        for (int i = 0; i < 3; i++) {
+            final Employee employee = new Employee();
+            employee.setName(prefix + i);
+            this.entityManager.persist(employee);
+        }
+        this.entityManager.flush();
+
+        // Compile a query, counting how many times the stream is built
+        final AtomicInteger builds = new AtomicInteger();
+        final ParameterExpression<String> nameParam = this.qb.parameter(String.class, "name");
+        final CompiledQuery<String, CriteriaQuery<String>, TypedQuery<String>> compiled = this.qb.stream(Employee.class)
+          .filter(e -> {
+            builds.incrementAndGet();
+            return this.qb.like(e.get(Employee_.name), nameParam);
+          })
+          .orderBy(Employee_.name, true)
+          .map(Employee_.name)
+          .compile();
+        Assert.assertEquals(builds.get(), 0);
+        Assert.assertEquals(compiled.getCacheHits(), 0);
+        Assert.assertEquals(compiled.getCacheMisses(), 0);
+
+        // The first execution builds the query
+        Assert.assertEquals(compiled.withParam(nameParam, prefix + "%").toQuery().getResultList(),
+          Arrays.asList(prefix + 0, prefix + 1, prefix + 2));
+        Assert.assertEquals(builds.get(), 1);
+        Assert.assertEquals(compiled.getCacheHits(), 0);
+        Assert.assertEquals(compiled.getCacheMisses(), 1);
+
+        // Subsequent executions rebind parameters and limits against the cached query
+        Assert.assertEquals(compiled.withParam(nameParam, prefix + 1).toQuery().getResultList(), Arrays.asList(prefix + 1));
+        Assert.assertEquals(compiled.withParam(nameParam, prefix + "%").withMaxResults(2).toQuery().getResultList(),
+          Arrays.asList(prefix + 0, prefix + 1));
+        Assert.assertEquals(compiled.withParam(nameParam, prefix + "%").withFirstResult(2).toQuery().getResultList(),
+          Arrays.asList(prefix + 2));
+        Assert.assertEquals(builds.get(), 1);
+        Assert.assertEquals(compiled.getCacheHits(), 3);
+        Assert.assertEquals(compiled.getCacheMisses(), 1);
+        Assert.assertEquals(compiled.withParam(nameParam, prefix + 2).getMaxResults(), -1);
+    }
+
+    @Test
+    @Transactional
+    public void testSeekPagination() throws Exception {
+
+        // Create some employees with duplicate names
+        final String prefix = "seek" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        final ArrayList<Employee> expected = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            final Employee employee = new Employee();
+            employee.setName(prefix + (char)('a' + i % 3));
+            employee.setSalary(1000.0f * i);
+            this.entityManager.persist(employee);
+            expected.add(employee);
+        }
+        expected.sort(Comparator.comparing(Employee::getName).thenComparing(Employee::getId, Comparator.reverseOrder()));
+
+        // Page through them
+        final RootStream<Employee> stream = this.qb.stream(Employee.class)
+          .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%"))
+          .orderBy(Employee_.name, true, Employee_.id, false);
+        final ArrayList<Employee> actual = new ArrayList<>();
+        SeekCursor cursor = null;
+        int numPages = 0;
+        do {
+            final SeekPage<Employee> page = stream.pageAfter(cursor, 3);
+            actual.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            numPages++;
+        } while (cursor != null);
+        Assert.assertEquals(actual, expected);
+        Assert.assertEquals(numPages, 3);
+
+        // Seek directly
+        final Employee third = expected.get(2);
+        Assert.assertEquals(stream.seekAfter(third.getName(), third.getId()).getResultList(), expected.subList(3, expected.size()));
+
+        // Sort key values are bound as parameters, so every cursor produces the same SQL
+        final TypedQuery<Employee> seekQuery = stream.seekAfter(third.getName(), third.getId()).toQuery();
+        Assert.assertEquals(seekQuery.getParameters().stream()
+          .map(param -> (Object)seekQuery.getParameterValue(param))
+          .collect(Collectors.toSet()), Set.of(third.getName(), third.getId()));
+        final Employee fifth = expected.get(4);
+        final String sql3 = this.captureSQL(() -> stream.seekAfter(third.getName(), third.getId()).getResultList());
+        final String sql5 = this.captureSQL(() -> stream.seekAfter(fifth.getName(), fifth.getId()).getResultList());
+        Assert.assertEquals(sql3, sql5);
+        Assert.assertFalse(sql3.isEmpty());
+
+        // Null sort key values can't be used to build the next cursor
+        final RootStream<Employee> nullable = this.qb.stream(Employee.class)
+          .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%"))
+          .orderBy(Employee_.id, true)
+          .thenOrderBy(e -> this.qb.nullif(e.get(Employee_.name), prefix + "a"), true);
+        try {
+            nullable.pageAfter(null, 1);
+            assert false;
+        } catch (IllegalStateException e) {
+            this.log.debug("got expected " + e);
+        }
+    }
+
+    @Test
+    @Transactional
+    public void testStreamInChunks() throws Exception {
+
+        // Create some employees with duplicate names
+        final String prefix = "chunks" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        final ArrayList<Employee> expected = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            final Employee employee = new Employee();
+            employee.setName(prefix + (char)('a' + i % 3));
+            this.entityManager.persist(employee);
+            expected.add(employee);
+        }
+        expected.sort(Comparator.comparing(Employee::getName).thenComparing(Employee::getId));
+
+        // Stream in chunks
+        final RootStream<Employee> stream = this.qb.stream(Employee.class)
+          .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%"))
+          .orderBy(Employee_.name, true, Employee_.id, true);
+        Assert.assertEquals(stream.streamInChunks(2).collect(Collectors.toList()), expected);
+        Assert.assertEquals(stream.streamInChunks(7).collect(Collectors.toList()), expected);
+        Assert.assertEquals(stream.streamInChunks(3, true).collect(Collectors.toList()), expected);
+        Assert.assertFalse(this.entityManager.contains(expected.get(0)));
+
+        // Null actions are rejected per the Spliterator contract
+        try {
+            stream.streamInChunks(2).spliterator().tryAdvance(null);
+            assert false;
+        } catch (NullPointerException e) {
+            this.log.debug("got expected " + e);
+        }
+
+        // Sort orderings are required
+        try {
+            this.qb.stream(Employee.class).streamInChunks(2).findFirst();
+            assert false;
+        } catch (IllegalStateException e) {
+            this.log.debug("got expected " + e);
+        }
+    }
+
+    @Test
+    @Transactional
+    public void testPage() throws Exception {
+
+        // Create some employees
+        final String prefix = "page" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        final ArrayList<Employee> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final Employee employee = new Employee();
+            employee.setName(prefix + i);
+            this.entityManager.persist(employee);
+            expected.add(employee);
+        }
+
+        // Get pages
+        final RootStream<Employee> stream = this.qb.stream(Employee.class)
+          .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%"))
+          .orderBy(Employee_.name, true);
+        final Page<Employee> page1 = stream.page(0, 2);
+        Assert.assertEquals(page1.getItems(), expected.subList(0, 2));
+        Assert.assertEquals(page1.getTotalCount(), 5);
+        Assert.assertTrue(page1.hasNext());
+        final Page<Employee> page3 = stream.page(4, 2);
+        Assert.assertEquals(page3.getItems(), expected.subList(4, 5));
+        Assert.assertEquals(page3.getTotalCount(), 5);
+        Assert.assertFalse(page3.hasNext());
+        final Page<Employee> page4 = stream.page(6, 2);
+        Assert.assertEquals(page4.getItems(), expected.subList(5, 5));
+        Assert.assertEquals(page4.getTotalCount(), 5);
+
+        // Grouped and aggregated streams are rejected before any query is executed
+        final ArrayList<QueryExecution> executions = new ArrayList<>();
+        final QueryStream.Builder qb2 = this.qb.withListener(executions::add);
+        try {
+            qb2.stream(Employee.class)
+              .filter(e -> qb2.like(e.get(Employee_.name), prefix + "%"))
+              .groupBy(Employee_.name)
+              .page(0, 2);
+            assert false;
+        } catch (UnsupportedOperationException e) {
+            this.log.debug("got expected " + e);
+        }
+        try {
+            qb2.stream(Employee.class)
+              .filter(e -> qb2.like(e.get(Employee_.name), prefix + "%"))
+              .count()
+              .page(0, 2);
+            assert false;
+        } catch (UnsupportedOperationException e) {
+            this.log.debug("got expected " + e);
+        }
+        Assert.assertEquals(executions.size(), 0);
+    }
+
+    @Test
+    @Transactional
+    public void testBatchedUpdate() throws Exception {
+
+        // Create some employees
+        final String prefix = "batch" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        for (int i = 0; i < 7; i++) {
+            final Employee employee = new Employee();
+            employee.setName(prefix + i);
+            this.entityManager.persist(employee);
+        }
+        this.entityManager.flush();
+
+        // Update them in batches
+        final ArrayList<BatchProgress> progress = new ArrayList<>();
+        final int numUpdated = this.qb.updateStream(Employee.class)
+          .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%"))
+          .set(Employee_.salary, 1234.0f)
+          .filter(e -> this.qb.lessThan(e.get(Employee_.salary), 1000.0f))
+          .updateInBatches(3, null, progress::add);
+        Assert.assertEquals(numUpdated, 7);
+        Assert.assertEquals(progress.get(progress.size() - 1).getTotalRowCount(), 7);
+        Assert.assertTrue(progress.get(progress.size() - 1).isLast());
+        Assert.assertEquals(progress.stream().map(BatchProgress::getRowCount).collect(Collectors.toList()),
+          Arrays.asList(3, 3, 1));                                  // batches cover only the filtered rows
+
+        // Delete them in batches
+        final int numDeleted = this.qb.deleteStream(Employee.class)
+          .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%"))
+          .deleteInBatches(2);
+        Assert.assertEquals(numDeleted, 7);
+    }
+
+    @Test
+    @Transactional
+    public void testListener() throws Exception {
+
+        // Create some employees
+        final String prefix = "listener" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        for (int i = 0; i < 3; i++) {
+            final Employee employee = new Employee();
+            employee.setName(prefix + i);
+            this.entityManager.persist(employee);
+        }
+        this.entityManager.flush();
+
+        // Execute some queries, including from derived streams
+        final ArrayList<QueryExecution> executions = new ArrayList<>();
+        final QueryStatistics stats = new QueryStatistics();
+        final QueryStream.Builder qb2 = this.qb.withListener(execution -> {
+            executions.add(execution);
+            stats.queryExecuted(execution);
+        });
+        final List<String> names = qb2.stream(Employee.class)
+          .filter(e -> qb2.like(e.get(Employee_.name), prefix + "%"))
+          .map(Employee_.name)
+          .getResultList();
+        Assert.assertEquals(names.size(), 3);
+        final long count = qb2.stream(Employee.class)
+          .filter(e -> qb2.like(e.get(Employee_.name), prefix + "%"))
+          .count()
+          .value();
+        Assert.assertEquals(count, 3);
+        final int numDeleted = qb2.deleteStream(Employee.class)
+          .filter(e -> qb2.like(e.get(Employee_.name), prefix + "%"))
+          .delete();
+        Assert.assertEquals(numDeleted, 3);
+
+        // Check reported executions
+        Assert.assertEquals(executions.size(), 3);
+        Assert.assertEquals(executions.get(0).getOperation(), "getResultList()");
+        Assert.assertEquals(executions.get(0).getQueryType().getType(), String.class);
+        Assert.assertEquals(executions.get(0).getRowCount(), 3);
+        Assert.assertEquals(executions.get(1).getOperation(), "value()");
+        Assert.assertEquals(executions.get(2).getOperation(), "delete()");
+        Assert.assertEquals(executions.get(2).getRowCount(), 3);
+        Assert.assertTrue(executions.stream().allMatch(execution -> execution.getFailure() == null));
+
+        // Check statistics
+        final QueryStatistics.Entry entry = stats.getEntries().get("DeleteType<" + Employee.class.getName() + ">.delete()");
+        Assert.assertNotNull(entry);
+        Assert.assertEquals(entry.getCount(), 1);
+        Assert.assertEquals(entry.getRowCount(), 3);
+        Assert.assertEquals(entry.getExecutionTimes().getCount(), 1);
+        Assert.assertTrue(entry.getExecutionTimes().getPercentile(50).compareTo(entry.getExecutionTimes().getMax()) <= 0);
+
+        // Streams from the original builder are not monitored
+        this.qb.stream(Employee.class).getResultList();
+        Assert.assertEquals(executions.size(), 3);
+    }
+
+    @Test
+    @Transactional
+    public void testQueryInfoBindings() throws Exception {
+
+        // Rebinding a hint or parameter replaces the previous binding
+        final ParameterExpression<String> param1 = this.qb.parameter(String.class, "param1");
+        final ParameterExpression<String> param2 = this.qb.parameter(String.class, "param2");
+        QueryInfo info = new QueryInfo()
+          .withHint("a", 1)
+          .withHint("b", 2)
+          .withHint("a", 3)
+          .withParam(param1, "x")
+          .withParam(param2, "y")
+          .withParam(param1, "z");
+        Assert.assertEquals(info.getHints(), Map.of("a", 3, "b", 2));
+        Assert.assertEquals(info.getParams(), Set.of(new ParamBinding<>(param1, "z"), new ParamBinding<>(param2, "y")));
+        info = info
+          .withHints(Map.of("b", 4, "c", 5))
+          .withParams(Collections.singleton(new ParamBinding<>(param2, "w")));
+        Assert.assertEquals(info.getHints(), Map.of("a", 3, "b", 4, "c", 5));
+        Assert.assertEquals(info.getParams(), Set.of(new ParamBinding<>(param1, "z"), new ParamBinding<>(param2, "w")));
+
+        // Merging shares identical bindings and detects conflicting ones
+        Assert.assertSame(info.withMergedInfo(info), info);
+        Assert.assertSame(info.withMergedInfo(new QueryInfo().withParam(param1, "z")), info);
+        try {
+            info.withMergedInfo(new QueryInfo().withParam(param1, "x"));
+            assert false;
+        } catch (IllegalArgumentException e) {
+            this.log.debug("got expected " + e);
+        }
+
+        // Merging larger lists
+        QueryInfo outer = new QueryInfo();
+        QueryInfo inner = new QueryInfo();
+        for (int i = 0; i < 100; i++) {
+            final ParameterExpression<Integer> param = this.qb.parameter(Integer.class);
+            if (i < 60)
+                outer = outer.withParam(param, i);
+            if (i >= 40)
+                inner = inner.withParam(param, i);
+        }
+        Assert.assertEquals(outer.withMergedInfo(inner).getParams().size(), 100);
+
+        // The most recent binding is applied to the query
+        final String prefix = "info" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        final Employee employee = new Employee();
+        employee.setName(prefix + 0);
+        this.entityManager.persist(employee);
+        this.entityManager.flush();
+        Assert.assertEquals(this.qb.stream(Employee.class)
+          .filter(e -> this.qb.equal(e.get(Employee_.name), param1))
+          .withParam(param1, prefix + 1)
+          .withParam(param1, prefix + 0)
+          .getResultList(), Collections.singletonList(employee));
+    }
+
+    @Test
+    @Transactional
+    public void testQueryCache() throws Exception {
+
+        // Create some employees
+        final String prefix = "cache" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        for (int i = 0; i < 3; i++) {
+            final Employee employee = new Employee();
+            employee.setName(prefix + i);
+            this.entityManager.persist(employee);
+        }
+        this.entityManager.flush();
+
+        // Create cached stream
+        final QueryCache cache = new QueryCache();
+        final QueryStream.Builder qb2 = this.qb.withCache(cache);
+        final ParameterExpression<String> nameParam = qb2.parameter(String.class, "name");
+        final LongValue count = qb2.stream(Employee.class)
+          .filter(e -> qb2.like(e.get(Employee_.name), nameParam))
+          .count()
+          .cached(Duration.ofMinutes(1));
+        Assert.assertEquals((long)count.withParam(nameParam, prefix + "%").value(), 3);
+        Assert.assertEquals(cache.size(), 1);
+
+        // Changes not made via bulk update/delete are not seen
+        final Employee employee = new Employee();
+        employee.setName(prefix + "3");
+        this.entityManager.persist(employee);
+        this.entityManager.flush();
+        Assert.assertEquals((long)count.withParam(nameParam, prefix + "%").value(), 3);
+
+        // Different parameter value means different cache entry
+        Assert.assertEquals((long)count.withParam(nameParam, prefix + "3").value(), 1);
+        Assert.assertEquals(cache.size(), 2);
+
+        // Bulk delete invalidates
+        qb2.deleteStream(Employee.class)
+          .filter(e -> qb2.equal(e.get(Employee_.name), prefix + "0"))
+          .delete();
+        Assert.assertEquals(cache.size(), 0);
+        Assert.assertEquals((long)count.withParam(nameParam, prefix + "%").value(), 3);
+
+        // Values derived from a cached stream by operations without arguments hit the cache each time they are derived
+        final ArrayList<QueryExecution> executions = new ArrayList<>();
+        final QueryStream.Builder qb3 = qb2.withListener(executions::add);
+        final RootStream<Employee> employees = qb3.stream(Employee.class)
+          .filter(e -> qb3.like(e.get(Employee_.name), prefix + "%"))
+          .cached(Duration.ofMinutes(1));
+        Assert.assertEquals((long)employees.count().value(), 3);
+        Assert.assertEquals((long)employees.count().value(), 3);
+        Assert.assertEquals(employees.page(0, 2).getTotalCount(), 3);
+        Assert.assertEquals(employees.page(0, 2).getTotalCount(), 3);
+        Assert.assertEquals(executions.stream().map(QueryExecution::isCacheHit).collect(Collectors.toList()),
+          Arrays.asList(false, true, false, false, true, true));
+        executions.clear();
+
+        // So do chains of such operations on a stream derived with arguments, provided that stream is reused
+        final IntStream salaries = employees.mapToInt(Employee_.salary);
+        salaries.asLongStream().sum().value();
+        salaries.asLongStream().sum().value();
+        Assert.assertEquals(executions.stream().map(QueryExecution::isCacheHit).collect(Collectors.toList()),
+          Arrays.asList(false, true));
+        executions.clear();
+
+        // Operations with arguments create new queries each time, which miss unless the returned value is reused
+        employees.mapToInt(Employee_.salary).sum().value();
+        employees.mapToInt(Employee_.salary).sum().value();
+        final LongValue filteredCount = employees.filter(e -> qb3.isNotNull(e.get(Employee_.name))).count();
+        filteredCount.value();
+        filteredCount.value();
+        Assert.assertEquals(executions.stream().map(QueryExecution::isCacheHit).collect(Collectors.toList()),
+          Arrays.asList(false, false, false, true));
+
+        // Keys don't retain their configurer, and entries are discarded once it has been garbage collected
+        final QueryCache cache2 = new QueryCache();
+        final Object configurer = new Object();
+        final QueryCache.Key key = cache2.newKey(configurer, "value()", new QueryInfo());
+        Assert.assertEquals(cache2.newKey(configurer, "value()", new QueryInfo()), key);
+        Assert.assertNotEquals(cache2.newKey(new Object(), "value()", new QueryInfo()), key);
+        cache2.put(key, 123L, Collections.emptySet(), Duration.ofMinutes(1), cache2.getGeneration());
+        Assert.assertEquals(cache2.size(), 1);
+        key.enqueue();                                          // simulate garbage collection of the configurer
+        Assert.assertEquals(cache2.size(), 0);
+
+        // Caching requires a configured cache
+        try {
+            this.qb.stream(Employee.class).cached(Duration.ofMinutes(1));
+            assert false;
+        } catch (IllegalStateException e) {
+            this.log.debug("got expected " + e);
+        }
+    }
+
+    @Test
+    @Transactional
+    public void testSummaryStatistics() throws Exception {
+
+        // Create some employees in two departments
+        final String prefix = "stats" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        final Department dept1 = new Department();
+        dept1.setName(prefix + "dept1");
+        this.entityManager.persist(dept1);
+        final Department dept2 = new Department();
+        dept2.setName(prefix + "dept2");
+        this.entityManager.persist(dept2);
+        final int[] salaries = { 1000, 2000, 3000, 5000 };
+        for (int i = 0; i < salaries.length; i++) {
+            final Employee employee = new Employee();
+            employee.setName(prefix + i);
+            employee.setSalary(salaries[i]);
+            employee.setDepartment(i < 3 ? dept1 : dept2);
+            this.entityManager.persist(employee);
+        }
+        this.entityManager.flush();
+
+        // Overall statistics
+        final IntSummaryStatistics stats = this.qb.stream(Employee.class)
+          .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%"))
+          .mapToInt(Employee_.salary)
+          .summaryStatistics()
+          .value();
+        Assert.assertEquals(stats.getCount(), 4);
+        Assert.assertEquals(stats.getSum(), 11000);
+        Assert.assertEquals(stats.getMin(), 1000);
+        Assert.assertEquals(stats.getMax(), 5000);
+        Assert.assertEquals(stats.getAverage(), 2750.0);
+
+        // Empty stream
+        final DoubleSummaryStatistics empty = this.qb.stream(Employee.class)
+          .filter(e -> this.qb.equal(e.get(Employee_.name), prefix + "nobody"))
+          .mapToDouble(Employee_.salary)
+          .summaryStatistics()
+          .value();
+        Assert.assertEquals(empty.getCount(), 0);
+        Assert.assertEquals(empty.getSum(), 0.0);
+
+        // Grouped statistics
+        final ExprRef<String> deptNameRef = new ExprRef<>();
+        final Map<String, LongSummaryStatistics> map = this.qb.stream(Employee.class)
+          .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%"))
+          .bind(deptNameRef, e -> e.get(Employee_.department).get(Department_.name))
+          .mapToLong(Employee_.salary)
+          .groupBy(deptNameRef)
+          .summaryStatistics(deptNameRef)
+          .getResultStream()
+          .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        Assert.assertEquals(map.size(), 2);
+        Assert.assertEquals(map.get(prefix + "dept1").getCount(), 3);
+        Assert.assertEquals(map.get(prefix + "dept1").getSum(), 6000);
+        Assert.assertEquals(map.get(prefix + "dept2").getMax(), 5000);
+    }
+
+    @Test
+    @Transactional
+    public void testGroupingBy() throws Exception {
+
+        // Create some employees in two departments
+        final String prefix = "grouping" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        final Department dept1 = new Department();
+        dept1.setName(prefix + "dept1");
+        this.entityManager.persist(dept1);
+        final Department dept2 = new Department();
+        dept2.setName(prefix + "dept2");
+        this.entityManager.persist(dept2);
+        final float[] salaries = { 1000, 2000, 3000, 5000 };
+        for (int i = 0; i < salaries.length; i++) {
+            final Employee employee = new Employee();
+            employee.setName(prefix + i);
+            employee.setSalary(salaries[i]);
+            employee.setDepartment(i < 3 ? dept1 : dept2);
+            this.entityManager.persist(employee);
+        }
+        this.entityManager.flush();
+
+        // Group by department name
+        final Map<String, Long> counts = this.qb.stream(Employee.class)
+          .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%"))
+          .groupingBy(e -> e.get(Employee_.department).get(Department_.name), this.qb::count);
+        Assert.assertEquals(counts.size(), 2);
+        Assert.assertEquals((long)counts.get(prefix + "dept1"), 3);
+        Assert.assertEquals((long)counts.get(prefix + "dept2"), 1);
+
+        // Group by department
+        final Map<Department, Double> maxSalaries = this.qb.stream(Employee.class)
+          .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%"))
+          .groupingBy(e -> e.get(Employee_.department), e -> this.qb.max(this.qb.toDouble(e.get(Employee_.salary))));
+        Assert.assertEquals(maxSalaries.get(dept1), 3000.0);
+        Assert.assertEquals(maxSalaries.get(dept2), 5000.0);
+
+        // Already grouped
+        try {
+            this.qb.stream(Employee.class)
+              .groupBy(Employee_.department)
+              .groupingBy(e -> e.get(Employee_.department), this.qb::count);
+            assert false;
+        } catch (UnsupportedOperationException e) {
+            this.log.debug("got expected " + e);
+        }
+    }
+
+    @Test
+    @Transactional
+    public void testMapToDto() throws Exception {
+
+        // Create some employees
+        final String prefix = "dto" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        for (int i = 0; i < 3; i++) {
+            final Employee employee = new Employee();
+            employee.setName(prefix + i);
+            employee.setSalary(1000 * (i + 1));
+            this.entityManager.persist(employee);
+        }
+        this.entityManager.flush();
+
+        // Map to DTO, then sort and limit
+        final List<EmployeeSummary> summaries = this.qb.stream(Employee.class)
+          .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%"))
+          .orderBy(Employee_.salary, false)
+          .mapToDto(EmployeeSummary.class, e -> Arrays.asList(e.get(Employee_.name), e.get(Employee_.salary)))
+          .limit(2)
+          .getResultList();
+        Assert.assertEquals(summaries.size(), 2);
+        Assert.assertEquals(summaries.get(0).getName(), prefix + "2");
+        Assert.assertEquals(summaries.get(0).getSalary(), 3000.0f);
+        Assert.assertEquals(summaries.get(1).getName(), prefix + "1");
+    }
+
+    @Test
+    @Transactional
+    public void testReadOnly() throws Exception {
+
+        // Create some employees
+        final String prefix = "readonly" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        for (int i = 0; i < 3; i++) {
+            final Employee employee = new Employee();
+            employee.setName(prefix + i);
+            this.entityManager.persist(employee);
+        }
+        this.entityManager.flush();
+        this.entityManager.clear();
+
+        // Read-only entities are not dirty checked
+        final RootStream<Employee> stream = this.qb.stream(Employee.class)
+          .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%"))
+          .orderBy(Employee_.name, true);
+        final List<Employee> employees = stream.readOnly().getResultList();
+        Assert.assertEquals(employees.size(), 3);
+        Assert.assertTrue(this.entityManager.contains(employees.get(0)));
+        employees.get(0).setName(prefix + "changed");
+        this.entityManager.flush();
+        Assert.assertEquals(stream.map(Employee_.name).getResultList().get(0), prefix + "0");
+        this.entityManager.clear();
+
+        // Detached results
+        final List<Employee> detached = stream.readOnly(true).getResultList();
+        Assert.assertEquals(detached.size(), 3);
+        Assert.assertTrue(detached.stream().noneMatch(this.entityManager::contains));
+        final List<Employee> streamed = stream.readOnly(true).getResultStream().collect(Collectors.toList());
+        Assert.assertTrue(streamed.stream().noneMatch(this.entityManager::contains));
+        Assert.assertFalse(this.entityManager.contains(stream.readOnly(true).findFirst().value()));
+    }
+
+    @Test
+    @Transactional
+    public void testBatchFetch() throws Exception {
+
+        // Create some managers, each having two direct reports
+        final String prefix = "batch" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        for (int i = 0; i < 5; i++) {
+            final Employee manager = new Employee();
+            manager.setName(prefix + i);
+            this.entityManager.persist(manager);
+            for (int j = 0; j < 2; j++) {
+                final Employee employee = new Employee();
+                employee.setName(prefix + i + "-" + j);
+                employee.setManager(manager);
+                this.entityManager.persist(employee);
+            }
+        }
+        this.entityManager.flush();
+        this.entityManager.clear();
+
+        // Query managers with batch fetching and a limit
+        final ArrayList<QueryExecution> executions = new ArrayList<>();
+        final QueryStream.Builder qb2 = this.qb.withListener(executions::add);
+        final List<Employee> managers = qb2.stream(Employee.class)
+          .filter(e -> qb2.like(e.get(Employee_.name), prefix + "_"))
+          .orderBy(Employee_.name, true)
+          .batchFetch(Employee_.directReports, 2)
+          .limit(4)
+          .getResultList();
+        Assert.assertEquals(managers.size(), 4);
+        Assert.assertEquals(executions.size(), 3);
+        final PersistenceUnitUtil util = this.entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        for (Employee manager : managers) {
+            Assert.assertTrue(util.isLoaded(manager, "directReports"));
+            Assert.assertEquals(manager.getDirectReports().size(), 2);
+        }
+
+        // Batch fetches apply to entity results, but not to derived or auxiliary queries with other result types
+        this.entityManager.clear();
+        final RootStream<Employee> batched = qb2.stream(Employee.class)
+          .filter(e -> qb2.like(e.get(Employee_.name), prefix + "_"))
+          .orderBy(Employee_.name, true)
+          .batchFetch(Employee_.directReports, 2);
+        final SeekPage<Employee> seekPage = batched.pageAfter(null, 3);
+        Assert.assertEquals(seekPage.getItems().size(), 3);
+        for (Employee manager : seekPage.getItems())
+            Assert.assertTrue(util.isLoaded(manager, "directReports"));
+        Assert.assertEquals(batched.streamInChunks(2).count(), 5);
+        final Page<Employee> page = batched.page(0, 3);
+        Assert.assertEquals(page.getItems().size(), 3);
+        Assert.assertEquals(page.getTotalCount(), 5);
+        for (Employee manager : page.getItems())
+            Assert.assertTrue(util.isLoaded(manager, "directReports"));
+        Assert.assertEquals(batched.count().value(), Long.valueOf(5));
+        Assert.assertEquals(batched.groupingBy(e -> e.get(Employee_.name), qb2::count).size(), 5);
+        Assert.assertEquals(batched.mapToDouble(Employee_.salary).summaryStatistics().value().getCount(), 5);
+    }
+
+    @Test
+    @Transactional
+    public void testAsync() throws Exception {
+
+        // Create some employees, but don't commit them
+        final String prefix = "async" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        for (int i = 0; i < 3; i++) {
+            final Employee employee = new Employee();
+            employee.setName(prefix + i);
+            this.entityManager.persist(employee);
+        }
+        this.entityManager.flush();
+
+        // Verify the query is built on this thread
+        final RootRef<Employee> employeeRef = new RootRef<>();
+        final CompletableFuture<List<Employee>> future = this.qb.stream(Employee.class)
+          .bind(employeeRef)
+          .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%"))
+          .getResultListAsync(Runnable::run);
+        Assert.assertTrue(employeeRef.isBound());
+
+        // Verify the queries run in their own EntityManager and so don't see our uncommitted changes
+        Assert.assertEquals(future.get(), Collections.emptyList());
+        Assert.assertEquals((long)this.qb.stream(Employee.class)
+          .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%"))
+          .count()
+          .valueAsync()
+          .get(), 0L);
+        Assert.assertEquals((int)this.qb.updateStream(Employee.class)
+          .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%"))
+          .set(Employee_.salary, 1234.0f)
+          .updateAsync()
+          .get(), 0);
+
+        // Verify the queries see committed rows
+        final String prefix2 = "async" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        final List<String> names = this.commitEmployees(prefix2, 3);
+        try {
+            final ArrayList<QueryExecution> executions = new ArrayList<>();
+            final QueryStream.Builder qb2 = this.qb.withListener(executions::add);
+            Assert.assertEquals(qb2.stream(Employee.class)
+              .filter(e -> qb2.like(e.get(Employee_.name), prefix2 + "%"))
+              .orderBy(Employee_.name, true)
+              .map(Employee_.name)
+              .getResultListAsync(Runnable::run)
+              .get(), names);
+            Assert.assertEquals((long)qb2.stream(Employee.class)
+              .filter(e -> qb2.like(e.get(Employee_.name), prefix2 + "%"))
+              .count()
+              .valueAsync()
+              .get(), 3L);
+            Assert.assertEquals((int)qb2.updateStream(Employee.class)
+              .filter(e -> qb2.like(e.get(Employee_.name), prefix2 + "%"))
+              .set(Employee_.salary, 1234.0f)
+              .updateAsync()
+              .get(), 3);
+            Assert.assertEquals(qb2.stream(Employee.class)
+              .filter(e -> qb2.like(e.get(Employee_.name), prefix2 + "%"))
+              .mapToDouble(Employee_.salary)
+              .max()
+              .valueAsync()
+              .get(), Double.valueOf(1234.0));
+            Assert.assertEquals(executions.size(), 4);
+            Assert.assertEquals(executions.get(0).getRowCount(), 3);
+            Assert.assertEquals(executions.get(2).getRowCount(), 3);
+        } finally {
+            this.deleteCommittedEmployees(prefix2);
+        }
+
+        // Batch fetches are not supported
+        try {
+            this.qb.stream(Employee.class)
+              .batchFetch(Employee_.directReports, 2)
+              .getResultListAsync();
+            assert false;
+        } catch (UnsupportedOperationException e) {
+            this.log.debug("got expected " + e);
+        }
+    }
+
+    @Test
+    @Transactional
+    public void testExecuteAll() throws Exception {
+
+        // Create an employee, but don't commit it
+        final String prefix = "all" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        final Employee employee = new Employee();
+        employee.setName(prefix + 0);
+        this.entityManager.persist(employee);
+        this.entityManager.flush();
+
+        // Run several queries concurrently, and verify results are returned in order
+        final List<List<?>> results = this.qb.executeAll(
+          this.qb.stream(Employee.class)
+            .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%")),
+          this.qb.stream(Employee.class)
+            .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%"))
+            .count(),
+          this.qb.stream(Employee.class)
+            .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%"))
+            .mapToDouble(Employee_.salary)
+            .max());
+        Assert.assertEquals(results.size(), 3);
+        Assert.assertEquals(results.get(0), Collections.emptyList());
+        Assert.assertEquals(results.get(1), Collections.singletonList(0L));
+        Assert.assertEquals(results.get(2), Collections.singletonList(null));
+
+        // Verify committed rows are returned, using an immutable list of streams
+        final String prefix2 = "all" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        final List<String> names = this.commitEmployees(prefix2, 3);
+        try {
+            final List<List<?>> results2 = this.qb.executeAll(null, List.of(
+              this.qb.stream(Employee.class)
+                .filter(e -> this.qb.like(e.get(Employee_.name), prefix2 + "%"))
+                .orderBy(Employee_.name, true)
+                .map(Employee_.name),
+              this.qb.stream(Employee.class)
+                .filter(e -> this.qb.like(e.get(Employee_.name), prefix2 + "%"))
+                .mapToDouble(Employee_.salary)
+                .max()));
+            Assert.assertEquals(results2.size(), 2);
+            Assert.assertEquals(results2.get(0), names);
+            Assert.assertEquals(results2.get(1), Collections.singletonList(2000.0));
+        } finally {
+            this.deleteCommittedEmployees(prefix2);
+        }
+
+        // Null streams are not allowed
+        try {
+            this.qb.executeAll(this.qb.stream(Employee.class), null);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            this.log.debug("got expected " + e);
+        }
+    }
+
+    @Test
+    @Transactional
+    public void testAutoParameters() throws Exception {
+
+        // Create some employees
+        final String prefix = "auto" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        for (int i = 0; i < 3; i++) {
+            final Employee employee = new Employee();
+            employee.setName(prefix + i);
+            employee.setSalary(i * 1000.0f);
+            this.entityManager.persist(employee);
+        }
+        this.entityManager.flush();
+
+        // Query with literal values replaced by parameters
+        final QueryCache cache = new QueryCache();
+        final ArrayList<QueryExecution> executions = new ArrayList<>();
+        final QueryStream.Builder qb2 = this.qb.withCache(cache).withListener(executions::add).withAutoParameters(true);
+        Assert.assertTrue(qb2.isAutoParameters());
+        final ExprStream<String, ?> names = qb2.stream(Employee.class)
+          .filter(e -> qb2.and(
+            qb2.like(e.get(Employee_.name), prefix + "%"),
+            qb2.between(e.get(Employee_.salary), 500.0f, 2500.0f),
+            qb2.notEqual(e.get(Employee_.name), prefix + 2)))
+          .orderBy(Employee_.name, true)
+          .map(Employee_.name)
+          .cached(Duration.ofMinutes(1));
+        Assert.assertEquals(names.getResultList(), Arrays.asList(prefix + 1));
+
+        // Automatic parameters don't prevent cache hits
+        Assert.assertEquals(names.getResultList(), Arrays.asList(prefix + 1));
+        Assert.assertEquals(executions.size(), 2);
+        Assert.assertFalse(executions.get(0).isCacheHit());
+        Assert.assertTrue(executions.get(1).isCacheHit());
+
+        // The literal values are bound as parameters of the Query
+        final TypedQuery<String> query = names.toQuery();
+        Assert.assertEquals(query.getParameters().size(), 4);
+        Assert.assertEquals(query.getParameters().stream()
+          .map(param -> (Object)query.getParameterValue(param))
+          .collect(Collectors.toSet()), Set.of(prefix + "%", 500.0f, 2500.0f, prefix + 2));
+
+        // Different literal values produce the same SQL
+        final Function<String, ExprStream<String, ?>> byName = name -> qb2.stream(Employee.class)
+          .filter(e -> qb2.equal(e.get(Employee_.name), name))
+          .map(Employee_.name);
+        final ArrayList<List<String>> results = new ArrayList<>();
+        final String sql0 = this.captureSQL(() -> results.add(byName.apply(prefix + 0).getResultList()));
+        final String sql1 = this.captureSQL(() -> results.add(byName.apply(prefix + 1).getResultList()));
+        Assert.assertEquals(results, Arrays.asList(Arrays.asList(prefix + 0), Arrays.asList(prefix + 1)));
+        Assert.assertEquals(sql0, sql1);
+        Assert.assertFalse(sql0.isEmpty());
+        Assert.assertFalse(sql0.contains(prefix));
+
+        // Literals are still used when not building a Query
+        Assert.assertNotNull(qb2.stream(Employee.class)
+          .filter(e -> qb2.equal(e.get(Employee_.name), prefix + 0))
+          .toCriteriaQuery());
+    }
+
+    @Test
+    @Transactional
+    public void testInLists() throws Exception {
+
+        // Create some employees
+        final String prefix = "in" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        final ArrayList<String> names = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final Employee employee = new Employee();
+            employee.setName(prefix + i);
+            this.entityManager.persist(employee);
+            names.add(employee.getName());
+        }
+        this.entityManager.flush();
+
+        // Query using padded IN lists
+        Assert.assertEquals(this.qb.stream(Employee.class)
+          .filter(e -> this.qb.inPadded(e.get(Employee_.name), Arrays.asList(prefix + 1, prefix + 3, prefix + 4, "foobar")))
+          .orderBy(Employee_.name, true)
+          .map(Employee_.name)
+          .getResultList(), Arrays.asList(prefix + 1, prefix + 3, prefix + 4));
+        Assert.assertEquals((long)this.qb.stream(Employee.class)
+          .filter(e -> this.qb.inPadded(e.get(Employee_.name), Collections.<String>emptyList()))
+          .count()
+          .value(), 0L);
+
+        // Query in chunks, merging sorted results
+        final ArrayList<QueryExecution> executions = new ArrayList<>();
+        final QueryStream.Builder qb2 = this.qb.withListener(executions::add);
+        final ArrayList<String> reversed = new ArrayList<>(names);
+        Collections.reverse(reversed);
+        Assert.assertEquals(qb2.stream(Employee.class)
+          .orderBy(Employee_.name, false)
+          .map(Employee_.name)
+          .getResultListChunked(name -> name, names, 2, Comparator.reverseOrder()), reversed);
+        Assert.assertEquals(executions.size(), 3);
+
+        // Chunks are never padded beyond the chunk size
+        Assert.assertEquals(this.qb.stream(Employee.class)
+          .orderBy(Employee_.name, true)
+          .map(Employee_.name)
+          .getResultListChunked(name -> name, names, 3, Comparator.naturalOrder()), names);
+        Assert.assertEquals(InLists.paddedSize(5, Integer.MAX_VALUE), 8);
+        Assert.assertEquals(InLists.paddedSize(3, 3), 3);
+        Assert.assertEquals(InLists.paddedSize(600, 1000), 1000);
+        Assert.assertEquals(InLists.paddedSize(1000, 1000), 1000);
+        Assert.assertEquals(InLists.paddedSize(513, 1000), 1000);
+        Assert.assertEquals(InLists.paddedSize(500, 1000), 512);
+    }
+
+    @Test
+    @Transactional
+    public void testRefScopes() throws Exception {
+
+        // Create some employees
+        final String prefix = "ref" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        for (int i = 0; i < 3; i++) {
+            final Employee employee = new Employee();
+            employee.setName(prefix + i);
+            this.entityManager.persist(employee);
+        }
+        this.entityManager.flush();
+
+        // Create a stream that binds a Ref
+        final RootRef<Employee> employeeRef = new RootRef<>();
+        final AtomicBoolean mismatch = new AtomicBoolean();
+        final RootStream<Employee> stream = this.qb.stream(Employee.class)
+          .bind(employeeRef)
+          .filter(e -> {
+            if (employeeRef.get() != e)
+                mismatch.set(true);
+            return this.qb.like(employeeRef.get().get(Employee_.name), prefix + "%");
+          });
+
+        // Execute it repeatedly
+        Assert.assertEquals(stream.getResultList().size(), 3);
+        Assert.assertEquals(stream.getResultList().size(), 3);
+        Assert.assertTrue(employeeRef.isBound());
+
+        // Build it concurrently
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final ArrayList<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++)
+                futures.add(executor.submit(() -> stream.toCriteriaQuery()));
+            for (Future<?> future : futures)
+                Assert.assertNotNull(future.get());
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertFalse(mismatch.get());
+
+        // Operations that build the stream more than once work with Refs
+        final Page<Employee> page = stream.orderBy(Employee_.name, true).page(0, 2);
+        Assert.assertEquals(page.getItems().size(), 2);
+        Assert.assertEquals(page.getTotalCount(), 3);
+        Assert.assertEquals(stream.getResultListChunked(e -> e.get(Employee_.name),
+          Arrays.asList(prefix + 0, prefix + 1, prefix + 2), 2, null).size(), 3);
+        final RootRef<Employee> updateRef = new RootRef<>();
+        Assert.assertEquals(this.qb.updateStream(Employee.class)
+          .bind(updateRef)
+          .filter(e -> this.qb.like(updateRef.get().get(Employee_.name), prefix + "%"))
+          .set(Employee_.salary, 1.0f)
+          .updateInBatches(2), 3);
+        final RootRef<Employee> deleteRef = new RootRef<>();
+        Assert.assertEquals(this.qb.deleteStream(Employee.class)
+          .bind(deleteRef)
+          .filter(e -> this.qb.like(deleteRef.get().get(Employee_.name), prefix + "%"))
+          .deleteInBatches(2), 3);
+        Assert.assertFalse(mismatch.get());
+    }
+
+    @Test
+    @Transactional
+    public void testExistence() throws Exception {
+
+        // Create some employees
+        final String prefix = "exists" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        for (int i = 0; i < 3; i++) {
+            final Employee employee = new Employee();
+            employee.setName(prefix + i);
+            employee.setSalary(i * 1000.0f);
+            this.entityManager.persist(employee);
+        }
+        this.entityManager.flush();
+
+        // Check existence, verifying that at most one row is retrieved
+        final ArrayList<QueryExecution> executions = new ArrayList<>();
+        final QueryStream.Builder qb2 = this.qb.withListener(executions::add);
+        final RootStream<Employee> employees = qb2.stream(Employee.class)
+          .filter(e -> qb2.like(e.get(Employee_.name), prefix + "%"))
+          .orderBy(Employee_.name, true);
+        Assert.assertFalse(employees.isEmpty());
+        Assert.assertTrue(employees.anyMatch(e -> qb2.greaterThan(e.get(Employee_.salary), 1500.0f)));
+        Assert.assertFalse(employees.anyMatch(e -> qb2.greaterThan(e.get(Employee_.salary), 2500.0f)));
+        Assert.assertTrue(employees.allMatch(e -> qb2.lessThan(e.get(Employee_.salary), 2500.0f)));
+        Assert.assertFalse(employees.allMatch(e -> qb2.lessThan(e.get(Employee_.salary), 1500.0f)));
+        Assert.assertTrue(employees.noneMatch(e -> qb2.lessThan(e.get(Employee_.salary), 0.0f)));
+        Assert.assertTrue(employees.map(Employee_.name).filter(name -> qb2.equal(name, "foobar")).isEmpty());
+        Assert.assertEquals(executions.size(), 7);
+        Assert.assertTrue(executions.stream().allMatch(execution -> execution.getRowCount() <= 1));
+
+        // Aggregates and skipped rows are handled correctly
+        Assert.assertFalse(qb2.stream(Employee.class)
+          .filter(e -> qb2.equal(e.get(Employee_.name), "foobar"))
+          .count()
+          .isEmpty());
+        Assert.assertFalse(employees.skip(2).isEmpty());
+        Assert.assertTrue(employees.skip(3).isEmpty());
+    }
+
+    @Test
+    @Transactional
+    public void testFetch() throws Exception {
+
+        // Create some employees
+        final String prefix = "fetch" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        for (int i = 0; i < 3; i++) {
+            final Employee employee = new Employee();
+            employee.setName(prefix + i);
+            employee.setSalary(i * 1000.0f);
+            this.entityManager.persist(employee);
+        }
+        this.entityManager.flush();
+
+        // Fetch values, verifying that each executes exactly one query
+        final ArrayList<QueryExecution> executions = new ArrayList<>();
+        final QueryStream.Builder qb2 = this.qb.withListener(executions::add);
+        final RootStream<Employee> employees = qb2.stream(Employee.class)
+          .filter(e -> qb2.like(e.get(Employee_.name), prefix + "%"));
+
+        final ValueResult<Employee> one = employees
+          .filter(e -> qb2.equal(e.get(Employee_.name), prefix + "1"))
+          .findSingle()
+          .fetch();
+        Assert.assertTrue(one.isPresent());
+        Assert.assertFalse(one.isAbsent());
+        Assert.assertFalse(one.isNonUnique());
+        Assert.assertEquals(one.get().getName(), prefix + "1");
+        Assert.assertEquals(one.toOptional().get().getName(), prefix + "1");
+        Assert.assertEquals(executions.size(), 1);
+
+        final ValueResult<Employee> none = employees
+          .filter(e -> qb2.equal(e.get(Employee_.name), "foobar"))
+          .findSingle()
+          .fetch();
+        Assert.assertFalse(none.isPresent());
+        Assert.assertTrue(none.isAbsent());
+        Assert.assertNull(none.orElse(null));
+        Assert.assertFalse(none.toOptional().isPresent());
+        try {
+            none.get();
+            assert false;
+        } catch (NoResultException e) {
+            this.log.debug("got expected " + e);
+        }
+        Assert.assertEquals(executions.size(), 2);
+
+        final ValueResult<Employee> many = employees.findSingle().fetch();
+        Assert.assertTrue(many.isNonUnique());
+        Assert.assertFalse(many.isAbsent());
+        try {
+            many.isPresent();
+            assert false;
+        } catch (NonUniqueResultException e) {
+            this.log.debug("got expected " + e);
+        }
+        Assert.assertEquals(executions.size(), 3);
+        Assert.assertEquals(executions.get(2).getRowCount(), 2);
+
+        // Only two rows are retrieved to detect a non-unique result, and an existing limit is kept
+        Assert.assertTrue(employees.limit(1).findSingle().fetch().isPresent());
+        Assert.assertEquals(executions.get(3).getRowCount(), 1);
+        try {
+            employees.findSingle().value();
+            assert false;
+        } catch (NonUniqueResultException e) {
+            this.log.debug("got expected " + e);
+        }
+        Assert.assertEquals(executions.size(), 5);
+
+        // The value itself is not limited, so it can be further filtered and used as a subquery
+        Assert.assertEquals(employees.findSingle()
+          .filter(e -> qb2.equal(e.get(Employee_.name), prefix + "2"))
+          .value().getName(), prefix + "2");
+        final List<Employee> highest = employees
+          .filter(e -> qb2.equal(e.get(Employee_.salary), qb2.stream(Employee.class)
+              .filter(e2 -> qb2.equal(e2.get(Employee_.name), prefix + "2"))
+              .map(Employee_.salary)
+              .findSingle()
+              .asSubquery()))
+          .getResultList();
+        Assert.assertEquals(highest.size(), 1);
+        Assert.assertEquals(highest.get(0).getName(), prefix + "2");
+        Assert.assertEquals(executions.size(), 7);
+
+        // Convenience methods also execute exactly one query
+        Assert.assertTrue(employees.findFirst().isPresent());
+        Assert.assertEquals(employees.mapToDouble(Employee_.salary).max().orElse(-1.0), Double.valueOf(2000.0));
+        Assert.assertEquals(executions.size(), 9);
+    }
+
+    @Test
+    @Transactional
+    public void testPrimitiveResults() throws Exception {
+
+        // Create enough employees to require growing the result buffer
+        final String prefix = "prim" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        final int count = 100;
+        for (int i = 0; i < count; i++) {
+            final Employee employee = new Employee();
+            employee.setName(String.format("%s%03d", prefix, i));
+            employee.setSalary(i * 10.0f);
+            this.entityManager.persist(employee);
+        }
+        this.entityManager.flush();
+        final RootStream<Employee> employees = this.qb.stream(Employee.class)
+          .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%"))
+          .orderBy(Employee_.name, true);
+
+        // Arrays
+        final int[] ints = employees.mapToInt(Employee_.salary).toIntArray();
+        Assert.assertEquals(ints.length, count);
+        for (int i = 0; i < count; i++)
+            Assert.assertEquals(ints[i], i * 10);
+        final long[] longs = employees.mapToLong(Employee_.salary).toLongArray();
+        Assert.assertEquals(longs.length, count);
+        Assert.assertEquals(longs[count - 1], (count - 1) * 10L);
+        final double[] doubles = employees.mapToDouble(Employee_.salary).toDoubleArray();
+        Assert.assertEquals(doubles.length, count);
+        Assert.assertEquals(doubles[1], 10.0);
+        Assert.assertEquals(employees.filter(e -> this.qb.equal(e.get(Employee_.name), "foobar"))
+          .mapToInt(Employee_.salary)
+          .toIntArray().length, 0);
+
+        // Streams
+        try (java.util.stream.IntStream stream = employees.mapToInt(Employee_.salary).asJavaIntStream()) {
+            Assert.assertEquals(stream.sum(), Arrays.stream(ints).sum());
+        }
+        try (java.util.stream.LongStream stream = employees.mapToLong(Employee_.salary).asJavaLongStream()) {
+            Assert.assertEquals(stream.max().getAsLong(), (count - 1) * 10L);
+        }
+        try (java.util.stream.DoubleStream stream = employees.mapToDouble(Employee_.salary).asJavaDoubleStream()) {
+            Assert.assertEquals(stream.count(), count);
+        }
+
+        // Cached streams
+        final QueryStream.Builder qb2 = this.qb.withCache(new QueryCache());
+        final IntStream cached = qb2.stream(Employee.class)
+          .filter(e -> qb2.like(e.get(Employee_.name), prefix + "%"))
+          .orderBy(Employee_.name, true)
+          .mapToInt(Employee_.salary)
+          .cached(Duration.ofMinutes(1));
+        Assert.assertEquals(cached.toIntArray(), ints);
+        Assert.assertEquals(cached.toIntArray(), ints);
+    }
+
+    @Test
+    @Transactional
+    public void testTimeoutAndCancellation() throws Exception {
+
+        // Create some employees
+        final String prefix = "cancel" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        for (int i = 0; i < 3; i++) {
+            final Employee employee = new Employee();
+            employee.setName(prefix + i);
+            this.entityManager.persist(employee);
+        }
+        this.entityManager.flush();
+        final RootStream<Employee> employees = this.qb.stream(Employee.class)
+          .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%"));
+
+        // Timeouts are applied as a hint and retained by derived streams
+        final RootStream<Employee> timed = employees.withTimeout(Duration.ofSeconds(5));
+        Assert.assertEquals(timed.getTimeout(), Duration.ofSeconds(5));
+        Assert.assertEquals(((Number)timed.toQuery().getHints().get("jakarta.persistence.query.timeout")).intValue(), 5000);
+        Assert.assertEquals(timed.map(Employee_.name).getTimeout(), Duration.ofSeconds(5));
+        Assert.assertEquals(timed.getResultList().size(), 3);
+        Assert.assertNull(timed.withTimeout(null).getTimeout());
+        try {
+            employees.withTimeout(Duration.ZERO);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            this.log.debug("got expected " + e);
+        }
+
+        // Result streams stop when cancelled
+        final CancellationToken token = new CancellationToken();
+        final RootStream<Employee> cancellable = employees.withCancellation(token);
+        Assert.assertSame(cancellable.map(Employee_.name).getCancellation(), token);
+        Assert.assertEquals(cancellable.getResultList().size(), 3);
+        try (Stream<Employee> stream = cancellable.getResultStream()) {
+            final Iterator<Employee> i = stream.iterator();
+            Assert.assertTrue(i.hasNext());
+            i.next();
+            token.cancel();
+            i.next();
+            assert false;
+        } catch (CancellationException e) {
+            this.log.debug("got expected " + e);
+        }
+
+        // Cancelled queries are not executed
+        Assert.assertTrue(token.isCancelled());
+        try {
+            cancellable.count().value();
+            assert false;
+        } catch (CancellationException e) {
+            this.log.debug("got expected " + e);
+        }
+
+        // Pending asynchronous results are cancelled
+        final CancellationToken token2 = new CancellationToken();
+        final ArrayList<QueryExecution> executions = new ArrayList<>();
+        final ArrayList<Runnable> tasks = new ArrayList<>();
+        final CompletableFuture<List<Employee>> future = this.qb.withListener(executions::add)
+          .stream(Employee.class)
+          .withCancellation(token2)
+          .getResultListAsync(tasks::add);
+        Assert.assertFalse(future.isDone());
+        token2.cancel();
+        Assert.assertTrue(future.isCancelled());
+        tasks.forEach(Runnable::run);
+        Assert.assertTrue(executions.isEmpty());
+
+        // Completed asynchronous results don't remain registered with a long-lived token
+        final CancellationToken token3 = new CancellationToken();
+        for (int i = 0; i < 3; i++) {
+            this.qb.stream(Employee.class)
+              .withCancellation(token3)
+              .count()
+              .valueAsync(Runnable::run)
+              .get();
+        }
+        Assert.assertEquals(token3.getNumCallbacks(), 0);
+        Assert.assertEquals(token2.getNumCallbacks(), 0);
+    }
+
+    @Test
+    public void testParallelSearch() throws Exception {
+
+        // Create and commit some employees, because each partition is queried using its own EntityManager
+        final String prefix = "parallel" + this.random.nextInt(Integer.MAX_VALUE) + "-";
+        final List<String> names = this.commitEmployees(prefix, 10);
+        try {
+            final EntityManagerFactory entityManagerFactory = this.entityManager.getEntityManagerFactory();
+
+            // Verify every row is found exactly once
+            final List<Employee> employees = this.qb.stream(Employee.class)
+              .filter(e -> this.qb.like(e.get(Employee_.name), prefix + "%"))
+              .getResultListParallel(entityManagerFactory, 3, e -> e.get(Employee_.id));
+            Assert.assertEquals(employees.stream().map(Employee::getName).sorted().collect(Collectors.toList()), names);
+
+            // Streams that bind Refs may be used, even though they are built more than once
+            final RootRef<Employee> employeeRef = new RootRef<>();
+            Assert.assertEquals(this.qb.stream(Employee.class)
+              .bind(employeeRef)
+              .filter(e -> this.qb.like(employeeRef.get().get(Employee_.name), prefix + "%"))
+              .getResultListParallel(entityManagerFactory, 3, e -> e.get(Employee_.id)).size(), names.size());
+
+            // Verify sorted results are merged, and the range and partition queries get the stream's configuration
+            final List<QueryExecution> executions = Collections.synchronizedList(new ArrayList<>());
+            final QueryStream.Builder qb2 = this.qb.withListener(executions::add);
+            final List<Employee> sorted = qb2.stream(Employee.class)
+              .filter(e -> qb2.like(e.get(Employee_.name), prefix + "%"))
+              .orderBy(Employee_.name, false)
+              .getResultListParallel(entityManagerFactory, 4, e -> e.get(Employee_.id),
+                Comparator.comparing(Employee::getName).reversed(), null);
+            final ArrayList<String> reversed = new ArrayList<>(names);
+            Collections.reverse(reversed);
+            Assert.assertEquals(sorted.stream().map(Employee::getName).collect(Collectors.toList()), reversed);
+            Assert.assertEquals(executions.size(), 5);
+            Assert.assertEquals(executions.stream()
+              .map(QueryExecution::getOperation)
+              .filter("getResultListParallel()"::equals)
+              .count(), 4);
+
+            // Partitions are subject to cancellation
+            final CancellationToken token = new CancellationToken();
+            token.cancel();
+            try {
+                this.qb.stream(Employee.class)
+                  .withCancellation(token)
+                  .getResultListParallel(entityManagerFactory, 3, e -> e.get(Employee_.id));
+                assert false;
+            } catch (CancellationException e) {
+                this.log.debug("got expected " + e);
+            }
+
+            // Lock modes are not supported, because partitions are not queried within a transaction
+            try {
+                this.qb.stream(Employee.class)
+                  .withLockMode(LockModeType.PESSIMISTIC_READ)
+                  .getResultListParallel(entityManagerFactory, 3, e -> e.get(Employee_.id));
+                assert false;
+            } catch (UnsupportedOperationException e) {
+                this.log.debug("got expected " + e);
+            }
+
+            // Verify an empty range
+            Assert.assertEquals(this.qb.stream(Employee.class)
+              .filter(e -> this.qb.equal(e.get(Employee_.name), prefix + "none"))
+              .getResultListParallel(entityManagerFactory, 3, e -> e.get(Employee_.id)), Collections.emptyList());
+
+            // Sorted streams require a comparator
+            try {
+                this.qb.stream(Employee.class)
+                  .orderBy(Employee_.name, true)
+                  .getResultListParallel(entityManagerFactory, 3, e -> e.get(Employee_.id));
+                assert false;
+            } catch (IllegalArgumentException e) {
+                this.log.debug("got expected " + e);
+            }
+
+            // Non-integral partition expressions are not allowed
+            try {
+                this.qb.stream(Employee.class)
+                  .getResultListParallel(entityManagerFactory, 3, e -> e.get(Employee_.salary));
+                assert false;
+            } catch (IllegalArgumentException e) {
+                this.log.debug("got expected " + e);
+            }
+        } finally {
+            this.deleteCommittedEmployees(prefix);
+        }
+    }
+
 // Illegal operations after skip() or limit()
 
     @Test(dataProvider = "badSkipLimitUsageFunctions")
@@ -579,6 +1943,21 @@ public class QueryTest {
 
 // Check QueryInfo from subquery merging with outer query
 
+    @Test
+    public void testSubqueryTimeout() throws Exception {
+        final Function<Duration, Object> timeout = subqueryTimeout -> this.qb.stream(Employee.class)
+          .filter(e -> this.qb.substream(e)
+                        .flatMap(Employee_.directReports)
+                        .withTimeout(subqueryTimeout)
+                        .exists())
+          .withTimeout(Duration.ofSeconds(10))
+          .toQuery()
+          .getHints()
+          .get("jakarta.persistence.query.timeout");
+        Assert.assertEquals(((Number)timeout.apply(Duration.ofSeconds(5))).intValue(), 5000);
+        Assert.assertEquals(((Number)timeout.apply(Duration.ofSeconds(20))).intValue(), 10000);
+    }
+
     @Test
     public void testSubqueryNonconflictingParam() throws Exception {
         final ParameterExpression<String> nameParam = this.qb.parameter(String.class, "name");
@@ -712,6 +2091,27 @@ public class QueryTest {
         }
     }
 
+// EmployeeSummary
+
+    public static class EmployeeSummary {
+
+        private final String name;
+        private final float salary;
+
+        public EmployeeSummary(String name, Float salary) {
+            this.name = name;
+            this.salary = salary;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public float getSalary() {
+            return this.salary;
+        }
+    }
+
 // Test Lifecycle
 
     @BeforeClass
@@ -752,4 +2152,40 @@ public class QueryTest {
             throw new RuntimeException("unexpected exception", e);
         }
     }
+
+    // Create and commit employees named with the given prefix, using a separate EntityManager, and return their sorted names
+    private List<String> commitEmployees(String prefix, int count) {
+        final ArrayList<String> names = new ArrayList<>(count);
+        this.inCommittedTransaction(entityManager -> {
+            for (int i = 0; i < count; i++) {
+                final Employee employee = new Employee();
+                employee.setName(prefix + i);
+                employee.setSalary(i * 1000.0f);
+                entityManager.persist(employee);
+                names.add(employee.getName());
+            }
+        });
+        Collections.sort(names);
+        return names;
+    }
+
+    private void deleteCommittedEmployees(String prefix) {
+        this.inCommittedTransaction(entityManager -> QueryStream.newBuilder(entityManager).deleteStream(Employee.class)
+          .filter(e -> entityManager.getCriteriaBuilder().like(e.get(Employee_.name), prefix + "%"))
+          .delete());
+    }
+
+    // Perform the given action in a new transaction, using a separate EntityManager, and commit
+    private void inCommittedTransaction(Consumer<? super EntityManager> action) {
+        final EntityManager entityManager = this.entityManager.getEntityManagerFactory().createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            action.accept(entityManager);
+            entityManager.getTransaction().commit();
+        } finally {
+            if (entityManager.getTransaction().isActive())
+                entityManager.getTransaction().rollback();
+            entityManager.close();
+        }
+    }
 }